@@ -0,0 +1,78 @@
+package com.example.benchmark;
+
+import com.example.GcsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * benchmark 하나 (trial) 동안 쓰는 Spring context 와 메모리 Storage.
+ * overrides 로 @Param 에 따라 바뀌는 설정 (cache on / off 등) 을 넘긴다.
+ */
+final class BenchmarkContext implements AutoCloseable {
+
+    static final String PREFIX = "bench/";
+
+    // listing 이 prefix 별로 나눠 읽도록 object 를 이 개수의 디렉토리에 나눠 넣는다
+    private static final int DIRECTORIES = 16;
+
+    private final AnnotationConfigApplicationContext context;
+
+    final GcsService gcsService;
+    final Storage storage;
+    final String bucketName;
+    // controller 가 쓰는 Spring Boot 기본 설정과 같은 ObjectMapper
+    final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private BenchmarkContext(AnnotationConfigApplicationContext context) {
+        this.context = context;
+        this.gcsService = context.getBean(GcsService.class);
+        this.storage = context.getBean(Storage.class);
+        this.bucketName = context.getEnvironment().getRequiredProperty("gcs-resource-test-bucket");
+    }
+
+    static BenchmarkContext start(Map<String, Object> overrides) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark-params", overrides));
+        context.register(InMemoryGcsConfiguration.class);
+        context.refresh();
+        return new BenchmarkContext(context);
+    }
+
+    /**
+     * PREFIX 아래에 size byte 짜리 object 를 count 개 만들고 이름을 돌려준다.
+     */
+    List<String> seed(int count, int size) {
+        byte[] content = randomBytes(size);
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = String.format("%sdir-%02d/object-%06d.bin", PREFIX, i % DIRECTORIES, i);
+            BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(this.bucketName, name))
+                    .setContentType("application/octet-stream")
+                    .build();
+            this.storage.create(blobInfo, content);
+            names.add(name);
+        }
+        return names;
+    }
+
+    static byte[] randomBytes(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+
+    @Override
+    public void close() {
+        this.context.close();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * benchmarks.jar 의 main. JMH 명령행 옵션을 그대로 받고, 처리량과 함께 할당량 (gc.alloc.rate.norm) 을 보도록
+ * gc profiler 를 항상 붙인다.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar GcsDownloadBenchmark -p size=1048576 -rff target/download.json -rf json
+ * </pre>
+ */
+public final class GcsBenchmarks {
+
+    private GcsBenchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
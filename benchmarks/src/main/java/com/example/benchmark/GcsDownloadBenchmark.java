@@ -0,0 +1,76 @@
+package com.example.benchmark;
+
+import com.google.cloud.storage.Blob;
+import com.google.common.io.ByteStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /{fileName}/download 의 전체 / Range 응답 (serveBlob). 응답 body 는 버린다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GcsDownloadBenchmark {
+
+    private static final int RANGE_LENGTH = 65536;
+
+    @Param({"1024", "1048576", "16777216"})
+    public int size;
+
+    @Param({"16"})
+    public int count;
+
+    private BenchmarkContext context;
+    private List<String> names;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start(Collections.emptyMap());
+        this.names = this.context.seed(this.count, this.size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    private Blob nextBlob() throws IOException {
+        String name = this.names.get(this.next);
+        this.next = (this.next + 1) % this.names.size();
+        return this.context.gcsService.getBlobFromGCS(name);
+    }
+
+    @Benchmark
+    public long download() throws IOException {
+        Blob blob = this.nextBlob();
+        return this.context.gcsService.serveBlob(blob, 0, blob.getSize(), ByteStreams.nullOutputStream());
+    }
+
+    @Benchmark
+    public long rangedDownload() throws IOException {
+        Blob blob = this.nextBlob();
+        long length = Math.min(RANGE_LENGTH, blob.getSize());
+        return this.context.gcsService.serveBlob(blob, blob.getSize() - length, length, ByteStreams.nullOutputStream());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /page, /list 의 listing 부터 JSON 직렬화까지 (Storage 결과를 BlobInfo / column DTO 로 옮기는 loop 포함).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GcsListBenchmark {
+
+    @Param({"1000", "10000"})
+    public int count;
+
+    @Param({"100", "1000"})
+    public int rowCount;
+
+    private BenchmarkContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start(Collections.emptyMap());
+        this.context.seed(this.count, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public byte[] pagedList() throws JsonProcessingException {
+        return this.context.objectMapper.writeValueAsBytes(
+                this.context.gcsService.getPagedFileListFromGCS(null, BenchmarkContext.PREFIX, this.rowCount));
+    }
+
+    @Benchmark
+    public byte[] pagedColumns() throws JsonProcessingException {
+        return this.context.objectMapper.writeValueAsBytes(
+                this.context.gcsService.getPagedFileColumnsFromGCS(null, BenchmarkContext.PREFIX, this.rowCount));
+    }
+
+    @Benchmark
+    public byte[] fullList() throws IOException {
+        return this.context.objectMapper.writeValueAsBytes(this.context.gcsService.getWholeBlobInfoFromGCS());
+    }
+
+    @Benchmark
+    public byte[] fullColumns() throws JsonProcessingException {
+        return this.context.objectMapper.writeValueAsBytes(this.context.gcsService.getWholeFileColumnsFromGCS());
+    }
+}
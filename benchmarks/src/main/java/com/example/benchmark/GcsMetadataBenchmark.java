@@ -0,0 +1,77 @@
+package com.example.benchmark;
+
+import com.example.GcsSignedUrlDTO;
+import com.google.cloud.storage.BlobInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /{fileName} (getBlobInfoFromGCS) 와 /url (getSignedURL).
+ * cache=false 이면 metadata cache 와 signed URL cache 를 모두 끄고 매번 Storage 조회 / 서명을 한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GcsMetadataBenchmark {
+
+    @Param({"1000", "10000"})
+    public int count;
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private BenchmarkContext context;
+    private List<String> names;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("gcs.metadata-cache.enabled", String.valueOf(this.cache));
+        overrides.put("gcs.signed-url.cache.enabled", String.valueOf(this.cache));
+        this.context = BenchmarkContext.start(overrides);
+        this.names = this.context.seed(this.count, 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    // 같은 object 만 계속 보지 않도록 이름을 돌아가며 쓴다 (benchmark thread 는 하나)
+    private String nextName() {
+        String name = this.names.get(this.next);
+        this.next = (this.next + 1) % this.names.size();
+        return name;
+    }
+
+    @Benchmark
+    public BlobInfo getBlobInfo() throws IOException {
+        return this.context.gcsService.getBlobInfoFromGCS(this.nextName());
+    }
+
+    @Benchmark
+    public GcsSignedUrlDTO signedUrl() {
+        return this.context.gcsService.getSignedURL(this.nextName(), 300);
+    }
+}
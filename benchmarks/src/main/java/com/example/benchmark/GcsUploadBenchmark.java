@@ -0,0 +1,72 @@
+package com.example.benchmark;
+
+import com.example.GcsUploadResultDTO;
+import com.google.cloud.storage.BlobInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /upload (uploadFileToGCS) 와 /uploads (uploadMultiFileToGCS).
+ * 같은 이름으로 계속 덮어쓰므로 메모리 Storage 는 files 개 object 만큼만 커진다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GcsUploadBenchmark {
+
+    @Param({"1024", "1048576", "16777216"})
+    public int size;
+
+    @Param({"8"})
+    public int files;
+
+    private BenchmarkContext context;
+    private List<MultipartFile> multipartFiles;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start(Collections.emptyMap());
+        byte[] content = BenchmarkContext.randomBytes(this.size);
+        this.multipartFiles = new ArrayList<>(this.files);
+        for (int i = 0; i < this.files; i++) {
+            this.multipartFiles.add(new BytesMultipartFile(
+                    String.format("%supload/file-%02d.bin", BenchmarkContext.PREFIX, i), "application/octet-stream", content));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public BlobInfo singleUpload() throws IOException {
+        return this.context.gcsService.uploadFileToGCS(this.multipartFiles.get(0));
+    }
+
+    @Benchmark
+    public List<GcsUploadResultDTO> multiUpload() {
+        return this.context.gcsService.uploadMultiFileToGCS(this.multipartFiles);
+    }
+}
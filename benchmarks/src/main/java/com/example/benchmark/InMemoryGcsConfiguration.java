@@ -0,0 +1,66 @@
+package com.example.benchmark;
+
+import com.example.GcsApplication;
+import com.example.GcsController;
+import com.example.GcsExceptionHandler;
+import com.example.GcsService;
+import com.example.GcsVirtualThreadConfiguration;
+import com.example.GcsWebMvcConfiguration;
+import com.google.auth.oauth2.ServiceAccountCredentials;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.contrib.nio.testing.LocalStorageHelper;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * GcsService 와 그 component 들을 GCS 대신 메모리 안의 Storage (LocalStorageHelper) 에 연결한다.
+ * web 계층 (controller, MVC 설정, Tomcat) 과 Spring Boot auto-configuration 은 올리지 않는다.
+ * 설정은 application.properties 위에 benchmark.properties 를 덮어쓴다.
+ */
+@Configuration
+@EnableConfigurationProperties
+@PropertySource("classpath:application.properties")
+@PropertySource("classpath:benchmark.properties")
+@ComponentScan(
+        basePackageClasses = GcsService.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {
+                GcsApplication.class,
+                GcsController.class,
+                GcsExceptionHandler.class,
+                GcsWebMvcConfiguration.class,
+                GcsVirtualThreadConfiguration.class
+        }))
+public class InMemoryGcsConfiguration {
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+        return new PropertySourcesPlaceholderConfigurer();
+    }
+
+    /**
+     * signed URL 을 로컬에서 서명할 수 있도록 매번 새로 만든 RSA key 의 service account credential 을 붙인다.
+     */
+    @Bean
+    public Storage storage() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        ServiceAccountCredentials credentials = ServiceAccountCredentials.newBuilder()
+                .setClientEmail("benchmark@fake-project-for-testing.iam.gserviceaccount.com")
+                .setPrivateKey(generator.generateKeyPair().getPrivate())
+                .setPrivateKeyId("benchmark")
+                .build();
+        return LocalStorageHelper.getOptions()
+                .toBuilder()
+                .setCredentials(credentials)
+                .build()
+                .getService();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.benchmark;
+
+import com.example.GcsSignedUrlDTO;
+import com.example.GcsUploadResultDTO;
+import com.google.cloud.storage.BlobInfo;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * benchmark 를 JMH 없이 작은 @Param 으로 한 번씩 불러서 context 가 뜨고 측정하는 호출이 기대한 결과를 내는지 확인한다.
+ * 메모리 Storage 는 JVM 안에서 하나를 같이 쓰므로 다른 benchmark 가 만든 object 가 보일 수 있다.
+ */
+public class GcsBenchmarkSmokeTest {
+
+    @Test
+    void downloadServesTheWholeObjectAndTheRange() throws IOException {
+        GcsDownloadBenchmark benchmark = new GcsDownloadBenchmark();
+        benchmark.size = 1048576;
+        benchmark.count = 2;
+        benchmark.setUp();
+        try {
+            assertThat(benchmark.download()).isEqualTo(1048576);
+            assertThat(benchmark.rangedDownload()).isEqualTo(65536);
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    @Test
+    void listingReturnsPagesAndTheWholeList() throws IOException {
+        GcsListBenchmark benchmark = new GcsListBenchmark();
+        benchmark.count = 50;
+        benchmark.rowCount = 20;
+        benchmark.setUp();
+        try {
+            String paged = new String(benchmark.pagedList(), StandardCharsets.UTF_8);
+            assertThat((List<?>) JsonPath.read(paged, "$.blobList")).hasSize(20);
+
+            String columns = new String(benchmark.pagedColumns(), StandardCharsets.UTF_8);
+            assertThat((Integer) JsonPath.read(columns, "$.count")).isEqualTo(20);
+
+            assertThat((List<?>) JsonPath.read(new String(benchmark.fullList(), StandardCharsets.UTF_8), "$"))
+                    .hasSizeGreaterThanOrEqualTo(50);
+            assertThat((Integer) JsonPath.read(new String(benchmark.fullColumns(), StandardCharsets.UTF_8), "$.count"))
+                    .isGreaterThanOrEqualTo(50);
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    @Test
+    void uploadsCreateEveryFile() throws IOException {
+        GcsUploadBenchmark benchmark = new GcsUploadBenchmark();
+        benchmark.size = 1024;
+        benchmark.files = 3;
+        benchmark.setUp();
+        try {
+            BlobInfo blobInfo = benchmark.singleUpload();
+            assertThat(blobInfo.getName()).isEqualTo(BenchmarkContext.PREFIX + "upload/file-00.bin");
+
+            List<GcsUploadResultDTO> results = benchmark.multiUpload();
+            assertThat(results).hasSize(3);
+            assertThat(results).allSatisfy(result -> assertThat(result.getError()).isNull());
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    @Test
+    void metadataAndSignedUrlWithAndWithoutCache() throws IOException {
+        for (boolean cache : new boolean[]{true, false}) {
+            GcsMetadataBenchmark benchmark = new GcsMetadataBenchmark();
+            benchmark.count = 10;
+            benchmark.cache = cache;
+            benchmark.setUp();
+            try {
+                assertThat(benchmark.getBlobInfo().getName()).startsWith(BenchmarkContext.PREFIX);
+                GcsSignedUrlDTO signedUrl = benchmark.signedUrl();
+                assertThat(signedUrl.getUrl()).isNotNull();
+            } finally {
+                benchmark.tearDown();
+            }
+        }
+    }
+}
@@ -2,12 +2,12 @@ package com.example;
 
 import com.google.cloud.storage.BlobInfo;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 public class GCSPagedFileListDTO {
 
-    List<BlobInfo> blobList = new LinkedList<>();
+    List<BlobInfo> blobList = new ArrayList<>();
     String pageToken = null;
 
     public List<BlobInfo> getBlobList() {
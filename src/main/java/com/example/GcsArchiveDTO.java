@@ -0,0 +1,35 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class GcsArchiveDTO {
+
+    List<String> fileNames = new ArrayList<>();
+    String prefix = null;
+    String archiveName = null;
+
+    public List<String> getFileNames() {
+        return fileNames;
+    }
+
+    public void setFileNames(List<String> fileNames) {
+        this.fileNames = fileNames;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public String getArchiveName() {
+        return archiveName;
+    }
+
+    public void setArchiveName(String archiveName) {
+        this.archiveName = archiveName;
+    }
+}
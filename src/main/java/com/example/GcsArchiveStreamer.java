@@ -0,0 +1,350 @@
+package com.example;
+
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.common.io.ByteStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 여러 object 를 하나의 ZIP 으로 묶어 만들면서 바로 내보낸다 (임시 파일이나 전체 buffering 없음).
+ * 4GiB 를 넘는 entry 나 65535 개를 넘는 entry 는 ZipOutputStream 이 ZIP64 로 기록한다.
+ * 지금 entry 를 쓰는 동안 다음 prefetch-entries 개 entry 의 앞부분 (prefetch-bytes) 을 미리 받아두므로
+ * 작은 파일이 많아도 파일마다 첫 byte 를 기다리느라 멈추지 않는다. 남은 부분은 순서가 되었을 때 이어서 받는다.
+ * level 0 이면 앞부분만으로 내용 전체를 가진 entry 는 STORED 로 쓴다 (crc 를 미리 계산할 수 있으므로).
+ * 나머지 entry 는 CRC-32 를 미리 알 수 없으므로 (GCS 는 crc32c 와 md5 만 준다) DEFLATED level 0 으로 쓴다.
+ */
+@Component
+public class GcsArchiveStreamer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GcsArchiveStreamer.class);
+
+    @Autowired
+    private Storage storage;
+
+    @Autowired
+    private GcsSlicedDownloader slicedDownloader;
+
+    // prefetch 는 다른 작업을 기다리지 않는 ranged read 하나라서 slice executor 를 같이 쓴다
+    @Autowired
+    @Qualifier("gcsSliceExecutor")
+    private Executor prefetchExecutor;
+
+    @Value("${gcs.archive.prefetch-entries:4}")
+    private int prefetchEntries;
+
+    @Value("${gcs.archive.prefetch-bytes:4194304}")
+    private int prefetchBytes;
+
+    // 0 (저장만) ~ 9, 대부분 이미 압축된 분석 파일이라 기본값은 압축하지 않는다
+    @Value("${gcs.archive.level:0}")
+    private int level;
+
+    @Value("${gcs.archive.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${gcs.download.chunk-size:2097152}")
+    private int downloadChunkSize;
+
+    @Value("${gcs.download.buffer-size:65536}")
+    private int downloadBufferSize;
+
+    // 모든 archive 응답이 함께 쓰는 prefetch buffer 개수 제한 (메모리 사용량 = max-prefetched-entries * prefetch-bytes)
+    private final Semaphore prefetchedEntries;
+
+    public GcsArchiveStreamer(@Value("${gcs.archive.max-prefetched-entries:32}") int maxPrefetchedEntries) {
+        this.prefetchedEntries = new Semaphore(maxPrefetchedEntries);
+    }
+
+    public int getMaxEntries() {
+        return this.maxEntries;
+    }
+
+    /**
+     * blobs 를 순서대로 ZIP entry 로 써서 outputStream 에 내보낸다. outputStream 은 닫지 않는다.
+     *
+     * @return 쓴 entry 개수
+     */
+    public int streamTo(List<Blob> blobs, OutputStream outputStream) throws IOException {
+        long started = System.nanoTime();
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        zip.setLevel(this.level);
+
+        Deque<Prefetch> window = new ArrayDeque<>();
+        Set<String> names = new HashSet<>();
+        int next = 0;
+        int written = 0;
+        try {
+            while (next < blobs.size() || !window.isEmpty()) {
+                // 지금 entry 와 다음 prefetch-entries 개를 window 에 올린다. buffer 가 없으면 prefetch 없이 순서만 잡아둔다
+                while (next < blobs.size() && window.size() <= this.prefetchEntries) {
+                    window.add(this.prefetch(blobs.get(next++)));
+                }
+
+                Prefetch head = window.poll();
+                byte[] data;
+                try {
+                    data = head.future != null ? join(head.future) : new byte[0];
+                } finally {
+                    head.release();
+                }
+                if (this.writeEntry(zip, head.blob, data, names)) {
+                    written++;
+                }
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            // 중간에 실패하거나 client 가 끊은 경우 남은 prefetch 를 기다렸다가 buffer 를 돌려준다
+            for (Prefetch prefetch : window) {
+                if (prefetch.future != null) {
+                    prefetch.future.handle((data, e) -> null).join();
+                }
+                prefetch.release();
+            }
+        }
+        LOG.info("{}", String.format("%d entries are archived in %d ms.",
+                written, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
+        return written;
+    }
+
+    private Prefetch prefetch(Blob blob) {
+        if (blob.getSize() == null || blob.getSize() == 0 || !this.prefetchedEntries.tryAcquire()) {
+            return new Prefetch(blob, null);
+        }
+        int length = (int) Math.min(this.prefetchBytes, blob.getSize());
+        try {
+            return new Prefetch(blob, CompletableFuture.supplyAsync(() -> this.readHead(blob, length), this.prefetchExecutor));
+        } catch (RejectedExecutionException e) {
+            // executor 가 바쁘면 prefetch 하지 않고 순서가 되었을 때 받는다
+            this.prefetchedEntries.release();
+            return new Prefetch(blob, null);
+        }
+    }
+
+    /**
+     * blob 하나를 entry 로 쓴다. head 는 미리 받아둔 앞부분이고 나머지는 여기서 이어서 받는다.
+     * gzip 으로 저장된 object 는 압축을 풀어서 넣는다.
+     * 정리한 이름이 앞 entry 와 같으면 파일은 이름 뒤에 " (n)" 을 붙이고, 디렉토리는 건너뛴다.
+     *
+     * @return entry 를 썼으면 true, 이름이 안전하지 않거나 같은 디렉토리가 있어 건너뛰었으면 false
+     */
+    private boolean writeEntry(ZipOutputStream zip, Blob blob, byte[] head, Set<String> names) throws IOException {
+        String name = entryName(blob.getName());
+        if (name == null) {
+            LOG.warn("{} is skipped in archive (unsafe entry name).", blob.getName());
+            return false;
+        }
+        name = uniqueName(name, names);
+        if (name == null) {
+            return false;
+        }
+
+        boolean gzip = GcsCompressionPolicy.isGzip(blob);
+        ZipEntry entry = new ZipEntry(name);
+        if (blob.getUpdateTime() != null) {
+            entry.setTime(blob.getUpdateTime());
+        }
+
+        byte[] content = this.level == 0 ? this.wholeContent(blob, head, gzip) : null;
+        if (content != null) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCompressedSize(content.length);
+            entry.setCrc(crc.getValue());
+            zip.putNextEntry(entry);
+            zip.write(content);
+            zip.closeEntry();
+            return true;
+        }
+
+        Long size = gzip ? GcsCompressionPolicy.originalSize(blob) : blob.getSize();
+        if (size != null) {
+            entry.setSize(size);
+        }
+        zip.putNextEntry(entry);
+
+        long total = blob.getSize() == null ? 0 : blob.getSize();
+        if (gzip) {
+            InputStream raw = new SequenceInputStream(new ByteArrayInputStream(head),
+                    Channels.newInputStream(this.openFrom(blob, head.length)));
+            try (InputStream inputStream = new GZIPInputStream(raw, this.downloadBufferSize)) {
+                ByteStreams.copy(inputStream, zip);
+            }
+        } else {
+            zip.write(head);
+            long rest = total - head.length;
+            if (rest > 0 && this.slicedDownloader.accepts(rest)) {
+                this.slicedDownloader.streamTo(blob, head.length, rest, zip);
+            } else if (rest > 0) {
+                try (ReadChannel reader = this.openFrom(blob, head.length)) {
+                    ByteStreams.copy(Channels.newInputStream(reader), zip);
+                }
+            }
+        }
+        zip.closeEntry();
+        return true;
+    }
+
+    /**
+     * 미리 받은 앞부분이 object 전체이면 entry 에 들어갈 내용 (gzip 이면 푼 내용) 을 돌려준다.
+     * 풀었을 때 prefetch-bytes 보다 클 수 있는 gzip object 나 앞부분만 받은 object 는 null.
+     */
+    private byte[] wholeContent(Blob blob, byte[] head, boolean gzip) throws IOException {
+        long total = blob.getSize() == null ? 0 : blob.getSize();
+        if (head.length != total) {
+            return null;
+        }
+        if (!gzip) {
+            return head;
+        }
+        Long originalSize = GcsCompressionPolicy.originalSize(blob);
+        if (originalSize == null || originalSize > this.prefetchBytes || total == 0) {
+            return null;
+        }
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(head), this.downloadBufferSize)) {
+            return ByteStreams.toByteArray(inputStream);
+        }
+    }
+
+    private byte[] readHead(Blob blob, int length) {
+        byte[] data = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try (ReadChannel reader = this.storage.reader(pinned(blob))) {
+            // buffer 가 length 만큼이라 그 이상은 읽지 않고, chunk 도 그만큼만 받는다
+            reader.setChunkSize(length);
+            while (buffer.hasRemaining() && reader.read(buffer) >= 0) {
+                // 앞부분을 끝까지 채운다
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (buffer.hasRemaining()) {
+            throw new UncheckedIOException(new IOException(String.format(
+                    "%s is truncated while prefetching (%d of %d bytes).", blob.getName(), buffer.position(), length)));
+        }
+        return data;
+    }
+
+    private ReadChannel openFrom(Blob blob, long offset) throws IOException {
+        ReadChannel reader = this.storage.reader(pinned(blob));
+        reader.setChunkSize(this.downloadChunkSize);
+        reader.seek(offset);
+        return reader;
+    }
+
+    // 여러 요청으로 나눠 받는 동안 object 가 교체되어도 섞이지 않도록 generation 에 고정한다
+    private static BlobId pinned(Blob blob) {
+        return BlobId.of(blob.getBucket(), blob.getName(), blob.getGeneration());
+    }
+
+    /**
+     * object 이름을 entry 이름으로 정리한다. 앞의 / 와 빈 segment, . segment 는 없애고 디렉토리 (/ 로 끝나는 이름) 는 그대로 둔다.
+     * 압축을 푸는 쪽에서 archive 밖으로 나가지 않도록 (zip slip) .. 가 들어간 이름과 정리하고 남는 것이 없는 이름은 거른다.
+     */
+    static String entryName(String objectName) {
+        String normalized = objectName.replace('\\', '/');
+        StringBuilder name = new StringBuilder();
+        for (String segment : normalized.split("/")) {
+            if (segment.equals("..")) {
+                return null;
+            }
+            if (segment.isEmpty() || segment.equals(".")) {
+                continue;
+            }
+            if (name.length() > 0) {
+                name.append('/');
+            }
+            name.append(segment);
+        }
+        if (name.length() == 0) {
+            return null;
+        }
+        if (normalized.endsWith("/")) {
+            name.append('/');
+        }
+        return name.toString();
+    }
+
+    /**
+     * 이미 쓴 이름이면 확장자 앞에 " (n)" 을 붙여 처음 비는 이름을 돌려준다. 디렉토리는 두 번 쓰지 않고 null.
+     */
+    static String uniqueName(String name, Set<String> names) {
+        if (names.add(name)) {
+            return name;
+        }
+        if (name.endsWith("/")) {
+            return null;
+        }
+        int slash = name.lastIndexOf('/');
+        int dot = name.lastIndexOf('.');
+        int split = dot > slash + 1 ? dot : name.length();
+        for (int n = 1; ; n++) {
+            String candidate = name.substring(0, split) + " (" + n + ")" + name.substring(split);
+            if (names.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    private final class Prefetch {
+        final Blob blob;
+        final CompletableFuture<byte[]> future;
+        boolean released = false;
+
+        Prefetch(Blob blob, CompletableFuture<byte[]> future) {
+            this.blob = blob;
+            this.future = future;
+        }
+
+        void release() {
+            if (this.future != null && !this.released) {
+                this.released = true;
+                prefetchedEntries.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class GcsBulkDeleteDTO {
+
+    List<String> fileNames = new ArrayList<>();
+    String prefix = null;
+
+    public List<String> getFileNames() {
+        return fileNames;
+    }
+
+    public void setFileNames(List<String> fileNames) {
+        this.fileNames = fileNames;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example;
+
+import java.util.List;
+
+public class GcsBulkDeleteSummaryDTO {
+
+    long requested = 0;
+    long deleted = 0;
+    long failed = 0;
+    boolean done = false;
+
+    public GcsBulkDeleteSummaryDTO copy() {
+        GcsBulkDeleteSummaryDTO copy = new GcsBulkDeleteSummaryDTO();
+        copy.requested = this.requested;
+        copy.deleted = this.deleted;
+        copy.failed = this.failed;
+        copy.done = this.done;
+        return copy;
+    }
+
+    public void add(List<GcsDeleteResultDTO> results) {
+        for (GcsDeleteResultDTO result : results) {
+            this.requested++;
+            if (result.isDeleted()) {
+                this.deleted++;
+            } else {
+                this.failed++;
+            }
+        }
+    }
+
+    public long getRequested() {
+        return requested;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public void setDone(boolean done) {
+        this.done = done;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 종류가 같은 요청 (metadata / listing / upload / download) 끼리만 자원을 나눠 쓰도록 격리하는 bulkhead.
+ * 큰 upload / download 가 몰려도 metadata 조회나 signed URL 발급은 자기 몫의 thread 로 바로 처리된다.
+ * 자리가 없으면 기다리지 않고 RejectedExecutionException 을 던지며, GcsExceptionHandler 가 503 으로 응답한다.
+ */
+public class GcsBulkhead {
+
+    private final String name;
+    private final Executor executor;
+    private final Semaphore streams;
+
+    /**
+     * @param executor   submit 한 작업을 실행할 executor (queue 가 차면 거절하도록 AbortPolicy 로 설정한다)
+     * @param maxStreams 동시에 열 수 있는 StreamingResponseBody 응답 수
+     */
+    public GcsBulkhead(String name, Executor executor, int maxStreams) {
+        this.name = name;
+        this.executor = executor;
+        this.streams = new Semaphore(maxStreams);
+    }
+
+    /**
+     * task 를 이 bulkhead 의 executor 에서 실행한다. queue 가 가득 차 있으면 바로 RejectedExecutionException 을 던진다.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        this.executor.execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * body 를 쓰기 시작할 때 응답 stream 자리를 하나 잡고, 끝나면 돌려주도록 감싼다. 자리가 없으면 바로 RejectedExecutionException 을 던진다.
+     * body 자체는 Spring MVC 의 async executor (gcsStreamExecutor) 에서 실행된다.
+     * 자리는 writeTo 안에서만 잡으므로 timeout 이나 client 가 먼저 끊어서 body 가 실행되지 않아도 자리가 새지 않는다.
+     * 응답은 아직 commit 되기 전이라 GcsExceptionHandler 가 503 으로 바꿔서 보낸다.
+     */
+    public StreamingResponseBody stream(StreamingResponseBody body) {
+        return out -> {
+            if (!this.streams.tryAcquire()) {
+                throw new RejectedExecutionException(String.format("%s bulkhead has no free stream.", this.name));
+            }
+            try {
+                body.writeTo(out);
+            } finally {
+                this.streams.release();
+            }
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAvailableStreams() {
+        return this.streams.availablePermits();
+    }
+}
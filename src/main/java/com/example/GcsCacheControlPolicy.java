@@ -0,0 +1,72 @@
+package com.example;
+
+import com.google.cloud.storage.Blob;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * object 의 HTTP 캐시 헤더 (ETag / Last-Modified / Cache-Control) 를 정한다.
+ * ETag 는 generation (없으면 md5) 으로 만드는 strong ETag 라서 내용이 바뀌면 반드시 달라진다.
+ * Cache-Control 은 prefixes 중 가장 길게 일치하는 prefix 의 값을 쓰고, 없으면 default-value 를 쓴다.
+ *
+ * <pre>
+ * gcs.http.cache-control.default-value=no-cache
+ * gcs.http.cache-control.prefixes[static/]=public, max-age=86400
+ * </pre>
+ */
+@Component
+@ConfigurationProperties(prefix = "gcs.http.cache-control")
+public class GcsCacheControlPolicy {
+
+    private String defaultValue = "no-cache";
+
+    private Map<String, String> prefixes = new LinkedHashMap<>();
+
+    public String getDefaultValue() {
+        return defaultValue;
+    }
+
+    public void setDefaultValue(String defaultValue) {
+        this.defaultValue = defaultValue;
+    }
+
+    public Map<String, String> getPrefixes() {
+        return prefixes;
+    }
+
+    public void setPrefixes(Map<String, String> prefixes) {
+        this.prefixes = prefixes;
+    }
+
+    public String cacheControl(String fileName) {
+        String matched = null;
+        for (String prefix : this.prefixes.keySet()) {
+            if (fileName.startsWith(prefix) && (matched == null || prefix.length() > matched.length())) {
+                matched = prefix;
+            }
+        }
+        return matched != null ? this.prefixes.get(matched) : this.defaultValue;
+    }
+
+    public static String etag(Blob blob) {
+        return etag(blob, false);
+    }
+
+    /**
+     * @param gzip gzip 으로 저장된 byte 를 그대로 보내는 경우 (압축을 푼 응답과 다른 ETag 를 쓴다)
+     */
+    public static String etag(Blob blob, boolean gzip) {
+        String version = blob.getGeneration() != null ? String.valueOf(blob.getGeneration()) : blob.getMd5();
+        if (version == null) {
+            return null;
+        }
+        return '"' + version + (gzip ? "-gzip" : "") + '"';
+    }
+
+    public static long lastModified(Blob blob) {
+        return blob.getUpdateTime() != null ? blob.getUpdateTime() : -1;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example;
+
+public class GcsCacheStatsDTO {
+
+    long hits;
+    long negativeHits;
+    long misses;
+    long evictions;
+    long size;
+
+    public double getHitRate() {
+        long requests = hits + negativeHits + misses;
+        return requests == 0 ? 0.0 : (double) (hits + negativeHits) / requests;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getNegativeHits() {
+        return negativeHits;
+    }
+
+    public void setNegativeHits(long negativeHits) {
+        this.negativeHits = negativeHits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,239 @@
+package com.example;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.common.io.ByteStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 큰 파일을 part 로 나눠 임시 object 로 동시에 올린 다음 storage.compose 로 합치는 parallel composite upload.
+ * compose 한 번에 source 는 32 개까지라서 part 가 더 많으면 32 개씩 묶어 중간 object 를 만들고 다시 합친다.
+ * 임시 object 는 성공 / 실패와 상관없이 지우고, 프로세스가 죽어서 남은 것은 시작할 때 stale-after-hours 가 지난 것만 지운다.
+ */
+@Component
+public class GcsCompositeUploader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GcsCompositeUploader.class);
+
+    private static final int MAX_COMPOSE_SOURCES = 32;
+
+    @Autowired
+    private Storage storage;
+
+    @Autowired
+    @Qualifier("gcsCompositeUploadExecutor")
+    private Executor partExecutor;
+
+    @Value("${gcs-resource-test-bucket}")
+    private String bucketName;
+
+    @Value("${gcs.upload.composite.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gcs.upload.composite.threshold-bytes:134217728}")
+    private long thresholdBytes;
+
+    @Value("${gcs.upload.composite.part-size:33554432}")
+    private long partSize;
+
+    @Value("${gcs.upload.composite.max-concurrent-parts:8}")
+    private int maxConcurrentParts;
+
+    @Value("${gcs.upload.composite.temp-prefix:.composite-upload/}")
+    private String tempPrefix;
+
+    @Value("${gcs.upload.composite.stale-after-hours:24}")
+    private long staleAfterHours;
+
+    public boolean accepts(long size) {
+        return this.enabled && size >= this.thresholdBytes;
+    }
+
+    /**
+     * upload 도중에 있는 임시 part 인지. listing / index / prefix 삭제에서는 이 이름들을 보여주지 않는다.
+     */
+    public boolean isTemporary(String objectName) {
+        return objectName.startsWith(this.tempPrefix);
+    }
+
+    /**
+     * source 의 내용을 blobInfo 이름의 object 로 올린다.
+     * part 마다 source.getInputStream() 을 새로 열어서 자기 구간으로 건너뛰므로 source 는 여러 번 읽을 수 있어야 한다 (MultipartFile 등).
+     */
+    public Blob upload(BlobInfo blobInfo, InputStreamSource source, long size) throws IOException {
+        String uploadPrefix = this.tempPrefix + UUID.randomUUID() + "/";
+        List<String> tempNames = new ArrayList<>();
+        long started = System.nanoTime();
+        try {
+            List<String> sources = this.uploadParts(blobInfo.getBucket(), uploadPrefix, source, size, tempNames);
+
+            // 32 개가 넘으면 32 개씩 묶어서 합치는 것을 반복한다
+            int level = 0;
+            while (sources.size() > MAX_COMPOSE_SOURCES) {
+                List<String> composed = new ArrayList<>();
+                for (int from = 0; from < sources.size(); from += MAX_COMPOSE_SOURCES) {
+                    List<String> group = sources.subList(from, Math.min(from + MAX_COMPOSE_SOURCES, sources.size()));
+                    String name = String.format("%sL%d-%05d", uploadPrefix, level, composed.size());
+                    tempNames.add(name);
+                    this.compose(group, BlobInfo.newBuilder(BlobId.of(blobInfo.getBucket(), name)).build());
+                    composed.add(name);
+                }
+                sources = composed;
+                level++;
+            }
+
+            // 마지막 compose 에서 최종 object 의 metadata (contentType 등) 를 정한다
+            Blob blob = this.compose(sources, blobInfo);
+            LOG.info("{}", String.format("%s (%d bytes, %d parts) is uploaded by composite upload in %d ms.",
+                    blobInfo.getName(), size, this.partCount(size), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
+            return blob;
+        } finally {
+            this.deleteQuietly(blobInfo.getBucket(), tempNames);
+        }
+    }
+
+    private List<String> uploadParts(String bucket, String uploadPrefix, InputStreamSource source, long size, List<String> tempNames) throws IOException {
+        int partCount = this.partCount(size);
+        Semaphore permits = new Semaphore(this.maxConcurrentParts);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(partCount);
+        List<String> names = new ArrayList<>(partCount);
+
+        try {
+            for (int i = 0; i < partCount; i++) {
+                String name = String.format("%sP%05d", uploadPrefix, i);
+                long offset = i * this.partSize;
+                long length = Math.min(this.partSize, size - offset);
+                names.add(name);
+                tempNames.add(name);
+
+                permits.acquire();
+                CompletableFuture<Void> future;
+                try {
+                    future = CompletableFuture.runAsync(() -> this.uploadPart(bucket, name, source, offset, length), this.partExecutor);
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    throw e;
+                }
+                future.whenComplete((result, e) -> permits.release());
+                futures.add(future);
+
+                // 앞 part 가 실패했으면 나머지는 올리지 않는다
+                if (futures.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("composite upload is interrupted.", e);
+        } finally {
+            // 실패해도 이미 시작한 part 가 끝난 다음에 지워야 하므로 모두 기다린다
+            for (CompletableFuture<Void> future : futures) {
+                try {
+                    future.join();
+                } catch (CompletionException ignored) {
+                    // 아래에서 첫 번째 오류를 던진다
+                }
+            }
+        }
+
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw e;
+            }
+        }
+        return names;
+    }
+
+    private void uploadPart(String bucket, String name, InputStreamSource source, long offset, long length) {
+        BlobInfo partInfo = BlobInfo.newBuilder(BlobId.of(bucket, name)).build();
+        try (InputStream inputStream = source.getInputStream()) {
+            ByteStreams.skipFully(inputStream, offset);
+            this.storage.createFrom(partInfo, ByteStreams.limit(inputStream, length));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Blob compose(List<String> sources, BlobInfo target) {
+        return this.storage.compose(Storage.ComposeRequest.newBuilder()
+                .addSource(sources)
+                .setTarget(target)
+                .build());
+    }
+
+    private int partCount(long size) {
+        return (int) Math.max(1, (size + this.partSize - 1) / this.partSize);
+    }
+
+    private void deleteQuietly(String bucket, List<String> names) {
+        if (names.isEmpty()) {
+            return;
+        }
+        List<BlobId> blobIds = new ArrayList<>(names.size());
+        for (String name : names) {
+            blobIds.add(BlobId.of(bucket, name));
+        }
+        try {
+            // 실패해서 만들어지지 않은 part 는 false 로 돌아오므로 따로 확인하지 않는다
+            this.storage.delete(blobIds);
+        } catch (RuntimeException e) {
+            LOG.warn("{} temporary parts under {} could not be deleted.", names.size(), this.tempPrefix, e);
+        }
+    }
+
+    /**
+     * 이전 프로세스가 지우지 못하고 남긴 임시 object 를 정리한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void deleteStaleParts() {
+        if (!this.enabled) {
+            return;
+        }
+        long staleBefore = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(this.staleAfterHours);
+        List<String> stale = new ArrayList<>();
+        try {
+            for (Blob blob : this.storage.list(this.bucketName,
+                    Storage.BlobListOption.prefix(this.tempPrefix),
+                    Storage.BlobListOption.fields(Storage.BlobField.NAME, Storage.BlobField.TIME_CREATED)).iterateAll()) {
+                if (blob.getCreateTime() != null && blob.getCreateTime() < staleBefore) {
+                    stale.add(blob.getName());
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("stale composite upload parts could not be listed.", e);
+            return;
+        }
+        if (!stale.isEmpty()) {
+            LOG.info("{} stale composite upload parts are deleted.", stale.size());
+            this.deleteQuietly(this.bucketName, stale);
+        }
+    }
+}
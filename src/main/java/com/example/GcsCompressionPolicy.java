@@ -0,0 +1,159 @@
+package com.example;
+
+import com.google.cloud.storage.BlobInfo;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 업로드할 때 gzip 으로 압축해서 저장할지 정한다.
+ * prefixes 중 가장 길게 일치하는 prefix 의 값 (true / false) 이 우선이고, 없으면 content-types 중 하나와 맞으면 압축한다.
+ * 압축한 object 는 Content-Encoding: gzip 과 원래 크기 (metadata original-size) 를 가진다.
+ *
+ * <pre>
+ * gcs.compression.enabled=true
+ * gcs.compression.content-types=text/*,application/json
+ * gcs.compression.prefixes[ANALYSIS_FILES/bam/]=false
+ * </pre>
+ */
+@Component
+@ConfigurationProperties(prefix = "gcs.compression")
+public class GcsCompressionPolicy {
+
+    public static final String GZIP = "gzip";
+    public static final String ORIGINAL_SIZE_METADATA = "original-size";
+
+    private boolean enabled = false;
+
+    private List<MediaType> contentTypes = new ArrayList<>();
+
+    private Map<String, Boolean> prefixes = new LinkedHashMap<>();
+
+    private long minSize = 1024;
+
+    private int level = 6;
+
+    private int bufferSize = 65536;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<MediaType> getContentTypes() {
+        return contentTypes;
+    }
+
+    public void setContentTypes(List<MediaType> contentTypes) {
+        this.contentTypes = contentTypes;
+    }
+
+    public Map<String, Boolean> getPrefixes() {
+        return prefixes;
+    }
+
+    public void setPrefixes(Map<String, Boolean> prefixes) {
+        this.prefixes = prefixes;
+    }
+
+    public long getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(long minSize) {
+        this.minSize = minSize;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @param size 업로드할 크기 (모르면 -1, 이 경우 min-size 는 보지 않는다)
+     */
+    public boolean shouldCompress(String fileName, String contentType, long size) {
+        if (!this.enabled || (size >= 0 && size < this.minSize)) {
+            return false;
+        }
+
+        String matched = null;
+        for (String prefix : this.prefixes.keySet()) {
+            if (fileName.startsWith(prefix) && (matched == null || prefix.length() > matched.length())) {
+                matched = prefix;
+            }
+        }
+        if (matched != null) {
+            return this.prefixes.get(matched);
+        }
+
+        if (contentType == null || contentType.isEmpty()) {
+            return false;
+        }
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        for (MediaType compressible : this.contentTypes) {
+            if (compressible.includes(mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 설정한 압축 level 로 out 에 쓰는 GZIPOutputStream. close 하면 out 도 닫힌다.
+     */
+    public OutputStream gzip(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, this.bufferSize) {
+            {
+                this.def.setLevel(level);
+            }
+        };
+    }
+
+    public static boolean isGzip(BlobInfo blobInfo) {
+        return GZIP.equalsIgnoreCase(blobInfo.getContentEncoding());
+    }
+
+    /**
+     * @return 업로드할 때 기록한 원래 크기, 없으면 null
+     */
+    public static Long originalSize(BlobInfo blobInfo) {
+        Map<String, String> metadata = blobInfo.getMetadata();
+        String value = metadata == null ? null : metadata.get(ORIGINAL_SIZE_METADATA);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
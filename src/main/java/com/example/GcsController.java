@@ -1,22 +1,38 @@
 package com.example;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobInfo;
-import com.google.common.io.Files;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.MultipartStream;
+import org.apache.commons.fileupload.servlet.ServletFileUpload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
+import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
-import java.net.URISyntaxException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 public class GcsController {
@@ -26,6 +42,34 @@ public class GcsController {
     @Autowired
     private GcsService gcsService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private GcsCacheControlPolicy cacheControlPolicy;
+
+    @Autowired
+    private GcsUploadSessionManager uploadSessionManager;
+
+    @Autowired
+    @Qualifier("gcsMetadataBulkhead")
+    private GcsBulkhead metadataBulkhead;
+
+    @Autowired
+    @Qualifier("gcsListBulkhead")
+    private GcsBulkhead listBulkhead;
+
+    @Autowired
+    @Qualifier("gcsUploadBulkhead")
+    private GcsBulkhead uploadBulkhead;
+
+    @Autowired
+    @Qualifier("gcsDownloadBulkhead")
+    private GcsBulkhead downloadBulkhead;
+
+    @Value("${gcs.signed-url.max-expiry-seconds:604800}")
+    private long maxSignedUrlExpirySeconds;
+
     /**
      * Single File Upload
      *
@@ -37,14 +81,62 @@ public class GcsController {
      * @throws Exception 현재 발생 가능한 Exception 은 IOException
      */
     @PostMapping("/upload")
-    public ResponseEntity<?> uploadSingleFileToGCS(@RequestParam("files") MultipartFile file) throws Exception {
+    public CompletableFuture<ResponseEntity<?>> uploadSingleFileToGCS(@RequestParam("files") MultipartFile file) {
+        return uploadBulkhead.submit(() -> {
+            BlobInfo blobInfo = gcsService.uploadFileToGCS(file);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("blobInfo : {}", blobInfo);
+            }
 
-        BlobInfo blobInfo = gcsService.uploadFileToGCS(file);
-        LOG.info("blobInfo : " + blobInfo);
+            return ResponseEntity
+                    .status(HttpStatus.OK)
+                    .body(blobInfo);
+        });
+    }
 
-        return ResponseEntity
-                .status(HttpStatus.OK)
-                .body(blobInfo);
+    /**
+     * Streaming File Upload (multipart 를 spool 하지 않고 part 단위로 GCS 에 바로 전송)
+     *
+     * @apiNote curl --location --request POST 'http://localhost:8080/upload/stream' \
+     * --form 'files=@"/C:/Users/In Hwan Chun/Pictures/clipboardImage_21_0702_113845_579.jpeg"'
+     *
+     * @param request multipart/form-data 요청 (body 를 직접 읽는다)
+     * @return file 생성 과정에서 만든 blobInfo 정보 목록
+     * @throws Exception 현재 발생 가능한 Exception 은 IOException, FileUploadException
+     */
+    @PostMapping("/upload/stream")
+    public CompletableFuture<ResponseEntity<?>> uploadStreamingFileToGCS(HttpServletRequest request) {
+        return uploadBulkhead.submit(() -> {
+            if (!ServletFileUpload.isMultipartContent(request)) {
+                return ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body("multipart/form-data request is required.");
+            }
+
+            List<BlobInfo> blobInfoList = new ArrayList<>();
+            try {
+                FileItemIterator it = new ServletFileUpload().getItemIterator(request);
+                while (it.hasNext()) {
+                    FileItemStream item = it.next();
+                    if (item.isFormField()) {
+                        continue;
+                    }
+                    try (InputStream inputStream = item.openStream()) {
+                        blobInfoList.add(gcsService.uploadStreamToGCS(item.getName(), item.getContentType(), inputStream));
+                    }
+                }
+            } catch (MultipartStream.MalformedStreamException e) {
+                // body 가 part 중간에 끝난 경우. 그 part 는 올리지 않았고, 앞에서 끝난 part 들만 남는다
+                return ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(String.format("multipart body is incomplete (%s), %d files are uploaded before it.",
+                                e.getMessage(), blobInfoList.size()));
+            }
+
+            return ResponseEntity
+                    .status(HttpStatus.OK)
+                    .body(blobInfoList);
+        });
     }
 
     /**
@@ -55,18 +147,156 @@ public class GcsController {
      * --form 'files=@"/C:/Users/In Hwan Chun/Pictures/clipboardImage_21_0702_114103_467.jpeg"'
      *
      * @param files 업로드 하려는 파일 (복수)
-     * @return file 생성 과정에서 만든 blobInfo 정보 목록
+     * @return 입력 순서대로 파일별 업로드 결과 (하나라도 실패하면 207 Multi-Status)
      * @throws Exception 현재 발생 가능한 Exception 은 IOException
      */
     @PostMapping("/uploads")
-    public ResponseEntity<?> uploadMultiFileToGCS(@RequestParam("files") List<MultipartFile> files) throws Exception {
+    public CompletableFuture<ResponseEntity<?>> uploadMultiFileToGCS(@RequestParam("files") List<MultipartFile> files) {
+        return uploadBulkhead.submit(() -> {
+            List<GcsUploadResultDTO> results = gcsService.uploadMultiFileToGCS(files);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("{}", results);
+            }
 
-        List<BlobInfo> blobInfoList = gcsService.uploadMultiFileToGCS(files);
-        LOG.info("{}", blobInfoList);
+            boolean allUploaded = results.stream().allMatch(GcsUploadResultDTO::isUploaded);
 
+            return ResponseEntity
+                    .status(allUploaded ? HttpStatus.OK : HttpStatus.MULTI_STATUS)
+                    .body(results);
+        });
+    }
+
+    /**
+     * Chunked Upload Session 생성 (큰 파일을 chunk 로 나눠 올리고, 끊기면 빠진 chunk 만 다시 보낸다)
+     *
+     * @apiNote curl --location --request POST 'http://localhost:8080/upload/sessions' \
+     * --header 'Content-Type: application/json' \
+     * --data-raw '{
+     *     "fileName": "ANALYSIS_FILES/sample.bam",
+     *     "contentType": "application/octet-stream",
+     *     "size": 1073741824,
+     *     "chunkSize": 8388608
+     * }'
+     *
+     * @param request fileName, contentType, size (전체 byte 수), chunkSize (256KiB 의 배수)
+     * @return sessionId 와 chunkCount 를 담은 session 상태 (201)
+     */
+    @PostMapping("/upload/sessions")
+    public CompletableFuture<ResponseEntity<?>> createUploadSession(@RequestBody GcsUploadSessionDTO request) {
+        return uploadBulkhead.submit(() -> {
+            try {
+                GcsUploadSessionDTO session = uploadSessionManager.create(
+                        request.getFileName(), request.getContentType(), request.getSize(), request.getChunkSize());
+                return ResponseEntity
+                        .status(HttpStatus.CREATED)
+                        .body(session);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Chunk Upload (순서와 상관없이 보내도 되고, 같은 chunk 를 다시 보내도 된다)
+     *
+     * @apiNote curl --location --request PUT 'http://localhost:8080/upload/sessions/{sessionId}/chunks/0' \
+     * --header 'Content-Type: application/octet-stream' \
+     * --data-binary '@chunk-0000'
+     *
+     * @param sessionId session 생성 때 받은 id
+     * @param index 0 부터 시작하는 chunk 번호 (마지막 chunk 외에는 정확히 chunkSize byte)
+     * @param request chunk 내용을 body 로 가진 요청
+     * @return session 상태 (409 면 앞 chunk 를 먼저 보내고 다시 시도)
+     */
+    @PutMapping("/upload/sessions/{sessionId}/chunks/{index}")
+    public CompletableFuture<ResponseEntity<?>> uploadChunk(@PathVariable String sessionId,
+                                                            @PathVariable int index,
+                                                            HttpServletRequest request) {
+        return uploadBulkhead.submit(() -> {
+            try (InputStream inputStream = request.getInputStream()) {
+                GcsUploadSessionDTO session = uploadSessionManager.putChunk(sessionId, index, inputStream);
+                if (session == null) {
+                    return uploadSessionNotFound(sessionId);
+                }
+                return ResponseEntity
+                        .status(HttpStatus.OK)
+                        .body(session);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(e.getMessage());
+            } catch (IllegalStateException e) {
+                return ResponseEntity
+                        .status(HttpStatus.CONFLICT)
+                        .body(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Upload Session 상태 조회 (다시 보내야 하는 chunk 확인용)
+     *
+     * @apiNote curl --location --request GET 'http://localhost:8080/upload/sessions/{sessionId}'
+     *
+     * @param sessionId session id
+     * @return nextChunk, receivedBytes, bufferedChunks
+     */
+    @GetMapping("/upload/sessions/{sessionId}")
+    public ResponseEntity<?> getUploadSession(@PathVariable String sessionId) {
+        GcsUploadSessionDTO session = uploadSessionManager.getStatus(sessionId);
+        if (session == null) {
+            return uploadSessionNotFound(sessionId);
+        }
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(session);
+    }
+
+    /**
+     * Upload Session 완료 (모든 chunk 가 반영된 뒤에만 가능)
+     *
+     * @apiNote curl --location --request POST 'http://localhost:8080/upload/sessions/{sessionId}/complete'
+     *
+     * @param sessionId session id
+     * @return 만들어진 파일의 blobInfo (409 면 아직 빠진 chunk 가 있다)
+     */
+    @PostMapping("/upload/sessions/{sessionId}/complete")
+    public CompletableFuture<ResponseEntity<?>> completeUploadSession(@PathVariable String sessionId) {
+        return uploadBulkhead.submit(() -> {
+            try {
+                Blob blob = uploadSessionManager.complete(sessionId);
+                if (blob == null) {
+                    return uploadSessionNotFound(sessionId);
+                }
+                return ResponseEntity
+                        .status(HttpStatus.OK)
+                        .body(gcsService.getBlobInfoFromGCS(blob));
+            } catch (IllegalStateException e) {
+                return ResponseEntity
+                        .status(HttpStatus.CONFLICT)
+                        .body(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Upload Session 취소
+     *
+     * @apiNote curl --location --request DELETE 'http://localhost:8080/upload/sessions/{sessionId}'
+     *
+     * @param sessionId session id
+     * @return 취소 완료 메시지
+     */
+    @DeleteMapping("/upload/sessions/{sessionId}")
+    public ResponseEntity<?> abortUploadSession(@PathVariable String sessionId) {
+        if (!uploadSessionManager.abort(sessionId)) {
+            return uploadSessionNotFound(sessionId);
+        }
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(blobInfoList);
+                .body(String.format("upload session %s is aborted.", sessionId));
     }
 
     /**
@@ -79,20 +309,20 @@ public class GcsController {
      * @throws Exception
      */
     @DeleteMapping("/{fileName}")
-    public ResponseEntity<?> deleteFileFromGCS0(@PathVariable String fileName) throws Exception {
-
-        boolean isDeleted = gcsService.deleteFileFromGCS(fileName);
-
-        if (isDeleted) {
-            return ResponseEntity
-                    .status(HttpStatus.OK)
-                    .body(String.format("%s is deleted successfully.", fileName));
-        } else {
-            return ResponseEntity
-                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(String.format("%s is deleted in GCS.", fileName));
-        }
+    public CompletableFuture<ResponseEntity<?>> deleteFileFromGCS0(@PathVariable String fileName) {
+        return metadataBulkhead.submit(() -> {
+            boolean isDeleted = gcsService.deleteFileFromGCS(fileName);
 
+            if (isDeleted) {
+                return ResponseEntity
+                        .status(HttpStatus.OK)
+                        .body(String.format("%s is deleted successfully.", fileName));
+            } else {
+                return ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(String.format("%s is deleted in GCS.", fileName));
+            }
+        });
     }
 
     /**
@@ -105,20 +335,20 @@ public class GcsController {
      * @throws Exception
      */
     @DeleteMapping("/delete")
-    public ResponseEntity<?> deleteFileFromGCS1(@RequestParam String fileName) throws Exception {
-
-        boolean isDeleted = gcsService.deleteFileFromGCS(fileName);
-
-        if (isDeleted) {
-            return ResponseEntity
-                    .status(HttpStatus.OK)
-                    .body(String.format("%s is deleted successfully.", fileName));
-        } else {
-            return ResponseEntity
-                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(String.format("%s is deleted in GCS.", fileName));
-        }
+    public CompletableFuture<ResponseEntity<?>> deleteFileFromGCS1(@RequestParam String fileName) {
+        return metadataBulkhead.submit(() -> {
+            boolean isDeleted = gcsService.deleteFileFromGCS(fileName);
 
+            if (isDeleted) {
+                return ResponseEntity
+                        .status(HttpStatus.OK)
+                        .body(String.format("%s is deleted successfully.", fileName));
+            } else {
+                return ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(String.format("%s is deleted in GCS.", fileName));
+            }
+        });
     }
 
     /**
@@ -135,20 +365,20 @@ public class GcsController {
      * @throws Exception
      */
     @DeleteMapping("/delete2")
-    public ResponseEntity<?> deleteFileFromGCS2(@RequestBody GcsFileDTO gcsFileDTO) throws Exception {
-
-        boolean isDeleted = gcsService.deleteFileFromGCS(gcsFileDTO.getFileName());
-
-        if (isDeleted) {
-            return ResponseEntity
-                    .status(HttpStatus.OK)
-                    .body(String.format("%s is deleted successfully.", gcsFileDTO.getFileName()));
-        } else {
-            return ResponseEntity
-                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(String.format("%s is deleted in GCS.", gcsFileDTO.getFileName()));
-        }
+    public CompletableFuture<ResponseEntity<?>> deleteFileFromGCS2(@RequestBody GcsFileDTO gcsFileDTO) {
+        return metadataBulkhead.submit(() -> {
+            boolean isDeleted = gcsService.deleteFileFromGCS(gcsFileDTO.getFileName());
 
+            if (isDeleted) {
+                return ResponseEntity
+                        .status(HttpStatus.OK)
+                        .body(String.format("%s is deleted successfully.", gcsFileDTO.getFileName()));
+            } else {
+                return ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(String.format("%s is deleted in GCS.", gcsFileDTO.getFileName()));
+            }
+        });
     }
 
     /**
@@ -160,20 +390,60 @@ public class GcsController {
      * @throws Exception
      */
     @DeleteMapping("/delete3")
-    public ResponseEntity<?> deleteFileFromGCS3(@ModelAttribute GcsFileDTO gcsFileDTO) throws Exception {
+    public CompletableFuture<ResponseEntity<?>> deleteFileFromGCS3(@ModelAttribute GcsFileDTO gcsFileDTO) {
+        return metadataBulkhead.submit(() -> {
+            boolean isDeleted = gcsService.deleteFileFromGCS(gcsFileDTO.getFileName());
 
-        boolean isDeleted = gcsService.deleteFileFromGCS(gcsFileDTO.getFileName());
+            if (isDeleted) {
+                return ResponseEntity
+                        .status(HttpStatus.OK)
+                        .body(String.format("%s is deleted successfully.", gcsFileDTO.getFileName()));
+            } else {
+                return ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(String.format("%s is deleted in GCS.", gcsFileDTO.getFileName()));
+            }
+        });
+    }
 
-        if (isDeleted) {
-            return ResponseEntity
-                    .status(HttpStatus.OK)
-                    .body(String.format("%s is deleted successfully.", gcsFileDTO.getFileName()));
-        } else {
+    /**
+     * Bulk File Delete by fileNames or prefix (StorageBatch 로 묶어서 동시에 삭제, 진행 상황은 NDJSON 으로 스트리밍)
+     *
+     * @apiNote curl --location --request POST 'http://localhost:8080/delete/bulk' \
+     * --header 'Content-Type: application/json' \
+     * --data-raw '{
+     *     "prefix": "my-file-"
+     * }'
+     *
+     * @param gcsBulkDeleteDTO 삭제하려는 파일 이름 목록 (fileNames) 또는 prefix
+     * @return 파일별 삭제 결과와 batch 마다의 누적 진행 상황 (한 줄에 JSON 하나)
+     */
+    @PostMapping("/delete/bulk")
+    public ResponseEntity<StreamingResponseBody> deleteFilesFromGCS(@RequestBody GcsBulkDeleteDTO gcsBulkDeleteDTO) {
+
+        String prefix = gcsBulkDeleteDTO.getPrefix();
+        List<String> fileNames = gcsBulkDeleteDTO.getFileNames();
+        boolean byPrefix = prefix != null && !prefix.isEmpty();
+
+        if (!byPrefix && (fileNames == null || fileNames.isEmpty())) {
             return ResponseEntity
-                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(String.format("%s is deleted in GCS.", gcsFileDTO.getFileName()));
+                    .status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write("fileNames or prefix is required.".getBytes(StandardCharsets.UTF_8)));
         }
 
+        StreamingResponseBody body = out -> {
+            GcsBulkDeleteSummaryDTO summary = byPrefix
+                    ? gcsService.deleteFilesByPrefixFromGCS(prefix, (results, progress) -> writeDeleteProgress(out, results, progress))
+                    : gcsService.deleteFilesFromGCS(fileNames, (results, progress) -> writeDeleteProgress(out, results, progress));
+            writeJsonLine(out, summary);
+            out.flush();
+        };
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(listBulkhead.stream(body));
     }
 
     /**
@@ -185,11 +455,30 @@ public class GcsController {
      * @apiNote curl --location --request GET 'http://localhost:8080/clipboardImage_21_0702_113845_579.jpeg'
      */
     @GetMapping("/{fileName}")
-    public ResponseEntity<?> getFileInfoFromGCS(@PathVariable String fileName) throws Exception {
-        BlobInfo blobInfo = gcsService.getBlobInfoFromGCS(fileName);
+    public CompletableFuture<ResponseEntity<?>> getFileInfoFromGCS(@PathVariable String fileName, ServletWebRequest webRequest) {
+        return metadataBulkhead.submit(() -> {
+            Blob blob = gcsService.getBlobFromGCS(fileName);
+            if (checkNotModified(webRequest, blob, GcsCacheControlPolicy.etag(blob))) {
+                return null;
+            }
+            BlobInfo blobInfo = gcsService.getBlobInfoFromGCS(blob);
+            return ResponseEntity
+                    .status(HttpStatus.OK)
+                    .body(blobInfo);
+        });
+    }
+
+    /**
+     * Metadata Cache Statistics
+     *
+     * @return metadata cache 의 hit / miss / eviction 통계
+     * @apiNote curl --location --request GET 'http://localhost:8080/cache/metadata/stats'
+     */
+    @GetMapping("/cache/metadata/stats")
+    public ResponseEntity<?> getMetadataCacheStats() {
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(blobInfo);
+                .body(gcsService.getMetadataCacheStats());
     }
 
     /**
@@ -199,18 +488,131 @@ public class GcsController {
      * @throws Exception
      */
     @GetMapping("/list")
-    public ResponseEntity<?> getWholeFileListFromGCS() throws Exception {
-        List<BlobInfo> blobInfoList = gcsService.getWholeBlobInfoFromGCS();
+    public CompletableFuture<ResponseEntity<?>> getWholeFileListFromGCS() {
+        return listBulkhead.submit(() -> {
+            List<BlobInfo> blobInfoList = gcsService.getWholeBlobInfoFromGCS();
+            return ResponseEntity
+                    .status(HttpStatus.OK)
+                    .body(blobInfoList);
+        });
+    }
+
+    /**
+     * Whole File Retrieve (compact 형식, Accept: application/vnd.gcs.columnar+json)
+     *
+     * @return 필드별 배열로 담은 목록
+     * @throws Exception
+     * @apiNote curl --location --request GET 'http://localhost:8080/list' \
+     * --header 'Accept: application/vnd.gcs.columnar+json'
+     */
+    @GetMapping(value = "/list", produces = GcsFileListColumnsDTO.MEDIA_TYPE)
+    public CompletableFuture<ResponseEntity<?>> getWholeFileColumnsFromGCS() {
+        return listBulkhead.submit(() -> {
+            GcsFileListColumnsDTO columns = gcsService.getWholeFileColumnsFromGCS();
+            return ResponseEntity
+                    .status(HttpStatus.OK)
+                    .body(columns);
+        });
+    }
+
+    /**
+     * Whole File Retrieve as NDJSON (GCS 가 page 를 돌려줄 때마다 바로 응답에 쓴다, 파일 수와 상관없이 메모리 사용량 일정)
+     *
+     * @param prefix 조회할 prefix (생략하면 bucket 전체)
+     * @param delimiter 디렉토리 구분자 ('/' 만 지원, 지정하면 바로 아래 단계만 조회)
+     * @return 한 줄에 blobInfo 하나 (application/x-ndjson)
+     * @apiNote curl --location --request GET 'http://localhost:8080/list/stream?prefix=ANALYSIS_FILES/&delimiter=/'
+     */
+    @GetMapping("/list/stream")
+    public ResponseEntity<StreamingResponseBody> streamWholeFileListFromGCS(@RequestParam(required = false) String prefix,
+                                                                            @RequestParam(required = false) String delimiter) {
+
+        if (delimiter != null && !delimiter.isEmpty() && !"/".equals(delimiter)) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write("only '/' is supported as delimiter.".getBytes(StandardCharsets.UTF_8)));
+        }
+        boolean currentDirectory = "/".equals(delimiter);
+
+        StreamingResponseBody body = out -> gcsService.listBlobInfoPagesFromGCS(prefix, currentDirectory, blobList -> {
+            try {
+                for (BlobInfo blobInfo : blobList) {
+                    writeJsonLine(out, blobInfo);
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(blobInfoList);
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(listBulkhead.stream(body));
     }
 
     /**
-     * Paged File Retrieve (페이징 개수와 페이징 토큰 이용)
+     * Indexed File Retrieve (메모리 index 에서 offset 또는 cursor 로 paging, gcs.index.enabled=true 일 때만)
      *
-     * @param pageToken 다음 페이지의 조회를 위한 pageToken (매번 조회 시 마다 생성)
-     * @param rowCount 한번에 page 조회할 개수
+     * @param prefix 조회할 prefix (생략하면 bucket 전체)
+     * @param cursor 직전 page 의 nextCursor (지정하면 offset 은 무시)
+     * @param offset 건너뛸 개수
+     * @param limit 한번에 조회할 개수
+     * @return entry 목록과 nextCursor
+     * @apiNote curl --location --request GET 'http://localhost:8080/index/list?prefix=ANALYSIS_FILES/&limit=100'
+     */
+    @GetMapping("/index/list")
+    public ResponseEntity<?> getIndexedFileList(@RequestParam(required = false) String prefix,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "0") int offset,
+                                                @RequestParam(defaultValue = "100") int limit) {
+
+        GcsNameIndex nameIndex = gcsService.getNameIndex();
+        if (!nameIndex.isReady()) {
+            return indexNotReady();
+        }
+        if (offset < 0 || limit <= 0) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body("offset must be >= 0 and limit must be > 0.");
+        }
+
+        GcsIndexPageDTO page = (cursor != null && !cursor.isEmpty())
+                ? nameIndex.listByCursor(prefix, cursor, limit)
+                : nameIndex.listByOffset(prefix, offset, limit);
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(page);
+    }
+
+    /**
+     * Indexed Directory Retrieve (prefix 바로 아래의 파일과 하위 디렉토리)
+     *
+     * @param prefix 디렉토리 prefix (예: ANALYSIS_FILES/, 생략하면 최상위)
+     * @return 파일 entry 목록과 하위 디렉토리 목록
+     * @apiNote curl --location --request GET 'http://localhost:8080/index/dir?prefix=ANALYSIS_FILES/'
+     */
+    @GetMapping("/index/dir")
+    public ResponseEntity<?> getIndexedDirectory(@RequestParam(required = false) String prefix) {
+
+        GcsNameIndex nameIndex = gcsService.getNameIndex();
+        if (!nameIndex.isReady()) {
+            return indexNotReady();
+        }
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(nameIndex.listDirectory(prefix));
+    }
+
+    /**
+     * Paged File Retrieve (페이징 개수와 cursor 이용, 다음 page 는 미리 읽어둔다)
+     *
+     * @param pageToken 다음 페이지의 조회를 위한 cursor (직전 응답의 pageToken, 첫 page 는 생략)
+     * @param rowCount 한번에 page 조회할 개수 (첫 page 에서 정한 값이 cursor 에 담겨 유지된다)
+     * @param prefix 조회할 prefix (첫 page 에서 정한 값이 cursor 에 담겨 유지된다)
      * @return paged 조회된 blobInfo 목록과 다음 pageToken
      * @throws Exception
      * @apiNote curl --location --request GET 'http://localhost:8080/page' \
@@ -218,65 +620,414 @@ public class GcsController {
      * --form 'rowCount="100"'
      */
     @GetMapping("/page")
-    public ResponseEntity<?> getPagedFileListFromGCS(@RequestParam String pageToken, @RequestParam int rowCount) throws Exception {
-        GCSPagedFileListDTO paged = gcsService.getPagedFileListFromGCS(pageToken, rowCount);
-        return ResponseEntity
-                .status(HttpStatus.OK)
-                .body(paged);
+    public CompletableFuture<ResponseEntity<?>> getPagedFileListFromGCS(@RequestParam(required = false) String pageToken,
+                                                                        @RequestParam(defaultValue = "100") int rowCount,
+                                                                        @RequestParam(required = false) String prefix) {
+        return listBulkhead.submit(() -> {
+            if (rowCount <= 0 || rowCount > GcsPageCursor.MAX_ROW_COUNT) {
+                return ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body("rowCount must be between 1 and 1000.");
+            }
+            GCSPagedFileListDTO paged;
+            try {
+                paged = gcsService.getPagedFileListFromGCS(pageToken, prefix, rowCount);
+            } catch (IllegalArgumentException e) {
+                // 손댄 cursor 는 GCS 로 보내지 않는다
+                return ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(e.getMessage());
+            }
+            return ResponseEntity
+                    .status(HttpStatus.OK)
+                    .body(paged);
+        });
+    }
+
+    /**
+     * Paged File Retrieve (compact 형식, Accept: application/vnd.gcs.columnar+json)
+     *
+     * @param pageToken 다음 페이지의 조회를 위한 cursor (직전 응답의 pageToken, 첫 page 는 생략)
+     * @param rowCount 한번에 page 조회할 개수
+     * @param prefix 조회할 prefix
+     * @return 필드별 배열로 담은 목록과 다음 pageToken
+     * @throws Exception
+     * @apiNote curl --location --request GET 'http://localhost:8080/page?rowCount=1000' \
+     * --header 'Accept: application/vnd.gcs.columnar+json'
+     */
+    @GetMapping(value = "/page", produces = GcsFileListColumnsDTO.MEDIA_TYPE)
+    public CompletableFuture<ResponseEntity<?>> getPagedFileColumnsFromGCS(@RequestParam(required = false) String pageToken,
+                                                                           @RequestParam(defaultValue = "100") int rowCount,
+                                                                           @RequestParam(required = false) String prefix) {
+        return listBulkhead.submit(() -> {
+            if (rowCount <= 0 || rowCount > GcsPageCursor.MAX_ROW_COUNT) {
+                return ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body("rowCount must be between 1 and 1000.");
+            }
+            GcsFileListColumnsDTO columns;
+            try {
+                columns = gcsService.getPagedFileColumnsFromGCS(pageToken, prefix, rowCount);
+            } catch (IllegalArgumentException e) {
+                // 손댄 cursor 는 GCS 로 보내지 않는다
+                return ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(e.getMessage());
+            }
+            return ResponseEntity
+                    .status(HttpStatus.OK)
+                    .body(columns);
+        });
     }
 
+    /**
+     * Signed URL 발급
+     *
+     * @param fileName signed URL 을 만들 파일 이름
+     * @param expirySeconds URL 유효 시간 (초, 생략하면 gcs.signed-url.default-expiry-seconds)
+     * @return signed URL
+     * @apiNote curl --location --request GET 'http://localhost:8080/url?fileName=ANALYSIS_FILES/1556_NA14623.pdf&expirySeconds=600'
+     */
     @GetMapping("/url")
-    public ResponseEntity<?> getSignedURL(@RequestParam String fileName) throws IOException, URISyntaxException {
+    public CompletableFuture<ResponseEntity<?>> getSignedURL(@RequestParam String fileName,
+                                                             @RequestParam(required = false) Long expirySeconds) {
+        return metadataBulkhead.submit(() -> {
+            if (!isValidExpiry(expirySeconds)) {
+                return invalidExpiry();
+            }
 
-        URL signedURL = gcsService.getSignedURL(fileName);
+            GcsSignedUrlDTO signed = gcsService.getSignedURL(fileName, resolveExpiry(expirySeconds));
 
-        return ResponseEntity
-                .status(HttpStatus.OK)
-                .body(signedURL);
+            return ResponseEntity
+                    .status(HttpStatus.OK)
+                    .body(signed == null ? null : signed.getUrl());
+        });
     }
 
-    @GetMapping("/api/v1/gcs")
-    public ResponseEntity<?> getSignedURL2(@RequestParam String fileName) throws URISyntaxException, IOException {
+    /**
+     * Batch Signed URL 발급 (여러 파일을 한 번에 병렬로 서명)
+     *
+     * @param fileNames signed URL 을 만들 파일 이름 목록 (JSON array)
+     * @param expirySeconds URL 유효 시간 (초, 생략하면 gcs.signed-url.default-expiry-seconds)
+     * @return 입력 순서대로 파일별 signed URL 과 만료 시각 (없는 파일은 url 이 null)
+     * @apiNote curl --location --request POST 'http://localhost:8080/urls?expirySeconds=600' \
+     * --header 'Content-Type: application/json' \
+     * --data-raw '["ANALYSIS_FILES/1556_NA14623.pdf", "ANALYSIS_FILES/1589_HAL-SOLID-SAMPLE-05.pdf"]'
+     */
+    @PostMapping("/urls")
+    public CompletableFuture<ResponseEntity<?>> getSignedURLs(@RequestBody List<String> fileNames,
+                                                              @RequestParam(required = false) Long expirySeconds) {
+        return metadataBulkhead.submit(() -> {
+            if (!isValidExpiry(expirySeconds)) {
+                return invalidExpiry();
+            }
 
-        URL signedURL = gcsService.getSignedURL(fileName);
+            List<GcsSignedUrlDTO> signedList = gcsService.getSignedURLs(fileNames, resolveExpiry(expirySeconds));
 
-        if (signedURL == null) {
             return ResponseEntity
-                    .status(HttpStatus.NOT_FOUND)
-                    .build();
-        }
+                    .status(HttpStatus.OK)
+                    .body(signedList);
+        });
+    }
 
-        LOG.info(">>>> {}", signedURL.toURI());
+    @GetMapping("/api/v1/gcs")
+    public CompletableFuture<ResponseEntity<?>> getSignedURL2(@RequestParam String fileName,
+                                                              @RequestParam(required = false) Long expirySeconds) {
+        return metadataBulkhead.submit(() -> {
+            if (!isValidExpiry(expirySeconds)) {
+                return invalidExpiry();
+            }
 
-        HttpHeaders httpHeaders = new HttpHeaders();
-        httpHeaders.setLocation(signedURL.toURI());
+            GcsSignedUrlDTO signed = gcsService.getSignedURL(fileName, resolveExpiry(expirySeconds));
 
-        return ResponseEntity
-                .status(HttpStatus.TEMPORARY_REDIRECT)
-                .headers(httpHeaders)
-                .build();
+            if (signed == null) {
+                return ResponseEntity
+                        .status(HttpStatus.NOT_FOUND)
+                        .build();
+            }
+
+            URL signedURL = signed.getUrl();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(">>>> {}", signedURL.toURI());
+            }
+
+            HttpHeaders httpHeaders = new HttpHeaders();
+            httpHeaders.setLocation(signedURL.toURI());
+
+            return ResponseEntity
+                    .status(HttpStatus.TEMPORARY_REDIRECT)
+                    .headers(httpHeaders)
+                    .build();
+        });
     }
 
+    /**
+     * Single File Download (GCS ReadChannel 에서 응답으로 바로 스트리밍, Range 요청 지원)
+     *
+     * @param fileName 다운로드 하려는 파일 이름
+     * @param requestHeaders Range 헤더 확인용 요청 헤더
+     * @return 파일 전체 (200) 또는 요청한 구간 (206)
+     * @throws IOException 파일이 없으면 FileNotFoundException
+     * @apiNote curl --location --request GET 'http://localhost:8080/clipboardImage_21_0702_113845_579.jpeg/download' \
+     * --header 'Range: bytes=0-1048575'
+     */
     @GetMapping("/{fileName}/download")
-    public ResponseEntity<?> downloadFile(@PathVariable String fileName) throws IOException {
+    public ResponseEntity<StreamingResponseBody> downloadFile(@PathVariable String fileName,
+                                                              @RequestHeader HttpHeaders requestHeaders,
+                                                              ServletWebRequest webRequest) throws IOException {
+
+        Blob blob = gcsService.getBlobFromGCS(fileName);
+
+        // gzip 으로 저장된 파일은 gzip 을 받을 수 있는 client 에게는 그대로, 아니면 압축을 풀어서 보낸다
+        boolean gzipStored = GcsCompressionPolicy.isGzip(blob);
+        boolean gzipPassThrough = gzipStored && acceptsGzip(requestHeaders);
+        String etag = GcsCacheControlPolicy.etag(blob, gzipPassThrough);
+        if (gzipStored && webRequest.getResponse() != null) {
+            webRequest.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (checkNotModified(webRequest, blob, etag)) {
+            return null;
+        }
+
+        if (gzipStored && !gzipPassThrough) {
+            // 압축을 푼 크기는 업로드할 때 기록해 둔 값이 있을 때만 알 수 있고, Range 는 지원하지 않는다
+            Long originalSize = GcsCompressionPolicy.originalSize(blob);
+            ResponseEntity.BodyBuilder builder = ResponseEntity
+                    .status(HttpStatus.OK)
+                    .header(HttpHeaders.ACCEPT_RANGES, "none")
+                    .header("Content-type", "application/octet-stream")
+                    .header("Content-disposition", "attachment; filename=\"" + fileName + "\"");
+            if (originalSize != null) {
+                builder.contentLength(originalSize);
+            }
+            return builder.body(downloadBulkhead.stream(out -> gcsService.serveDecompressedBlob(blob, out)));
+        }
 
-        File file = gcsService.downloadFile(fileName);
+        HttpHeaders encodingHeaders = new HttpHeaders();
+        if (gzipPassThrough) {
+            encodingHeaders.set(HttpHeaders.CONTENT_ENCODING, GcsCompressionPolicy.GZIP);
+        }
+        long size = blob.getSize();
 
+        List<HttpRange> ranges;
         try {
-            byte[] res = Files.toByteArray(file);
-            ByteArrayResource resource = new ByteArrayResource(res);
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            // 잘못된 Range 헤더는 무시하고 전체를 내려준다 (RFC 7233)
+            ranges = Collections.emptyList();
+        }
+        if (!ranges.isEmpty() && !isIfRangeMatched(requestHeaders, blob, etag)) {
+            // If-Range 가 현재 버전과 다르면 부분 요청 대신 새 버전 전체를 내려준다
+            ranges = Collections.emptyList();
+        }
 
+        // multi-range 는 지원하지 않으므로 전체를 내려준다
+        if (ranges.size() != 1) {
             return ResponseEntity
                     .status(HttpStatus.OK)
-                    .contentLength(res.length)
+                    .contentLength(size)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
                     .header("Content-type", "application/octet-stream")
                     .header("Content-disposition", "attachment; filename=\"" + fileName + "\"")
-                    .body(resource);
-        } finally {
-            if (file.exists()) {
-                file.delete();
+                    .headers(encodingHeaders)
+                    .body(downloadBulkhead.stream(out -> gcsService.serveBlob(blob, 0, size, out)));
+        }
+
+        long start = ranges.get(0).getRangeStart(size);
+        long end = ranges.get(0).getRangeEnd(size);
+        if (start >= size || start > end) {
+            return ResponseEntity
+                    .status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                    .build();
+        }
+
+        long length = end - start + 1;
+        return ResponseEntity
+                .status(HttpStatus.PARTIAL_CONTENT)
+                .contentLength(length)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_RANGE, String.format("bytes %d-%d/%d", start, end, size))
+                .header("Content-type", "application/octet-stream")
+                .header("Content-disposition", "attachment; filename=\"" + fileName + "\"")
+                .headers(encodingHeaders)
+                .body(downloadBulkhead.stream(out -> gcsService.serveBlob(blob, start, length, out)));
+    }
+
+    /**
+     * Archive Download by prefix (prefix 아래 전체를 하나의 ZIP 으로 묶어 만들면서 바로 내려준다)
+     *
+     * @apiNote curl --location --request GET 'http://localhost:8080/archive?prefix=ANALYSIS_FILES/run-01/' -o run-01.zip
+     *
+     * @param prefix 묶으려는 파일들의 prefix
+     * @param archiveName 내려받을 ZIP 파일 이름 (없으면 prefix 로 만든다)
+     * @return ZIP (ZIP64) stream
+     */
+    @GetMapping("/archive")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> downloadArchive(@RequestParam String prefix,
+                                                                                    @RequestParam(required = false) String archiveName) {
+        GcsArchiveDTO gcsArchiveDTO = new GcsArchiveDTO();
+        gcsArchiveDTO.setPrefix(prefix);
+        gcsArchiveDTO.setArchiveName(archiveName);
+        return this.downloadArchive(gcsArchiveDTO);
+    }
+
+    /**
+     * Archive Download by fileNames or prefix (여러 파일을 하나의 ZIP 으로 묶어 만들면서 바로 내려준다)
+     *
+     * @apiNote curl --location --request POST 'http://localhost:8080/archive' \
+     * --header 'Content-Type: application/json' \
+     * --data-raw '{
+     *     "fileNames": ["my-file-1.txt", "my-file-2.txt"],
+     *     "archiveName": "my-files.zip"
+     * }' -o my-files.zip
+     *
+     * @param gcsArchiveDTO 묶으려는 파일 이름 목록 (fileNames) 또는 prefix, ZIP 파일 이름 (archiveName)
+     * @return ZIP (ZIP64) stream
+     * @throws IOException fileNames 중 없는 파일이 있으면 FileNotFoundException
+     */
+    @PostMapping("/archive")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> downloadArchive(@RequestBody GcsArchiveDTO gcsArchiveDTO) {
+
+        String prefix = gcsArchiveDTO.getPrefix();
+        List<String> fileNames = gcsArchiveDTO.getFileNames();
+        boolean byPrefix = prefix != null && !prefix.isEmpty();
+
+        if (!byPrefix && (fileNames == null || fileNames.isEmpty())) {
+            return CompletableFuture.completedFuture(ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write("fileNames or prefix is required.".getBytes(StandardCharsets.UTF_8))));
+        }
+
+        // 목록은 list bulkhead 에서 만들고, ZIP 을 쓰는 것은 download bulkhead 의 stream 으로 넘긴다
+        return listBulkhead.submit(() -> {
+            List<Blob> blobs;
+            try {
+                blobs = gcsService.getArchiveBlobsFromGCS(prefix, fileNames);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .body(out -> out.write(e.getMessage().getBytes(StandardCharsets.UTF_8)));
+            }
+            if (blobs.isEmpty()) {
+                return ResponseEntity
+                        .status(HttpStatus.NOT_FOUND)
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .body(out -> out.write(String.format("no file is found under %s.", prefix).getBytes(StandardCharsets.UTF_8)));
             }
+
+            String archiveName = gcsArchiveDTO.getArchiveName();
+            if (archiveName == null || archiveName.isEmpty()) {
+                String base = byPrefix ? prefix.replaceAll("/+$", "") : "";
+                base = base.substring(base.lastIndexOf('/') + 1);
+                archiveName = (base.isEmpty() ? "archive" : base) + ".zip";
+            }
+
+            // 크기를 미리 알 수 없으므로 chunked 로 내려준다
+            return ResponseEntity
+                    .status(HttpStatus.OK)
+                    .header("Content-type", "application/zip")
+                    .header("Content-disposition", "attachment; filename=\"" + archiveName + "\"")
+                    .body(downloadBulkhead.stream(out -> gcsService.streamArchiveFromGCS(blobs, out)));
+        });
+    }
+
+    /**
+     * ETag / Last-Modified / Cache-Control 을 응답에 붙이고, 요청의 If-None-Match / If-Modified-Since 와 비교한다.
+     * true 면 304 Not Modified 가 이미 설정된 것이므로 body 없이 끝내면 된다.
+     */
+    private boolean checkNotModified(ServletWebRequest webRequest, Blob blob, String etag) {
+        if (webRequest.getResponse() != null) {
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControlPolicy.cacheControl(blob.getName()));
+        }
+        return webRequest.checkNotModified(etag, GcsCacheControlPolicy.lastModified(blob));
+    }
+
+    private boolean isIfRangeMatched(HttpHeaders requestHeaders, Blob blob, String etag) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // weak ETag 는 If-Range 에 쓸 수 없다
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = requestHeaders.getFirstDate(HttpHeaders.IF_RANGE);
+            return date >= 0 && date / 1000 == GcsCacheControlPolicy.lastModified(blob) / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Accept-Encoding 에 gzip (또는 *) 이 q=0 이 아닌 값으로 들어 있는지
+     */
+    private boolean acceptsGzip(HttpHeaders requestHeaders) {
+        for (String value : requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String token : value.split(",")) {
+                String[] parts = token.trim().split(";");
+                String coding = parts[0].trim();
+                if (!coding.equalsIgnoreCase(GcsCompressionPolicy.GZIP) && !coding.equals("*")) {
+                    continue;
+                }
+                boolean refused = false;
+                for (int i = 1; i < parts.length; i++) {
+                    if (parts[i].replace(" ", "").matches("q=0(\\.0*)?")) {
+                        refused = true;
+                    }
+                }
+                if (!refused) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private ResponseEntity<?> uploadSessionNotFound(String sessionId) {
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(String.format("upload session %s is not found (completed, aborted, failed or expired).", sessionId));
+    }
+
+    private void writeDeleteProgress(OutputStream out, List<GcsDeleteResultDTO> results, GcsBulkDeleteSummaryDTO progress) {
+        try {
+            for (GcsDeleteResultDTO result : results) {
+                writeJsonLine(out, result);
+            }
+            writeJsonLine(out, progress);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
+
+    private void writeJsonLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+
+    private boolean isValidExpiry(Long expirySeconds) {
+        // V4 signed URL 은 최대 7일까지만 유효하다
+        return expirySeconds == null || (expirySeconds > 0 && expirySeconds <= maxSignedUrlExpirySeconds);
+    }
+
+    private long resolveExpiry(Long expirySeconds) {
+        return expirySeconds != null ? expirySeconds : gcsService.getSignedUrlDefaultExpirySeconds();
+    }
 
+    private ResponseEntity<?> invalidExpiry() {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(String.format("expirySeconds must be between 1 and %d.", maxSignedUrlExpirySeconds));
+    }
+
+    private ResponseEntity<?> indexNotReady() {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body("name index is disabled or not warmed up yet.");
     }
 }
@@ -0,0 +1,41 @@
+package com.example;
+
+public class GcsDeleteResultDTO {
+
+    String fileName;
+    boolean deleted;
+    String error = null;
+
+    public GcsDeleteResultDTO() {
+    }
+
+    public GcsDeleteResultDTO(String fileName, boolean deleted, String error) {
+        this.fileName = fileName;
+        this.deleted = deleted;
+        this.error = error;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
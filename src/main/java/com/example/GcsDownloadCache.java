@@ -0,0 +1,259 @@
+package com.example;
+
+import com.google.cloud.storage.Blob;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 자주 받는 큰 파일을 로컬 디스크에 보관하는 read-through cache.
+ * 파일은 (object 이름, generation) 으로 구분하므로 교체된 object 의 예전 내용을 내보내지 않는다.
+ * 전체 크기는 max-bytes 로 제한되고 가장 오래 안 쓴 파일부터 지우며,
+ * 같은 파일을 동시에 요청하면 GCS 에서는 한 번만 받는다.
+ * cache 는 object 전체를 받는 요청으로만 채우고, Range 요청은 이미 cache 에 있을 때만 cache 에서 보낸다.
+ * 서버를 다시 시작해도 디렉토리에 남아있는 파일을 그대로 다시 사용한다.
+ */
+@Component
+public class GcsDownloadCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GcsDownloadCache.class);
+
+    private static final String PART_SUFFIX = ".part";
+
+    /**
+     * 비어있는 cache 파일을 채우는 방법 (GcsService 에서 GCS 로부터 받아 쓴다)
+     */
+    public interface Filler {
+        void fill(Blob blob, Path target) throws IOException;
+    }
+
+    @Value("${gcs.download.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${gcs.download.cache.dir:${java.io.tmpdir}/gcs-download-cache}")
+    private String directory;
+
+    @Value("${gcs.download.cache.max-bytes:10737418240}")
+    private long maxBytes;
+
+    @Value("${gcs.download.cache.max-object-bytes:2147483648}")
+    private long maxObjectBytes;
+
+    private Path root;
+
+    // access-order LinkedHashMap 으로 LRU 순서를 유지한다 (this 로 동기화)
+    private final LinkedHashMap<String, CachedFile> files = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+
+    private final ConcurrentHashMap<String, CompletableFuture<CachedFile>> filling = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void initialize() throws IOException {
+        if (!this.enabled) {
+            return;
+        }
+        this.root = Paths.get(this.directory);
+        Files.createDirectories(this.root);
+
+        // 이전에 받아둔 파일을 마지막 수정 시각 순서로 다시 등록하고, 채우다 만 파일은 지운다
+        List<Path> existing = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.root)) {
+            for (Path path : stream) {
+                if (path.getFileName().toString().endsWith(PART_SUFFIX)) {
+                    Files.deleteIfExists(path);
+                } else {
+                    existing.add(path);
+                }
+            }
+        }
+        existing.sort((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()));
+        synchronized (this) {
+            for (Path path : existing) {
+                long size = Files.size(path);
+                this.files.put(path.getFileName().toString(), new CachedFile(path, size));
+                this.totalBytes += size;
+            }
+            this.evictIfNeeded(0);
+        }
+        LOG.info("{}", String.format("%d files (%d bytes) is loaded in download cache %s.", this.files.size(), this.totalBytes, this.root));
+    }
+
+    /**
+     * 이 blob 을 cache 에서 내보낼 수 있는지 (cache 가 켜져 있고 크기가 max-object-bytes 이하)
+     */
+    public boolean accepts(Blob blob) {
+        return this.enabled && blob.getSize() != null && blob.getSize() <= this.maxObjectBytes;
+    }
+
+    /**
+     * blob 의 [offset, offset + length) 구간을 cache 파일에서 outputStream 으로 보낸다.
+     * object 전체를 요청했는데 cache 에 없으면 filler 로 먼저 채운다. 보내는 동안에는 파일이 evict 되지 않는다.
+     * 일부 구간만 요청했는데 cache 에 없으면 채우지 않고 -1 을 돌려준다 (작은 Range 때문에 object 전체를 받지 않도록).
+     * 응답은 FileChannel 이 아니므로 transferTo 가 sendfile 로 바로 보내지는 못하고 JDK 의 channel adapter buffer 를 거쳐 복사된다.
+     *
+     * @return 보낸 byte 수, cache 에 없는 부분 구간이면 아무것도 쓰지 않고 -1
+     */
+    public long transferTo(Blob blob, Filler filler, long offset, long length, OutputStream outputStream) throws IOException {
+        CachedFile cachedFile;
+        if (offset == 0 && length == blob.getSize()) {
+            cachedFile = this.acquire(blob, filler);
+        } else {
+            cachedFile = this.pinIfCached(key(blob));
+            if (cachedFile == null) {
+                return -1;
+            }
+        }
+        try (FileChannel channel = FileChannel.open(cachedFile.path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(outputStream);
+            long position = offset;
+            long end = offset + length;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+            outputStream.flush();
+            return position - offset;
+        } finally {
+            this.release(cachedFile);
+        }
+    }
+
+    private synchronized CachedFile pinIfCached(String key) {
+        CachedFile cachedFile = this.files.get(key);
+        if (cachedFile != null) {
+            cachedFile.pins++;
+        }
+        return cachedFile;
+    }
+
+    private CachedFile acquire(Blob blob, Filler filler) throws IOException {
+        String key = key(blob);
+        CachedFile cached = this.pinIfCached(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<CachedFile> future = new CompletableFuture<>();
+        CompletableFuture<CachedFile> inFlight = this.filling.putIfAbsent(key, future);
+        if (inFlight != null) {
+            // 다른 요청이 같은 파일을 받고 있으면 끝날 때까지 기다린다
+            try {
+                inFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw e;
+            }
+            return this.acquire(blob, filler);
+        }
+
+        try {
+            CachedFile cachedFile = this.fill(key, blob, filler);
+            future.complete(cachedFile);
+            return cachedFile;
+        } catch (IOException e) {
+            future.completeExceptionally(new UncheckedIOException(e));
+            throw e;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.filling.remove(key, future);
+        }
+    }
+
+    private CachedFile fill(String key, Blob blob, Filler filler) throws IOException {
+        Path target = this.root.resolve(key);
+        Path part = this.root.resolve(key + "." + Thread.currentThread().getId() + PART_SUFFIX);
+        try {
+            filler.fill(blob, part);
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+
+        long size = Files.size(target);
+        synchronized (this) {
+            this.evictIfNeeded(size);
+            CachedFile cachedFile = new CachedFile(target, size);
+            cachedFile.pins++;
+            CachedFile previous = this.files.put(key, cachedFile);
+            if (previous != null) {
+                this.totalBytes -= previous.size;
+            }
+            this.totalBytes += size;
+            return cachedFile;
+        }
+    }
+
+    private synchronized void release(CachedFile cachedFile) {
+        cachedFile.pins--;
+    }
+
+    /**
+     * incoming 만큼 자리가 생길 때까지 오래 안 쓴 파일부터 지운다. 보내는 중인 파일은 건너뛴다.
+     */
+    private void evictIfNeeded(long incoming) {
+        Iterator<Map.Entry<String, CachedFile>> it = this.files.entrySet().iterator();
+        while (this.totalBytes + incoming > this.maxBytes && it.hasNext()) {
+            CachedFile cachedFile = it.next().getValue();
+            if (cachedFile.pins > 0) {
+                continue;
+            }
+            it.remove();
+            this.totalBytes -= cachedFile.size;
+            try {
+                Files.deleteIfExists(cachedFile.path);
+            } catch (IOException e) {
+                LOG.warn("{} could not be evicted from download cache.", cachedFile.path, e);
+            }
+        }
+    }
+
+    private static String key(Blob blob) {
+        String version = blob.getGeneration() != null ? String.valueOf(blob.getGeneration()) : blob.getMd5();
+        return Hashing.sha256()
+                .hashString(blob.getBucket() + '/' + blob.getName() + '#' + version, StandardCharsets.UTF_8)
+                .toString();
+    }
+
+    private static final class CachedFile {
+        final Path path;
+        final long size;
+        int pins = 0;
+
+        CachedFile(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+    }
+}
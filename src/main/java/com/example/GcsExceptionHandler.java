@@ -0,0 +1,63 @@
+package com.example;
+
+import com.google.cloud.storage.StorageException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestControllerAdvice
+public class GcsExceptionHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GcsExceptionHandler.class);
+
+    // GCS 의 응답 코드 중 client 에게 그대로 알려줄 것 (나머지는 500)
+    private static final Set<Integer> PASS_THROUGH_CODES = new HashSet<>(Arrays.asList(404, 412, 429, 503, 504));
+
+    /**
+     * bulkhead 의 queue 가 가득 찬 경우, 기다리게 하지 않고 바로 503 으로 돌려보낸다.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<?> handleRejectedExecution(RejectedExecutionException e, HttpServletResponse response) {
+        LOG.warn("request is rejected : {}", e.getMessage());
+        if (!response.isCommitted()) {
+            // 거절되기 전에 붙인 Content-Length 등의 헤더를 지운다
+            response.reset();
+        }
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("server is busy, please retry later.");
+    }
+
+    /**
+     * GCS 호출이 실패한 경우. 없는 object, 조건 불일치, throttling, 일시적인 장애, deadline 초과는 code 를 그대로 돌려준다.
+     */
+    @ExceptionHandler(StorageException.class)
+    public ResponseEntity<?> handleStorageException(StorageException e, HttpServletResponse response) {
+        int code = e.getCode();
+        if (!PASS_THROUGH_CODES.contains(code)) {
+            LOG.error("GCS call failed ({})", code, e);
+            code = HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } else {
+            LOG.warn("GCS call failed ({}) : {}", code, e.getMessage());
+        }
+        if (!response.isCommitted()) {
+            response.reset();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(code);
+        if (code == HttpStatus.TOO_MANY_REQUESTS.value() || code == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+            builder.header(HttpHeaders.RETRY_AFTER, "1");
+        }
+        return builder.body(code == HttpStatus.INTERNAL_SERVER_ERROR.value() ? "GCS call failed." : e.getMessage());
+    }
+}
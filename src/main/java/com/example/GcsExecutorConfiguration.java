@@ -0,0 +1,196 @@
+package com.example;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * GCS 호출을 병렬로 처리하기 위한 executor 설정.
+ * pool 과 queue 크기를 고정해서 요청이 몰려도 GCS 로 나가는 동시 호출 수가 제한되도록 한다.
+ */
+@Configuration
+public class GcsExecutorConfiguration {
+
+    // virtual-threads profile 에서는 pool 의 thread 를 virtual thread 로 만든다 (pool / queue 크기 제한은 그대로)
+    @Value("${gcs.virtual-threads.enabled:false}")
+    private boolean virtualThreads;
+
+    @Bean(name = "gcsUploadExecutor")
+    public ThreadPoolTaskExecutor gcsUploadExecutor(
+            @Value("${gcs.upload.executor.pool-size:16}") int poolSize,
+            @Value("${gcs.upload.executor.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("gcs-upload-");
+        // queue 가 가득 차면 요청 thread 가 직접 처리해서 자연스럽게 속도를 늦춘다
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return this.withThreads(executor);
+    }
+
+    @Bean(name = "gcsCompositeUploadExecutor")
+    public ThreadPoolTaskExecutor gcsCompositeUploadExecutor(
+            @Value("${gcs.upload.composite.executor.pool-size:16}") int poolSize,
+            @Value("${gcs.upload.composite.executor.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("gcs-composite-");
+        // part 업로드는 gcsUploadExecutor 의 작업 안에서도 시작되므로, 같은 pool 을 쓰면 서로 기다리다 멈출 수 있어 따로 둔다
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return this.withThreads(executor);
+    }
+
+    @Bean(name = "gcsSliceExecutor")
+    public ThreadPoolTaskExecutor gcsSliceExecutor(
+            @Value("${gcs.download.sliced.executor.pool-size:32}") int poolSize,
+            @Value("${gcs.download.sliced.executor.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("gcs-slice-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return this.withThreads(executor);
+    }
+
+    @Bean(name = "gcsBatchExecutor")
+    public ThreadPoolTaskExecutor gcsBatchExecutor(
+            @Value("${gcs.batch.executor.pool-size:8}") int poolSize,
+            @Value("${gcs.batch.executor.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("gcs-batch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return this.withThreads(executor);
+    }
+
+    @Bean(name = "gcsSignExecutor")
+    public ThreadPoolTaskExecutor gcsSignExecutor(
+            @Value("${gcs.sign.executor.pool-size:8}") int poolSize,
+            @Value("${gcs.sign.executor.queue-capacity:1024}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("gcs-sign-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return this.withThreads(executor);
+    }
+
+    @Bean(name = "gcsListExecutor")
+    public ThreadPoolTaskExecutor gcsListExecutor(
+            @Value("${gcs.list.executor.pool-size:8}") int poolSize,
+            @Value("${gcs.list.executor.queue-capacity:1024}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("gcs-list-");
+        // 병렬 listing 은 거절되면 호출한 thread 에서 순서에 맞춰 직접 처리하므로 CallerRuns 를 쓰지 않는다
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return this.withThreads(executor);
+    }
+
+    /**
+     * GcsHedgedReader 가 hedge / deadline 을 걸고 읽는 pool. 가득 차면 거절하고, 호출한 thread 에서 hedge 없이 읽는다.
+     */
+    @Bean(name = "gcsHedgeExecutor")
+    public ThreadPoolTaskExecutor gcsHedgeExecutor(
+            @Value("${gcs.hedge.executor.pool-size:32}") int poolSize,
+            @Value("${gcs.hedge.executor.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("gcs-hedge-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return this.withThreads(executor);
+    }
+
+    /**
+     * 요청 종류별 bulkhead. 각자 고정된 pool 과 queue 를 가지며 queue 가 차면 기다리지 않고 거절한다 (503).
+     */
+    @Bean(name = "gcsMetadataRequestExecutor")
+    public ThreadPoolTaskExecutor gcsMetadataRequestExecutor(
+            @Value("${gcs.bulkhead.metadata.pool-size:16}") int poolSize,
+            @Value("${gcs.bulkhead.metadata.queue-capacity:256}") int queueCapacity) {
+        return this.withThreads(requestExecutor("gcs-metadata-", poolSize, queueCapacity));
+    }
+
+    @Bean(name = "gcsListRequestExecutor")
+    public ThreadPoolTaskExecutor gcsListRequestExecutor(
+            @Value("${gcs.bulkhead.list.pool-size:8}") int poolSize,
+            @Value("${gcs.bulkhead.list.queue-capacity:64}") int queueCapacity) {
+        return this.withThreads(requestExecutor("gcs-list-request-", poolSize, queueCapacity));
+    }
+
+    @Bean(name = "gcsUploadRequestExecutor")
+    public ThreadPoolTaskExecutor gcsUploadRequestExecutor(
+            @Value("${gcs.bulkhead.upload.pool-size:8}") int poolSize,
+            @Value("${gcs.bulkhead.upload.queue-capacity:16}") int queueCapacity) {
+        return this.withThreads(requestExecutor("gcs-upload-request-", poolSize, queueCapacity));
+    }
+
+    /**
+     * StreamingResponseBody (download, list/stream, delete/bulk) 를 실행하는 Spring MVC async executor.
+     * 동시에 열리는 stream 수는 bulkhead 의 max-streams 로 제한되므로 (자리가 없으면 body 가 바로 거절된다) queue 는 두지 않고 pool 만 고정한다.
+     */
+    @Bean(name = "gcsStreamExecutor")
+    public ThreadPoolTaskExecutor gcsStreamExecutor(
+            @Value("${gcs.stream.executor.pool-size:64}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("gcs-stream-");
+        return this.withThreads(executor);
+    }
+
+    @Bean(name = "gcsMetadataBulkhead")
+    public GcsBulkhead gcsMetadataBulkhead(@Qualifier("gcsMetadataRequestExecutor") Executor executor) {
+        return new GcsBulkhead("metadata", executor, 0);
+    }
+
+    @Bean(name = "gcsListBulkhead")
+    public GcsBulkhead gcsListBulkhead(@Qualifier("gcsListRequestExecutor") Executor executor,
+                                       @Value("${gcs.bulkhead.list.max-streams:8}") int maxStreams) {
+        return new GcsBulkhead("list", executor, maxStreams);
+    }
+
+    @Bean(name = "gcsUploadBulkhead")
+    public GcsBulkhead gcsUploadBulkhead(@Qualifier("gcsUploadRequestExecutor") Executor executor) {
+        return new GcsBulkhead("upload", executor, 0);
+    }
+
+    @Bean(name = "gcsDownloadBulkhead")
+    public GcsBulkhead gcsDownloadBulkhead(@Qualifier("gcsStreamExecutor") Executor executor,
+                                           @Value("${gcs.bulkhead.download.max-streams:32}") int maxStreams) {
+        return new GcsBulkhead("download", executor, maxStreams);
+    }
+
+    private static ThreadPoolTaskExecutor requestExecutor(String threadNamePrefix, int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    private ThreadPoolTaskExecutor withThreads(ThreadPoolTaskExecutor executor) {
+        if (this.virtualThreads) {
+            executor.setThreadFactory(GcsVirtualThreads.factory(executor.getThreadNamePrefix()));
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example;
+
+import com.google.cloud.storage.BlobInfo;
+
+import java.util.List;
+
+/**
+ * 목록 응답의 compact (columnar) 표현. 항목마다 객체를 만들지 않고 필드별 배열로 담는다.
+ * Accept: application/vnd.gcs.columnar+json 으로 요청하면 /list, /page 가 이 형태로 응답한다.
+ */
+public class GcsFileListColumnsDTO {
+
+    public static final String MEDIA_TYPE = "application/vnd.gcs.columnar+json";
+
+    final String[] names;
+    final String[] contentTypes;
+    final String[] md5s;
+    final Long[] customTimes;
+    String pageToken = null;
+
+    public GcsFileListColumnsDTO(int size) {
+        this.names = new String[size];
+        this.contentTypes = new String[size];
+        this.md5s = new String[size];
+        this.customTimes = new Long[size];
+    }
+
+    public static GcsFileListColumnsDTO of(List<? extends BlobInfo> blobList, String pageToken) {
+        GcsFileListColumnsDTO columns = new GcsFileListColumnsDTO(blobList.size());
+        int i = 0;
+        for (BlobInfo blobInfo : blobList) {
+            columns.set(i++, blobInfo);
+        }
+        columns.setPageToken(pageToken);
+        return columns;
+    }
+
+    public void set(int i, BlobInfo blobInfo) {
+        this.names[i] = blobInfo.getName();
+        this.contentTypes[i] = blobInfo.getContentType();
+        this.md5s[i] = blobInfo.getMd5();
+        this.customTimes[i] = blobInfo.getCustomTime();
+    }
+
+    public int getCount() {
+        return names.length;
+    }
+
+    public String[] getNames() {
+        return names;
+    }
+
+    public String[] getContentTypes() {
+        return contentTypes;
+    }
+
+    public String[] getMd5s() {
+        return md5s;
+    }
+
+    public Long[] getCustomTimes() {
+        return customTimes;
+    }
+
+    public String getPageToken() {
+        return pageToken;
+    }
+
+    public void setPageToken(String pageToken) {
+        this.pageToken = pageToken;
+    }
+}
@@ -0,0 +1,265 @@
+package com.example;
+
+import com.google.cloud.storage.StorageException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 멱등인 GCS 읽기 (storage.get, 목록 page) 의 꼬리 지연을 줄인다.
+ * operation 별로 최근 호출의 지연을 기억해 두고, hedge 를 켜면 percentile 만큼 기다려도 끝나지 않은 호출을 한 번 더 보내서
+ * 먼저 성공한 쪽의 결과를 쓴다. 실패는 보낸 호출이 모두 실패했을 때만 (마지막 오류로) 던진다. hedge 는 호출 수 대비 budget-ratio 만큼만 보낼 수 있다 (최대 budget-burst 개까지 모아둔다).
+ * deadline 을 켜면 최근 p99.9 * multiplier 를 [min-millis, max-millis] 로 자른 시간까지만 기다린다.
+ * 진 쪽이나 deadline 이 지난 호출은 결과만 버려지고, 호출 자체는 gcs.rpc timeout (GcsStorageOptionsConfiguration) 이 끊는다.
+ */
+@Component
+public class GcsHedgedReader {
+
+    @Value("${gcs.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${gcs.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    @Value("${gcs.hedge.min-delay-millis:10}")
+    private long hedgeMinDelayMillis;
+
+    @Value("${gcs.hedge.budget-ratio:0.05}")
+    private double budgetRatio;
+
+    @Value("${gcs.hedge.budget-burst:10}")
+    private double budgetBurst;
+
+    @Value("${gcs.deadline.enabled:false}")
+    private boolean deadlineEnabled;
+
+    @Value("${gcs.deadline.percentile:0.999}")
+    private double deadlinePercentile;
+
+    @Value("${gcs.deadline.multiplier:3}")
+    private double deadlineMultiplier;
+
+    @Value("${gcs.deadline.min-millis:1000}")
+    private long deadlineMinMillis;
+
+    @Value("${gcs.deadline.max-millis:30000}")
+    private long deadlineMaxMillis;
+
+    @Value("${gcs.latency.window-size:1000}")
+    private int windowSize;
+
+    // 이만큼 모이기 전에는 hedge 하지 않고 deadline 은 max-millis 를 쓴다
+    @Value("${gcs.latency.min-samples:100}")
+    private int minSamples;
+
+    @Autowired
+    @Qualifier("gcsHedgeExecutor")
+    private Executor executor;
+
+    @Autowired
+    private GcsMetrics metrics;
+
+    private final ConcurrentMap<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    private double budget = 0;
+
+    /**
+     * call 을 실행해서 결과를 돌려준다. call 은 여러 번 실행될 수 있으므로 멱등인 읽기만 넘겨야 한다.
+     *
+     * @throws StorageException (code 504) deadline 안에 끝나지 않은 경우
+     */
+    public <T> T read(String operation, Supplier<T> call) {
+        if (!this.hedgeEnabled && !this.deadlineEnabled) {
+            return call.get();
+        }
+        LatencyWindow window = this.windows.computeIfAbsent(operation, key -> new LatencyWindow(this.windowSize));
+        this.deposit();
+
+        long started = System.nanoTime();
+        Attempts<T> attempts = new Attempts<>();
+        CompletableFuture<T> result = attempts.result;
+        try {
+            this.attempt(window, call, attempts);
+        } catch (RejectedExecutionException e) {
+            // executor 가 바쁘면 hedge / deadline 없이 호출한 thread 에서 그대로 읽는다
+            return call.get();
+        }
+
+        long deadline = this.deadlineEnabled ? this.deadlineNanos(window) : -1;
+        try {
+            long delay = this.hedgeEnabled ? this.hedgeDelayNanos(window) : -1;
+            if (delay >= 0 && (deadline < 0 || delay < deadline)) {
+                try {
+                    return result.get(delay, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    this.hedge(operation, window, call, attempts);
+                }
+            }
+            if (deadline < 0) {
+                return result.get();
+            }
+            return result.get(deadline - (System.nanoTime() - started), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new StorageException(504, String.format("%s exceeded the %d ms deadline.",
+                    operation, TimeUnit.NANOSECONDS.toMillis(deadline)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("%s is interrupted.", operation), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    private <T> void hedge(String operation, LatencyWindow window, Supplier<T> call, Attempts<T> attempts) {
+        if (attempts.result.isDone()) {
+            // 기다리는 시간이 끝난 직후에 첫 호출이 끝났다
+            return;
+        }
+        if (!this.withdraw()) {
+            this.metrics.hedge(operation, "over_budget");
+            return;
+        }
+        try {
+            this.attempt(window, call, attempts).thenAccept(won -> {
+                if (won) {
+                    this.metrics.hedge(operation, "won");
+                }
+            });
+            this.metrics.hedge(operation, "sent");
+        } catch (RejectedExecutionException e) {
+            this.metrics.hedge(operation, "rejected");
+        }
+    }
+
+    /**
+     * call 을 executor 에서 한 번 실행한다. 성공한 호출의 지연은 이기든 지든 window 에 기록한다.
+     *
+     * @return 이 호출의 결과가 result 로 쓰였는지
+     */
+    private <T> CompletableFuture<Boolean> attempt(LatencyWindow window, Supplier<T> call, Attempts<T> attempts) {
+        CompletableFuture<Boolean> won = new CompletableFuture<>();
+        attempts.pending.incrementAndGet();
+        try {
+            this.executor.execute(() -> {
+                long started = System.nanoTime();
+                try {
+                    T value = call.get();
+                    window.add(System.nanoTime() - started);
+                    won.complete(attempts.result.complete(value));
+                } catch (Throwable e) {
+                    won.complete(attempts.failed(e));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            attempts.rejected();
+            throw e;
+        }
+        return won;
+    }
+
+    private long hedgeDelayNanos(LatencyWindow window) {
+        long percentile = window.percentile(this.hedgePercentile, this.minSamples);
+        return percentile < 0 ? -1 : Math.max(percentile, TimeUnit.MILLISECONDS.toNanos(this.hedgeMinDelayMillis));
+    }
+
+    private long deadlineNanos(LatencyWindow window) {
+        long max = TimeUnit.MILLISECONDS.toNanos(this.deadlineMaxMillis);
+        long percentile = window.percentile(this.deadlinePercentile, this.minSamples);
+        if (percentile < 0) {
+            return max;
+        }
+        long adaptive = (long) (percentile * this.deadlineMultiplier);
+        return Math.min(max, Math.max(TimeUnit.MILLISECONDS.toNanos(this.deadlineMinMillis), adaptive));
+    }
+
+    // 호출마다 budget-ratio 만큼 쌓이고 hedge 한 번에 1 씩 쓴다
+    private synchronized void deposit() {
+        this.budget = Math.min(this.budgetBurst, this.budget + this.budgetRatio);
+    }
+
+    private synchronized boolean withdraw() {
+        if (this.budget < 1) {
+            return false;
+        }
+        this.budget -= 1;
+        return true;
+    }
+
+    /**
+     * read 한 번에서 보낸 호출들. 실패한 호출은 아직 끝나지 않은 다른 호출이 있으면 무시한다.
+     */
+    private static final class Attempts<T> {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicInteger pending = new AtomicInteger();
+        private volatile Throwable failure;
+
+        boolean failed(Throwable e) {
+            this.failure = e;
+            return this.pending.decrementAndGet() == 0 && this.result.completeExceptionally(e);
+        }
+
+        // 보내지 못한 호출. 그 사이에 나머지가 모두 실패했으면 그 오류로 끝낸다
+        void rejected() {
+            if (this.pending.decrementAndGet() == 0 && this.failure != null) {
+                this.result.completeExceptionally(this.failure);
+            }
+        }
+    }
+
+    /**
+     * 최근 size 개 호출의 지연 (ns). percentile 은 size / 10 개가 새로 들어올 때마다 정렬해둔 복사본에서 읽는다.
+     */
+    static final class LatencyWindow {
+        private final long[] samples;
+        private final int refreshEvery;
+        private int next = 0;
+        private int count = 0;
+        private int sinceRefresh = 0;
+        private volatile long[] sorted = new long[0];
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+            this.refreshEvery = Math.max(1, size / 10);
+        }
+
+        synchronized void add(long nanos) {
+            this.samples[this.next] = nanos;
+            this.next = (this.next + 1) % this.samples.length;
+            this.count = Math.min(this.count + 1, this.samples.length);
+            if (++this.sinceRefresh >= this.refreshEvery) {
+                long[] copy = Arrays.copyOf(this.samples, this.count);
+                Arrays.sort(copy);
+                this.sorted = copy;
+                this.sinceRefresh = 0;
+            }
+        }
+
+        /**
+         * @return minSamples 개가 모이기 전이면 -1
+         */
+        long percentile(double percentile, int minSamples) {
+            long[] snapshot = this.sorted;
+            if (snapshot.length == 0 || snapshot.length < minSamples) {
+                return -1;
+            }
+            int index = (int) Math.ceil(percentile * snapshot.length) - 1;
+            return snapshot[Math.max(0, Math.min(snapshot.length - 1, index))];
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example;
+
+import com.google.cloud.storage.BlobInfo;
+
+public class GcsIndexEntryDTO {
+
+    final String name;
+    final Long size;
+    final String contentType;
+    final String md5;
+
+    public GcsIndexEntryDTO(String name, Long size, String contentType, String md5) {
+        this.name = name;
+        this.size = size;
+        this.contentType = contentType;
+        this.md5 = md5;
+    }
+
+    public static GcsIndexEntryDTO of(BlobInfo blobInfo) {
+        return new GcsIndexEntryDTO(blobInfo.getName(), blobInfo.getSize(), blobInfo.getContentType(), blobInfo.getMd5());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getMd5() {
+        return md5;
+    }
+}
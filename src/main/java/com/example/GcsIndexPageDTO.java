@@ -0,0 +1,35 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class GcsIndexPageDTO {
+
+    List<GcsIndexEntryDTO> entries = new ArrayList<>();
+    List<String> directories = new ArrayList<>();
+    String nextCursor = null;
+
+    public List<GcsIndexEntryDTO> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<GcsIndexEntryDTO> entries) {
+        this.entries = entries;
+    }
+
+    public List<String> getDirectories() {
+        return directories;
+    }
+
+    public void setDirectories(List<String> directories) {
+        this.directories = directories;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * BlobId 를 key 로 하는 in-process metadata cache.
+ * 크기와 TTL 로 evict 되고, 존재하지 않는 파일 (not found) 도 짧은 시간 동안 cache 한다.
+ * 같은 key 를 동시에 조회하면 GCS 호출은 한 번만 나간다.
+ */
+@Component
+public class GcsMetadataCache {
+
+    @Value("${gcs.metadata-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gcs.metadata-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${gcs.metadata-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${gcs.metadata-cache.negative-ttl-seconds:5}")
+    private long negativeTtlSeconds;
+
+    private Cache<BlobId, Entry> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void initialize() {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(this.maximumSize)
+                .expireAfterWrite(this.ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 켜져 있으면 같은 key 의 동시 조회는 이미 cache 가 하나로 묶는다
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * cache 에 있으면 바로 돌려주고, 없으면 loader 로 GCS 에서 읽어 cache 에 넣는다.
+     *
+     * @return 파일이 없으면 null
+     */
+    public Blob get(BlobId blobId, Function<BlobId, Blob> loader) {
+        BlobId key = key(blobId);
+        if (!this.enabled) {
+            return loader.apply(key);
+        }
+
+        Entry cached = this.cache.getIfPresent(key);
+        if (cached != null) {
+            if (cached.blob != null) {
+                this.hits.increment();
+                return cached.blob;
+            }
+            if (System.nanoTime() - cached.loadedAt < TimeUnit.SECONDS.toNanos(this.negativeTtlSeconds)) {
+                this.negativeHits.increment();
+                return null;
+            }
+            this.cache.asMap().remove(key, cached);
+        }
+
+        try {
+            return this.cache.get(key, () -> {
+                this.misses.increment();
+                return new Entry(loader.apply(key));
+            }).blob;
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 이 서비스에서 새로 만든 blob 으로 cache 를 갱신한다 (write-through).
+     */
+    public void put(Blob blob) {
+        if (this.enabled && blob != null) {
+            this.cache.put(key(blob.getBlobId()), new Entry(blob));
+        }
+    }
+
+    public void invalidate(BlobId blobId) {
+        this.cache.invalidate(key(blobId));
+    }
+
+    public GcsCacheStatsDTO getStats() {
+        GcsCacheStatsDTO stats = new GcsCacheStatsDTO();
+        stats.setHits(this.hits.sum());
+        stats.setNegativeHits(this.negativeHits.sum());
+        stats.setMisses(this.misses.sum());
+        stats.setEvictions(this.cache.stats().evictionCount());
+        stats.setSize(this.cache.size());
+        return stats;
+    }
+
+    private static BlobId key(BlobId blobId) {
+        // generation 과 상관없이 최신 object 를 가리키는 key 로 맞춘다
+        return BlobId.of(blobId.getBucket(), blobId.getName());
+    }
+
+    private static final class Entry {
+        final Blob blob;
+        final long loadedAt = System.nanoTime();
+
+        Entry(Blob blob) {
+            this.blob = blob;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.example;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * GcsService 의 작업과 그 아래 Storage 호출마다 걸린 시간을 Micrometer 로 기록한다 (/actuator/prometheus).
+ *
+ * <pre>
+ * gcs.service.requests    GcsService 작업 (operation, outcome, size)
+ * gcs.storage.calls       Storage method 호출 (method, outcome, size). reader / writer 는 channel 을 여는 시간만 잰다
+ * gcs.transfer.first-byte 전송 시작부터 첫 byte 까지 (direction)
+ * gcs.transfer.duration   전송 전체 (direction, outcome)
+ * gcs.transfer.bytes      주고받은 byte 수 (direction)
+ * gcs.transfers.active    진행 중인 전송 수 (direction)
+ * gcs.hedge.requests      hedge 요청 (operation, result = sent / won / over_budget / rejected)
+ * gcs.coalesced.requests  진행 중인 같은 호출에 붙어서 GCS 를 부르지 않은 요청 (operation)
+ * </pre>
+ */
+@Component
+public class GcsMetrics {
+
+    public static final String UPLOAD = "upload";
+    public static final String DOWNLOAD = "download";
+
+    private static final long KIB = 1024;
+    private static final long MIB = 1024 * KIB;
+
+    /**
+     * 시간을 잴 작업. 던지는 checked exception 을 그대로 전달한다.
+     */
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * Transfer 를 받아 stream 을 감싸는 전송 작업
+     */
+    @FunctionalInterface
+    public interface TransferCall<T, E extends Exception> {
+        T call(Transfer transfer) throws E;
+    }
+
+    private final MeterRegistry registry;
+    private final AtomicInteger activeUploads = new AtomicInteger();
+    private final AtomicInteger activeDownloads = new AtomicInteger();
+
+    public GcsMetrics(ObjectProvider<MeterRegistry> registry) {
+        // Actuator 가 없는 context (benchmarks) 에서는 아무것도 내보내지 않는 global registry 를 쓴다
+        this.registry = registry.getIfAvailable(() -> Metrics.globalRegistry);
+        Gauge.builder("gcs.transfers.active", this.activeUploads, AtomicInteger::get)
+                .description("transfers in progress")
+                .tag("direction", UPLOAD)
+                .register(this.registry);
+        Gauge.builder("gcs.transfers.active", this.activeDownloads, AtomicInteger::get)
+                .description("transfers in progress")
+                .tag("direction", DOWNLOAD)
+                .register(this.registry);
+    }
+
+    /**
+     * call 을 실행하고 gcs.service.requests 에 기록한다.
+     *
+     * @param size 다루는 byte 수 (모르면 -1)
+     */
+    public <T, E extends Exception> T record(String operation, long size, Call<T, E> call) throws E {
+        long started = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.call();
+            outcome = "success";
+            return result;
+        } catch (Exception e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            this.serviceTimer(operation, outcome, size).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * upload / download 를 실행한다. call 안에서 Transfer 로 감싼 stream 을 쓰면 첫 byte 까지의 시간과 byte 수가 기록된다.
+     *
+     * @param size 전송할 byte 수 (모르면 -1, 이 경우 실제로 보낸 byte 수로 size 를 정한다)
+     */
+    public <T, E extends Exception> T transfer(String operation, String direction, long size, TransferCall<T, E> call) throws E {
+        Transfer transfer = new Transfer(direction);
+        String outcome = "error";
+        try {
+            T result = call.call(transfer);
+            outcome = "success";
+            return result;
+        } catch (Exception e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            transfer.finish(operation, outcome, size);
+        }
+    }
+
+    /**
+     * Storage 의 모든 method 호출을 gcs.storage.calls 로 기록하도록 감싼다.
+     */
+    public Storage instrument(Storage storage) {
+        return (Storage) Proxy.newProxyInstance(Storage.class.getClassLoader(), new Class<?>[]{Storage.class}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(storage, args);
+            }
+            long started = System.nanoTime();
+            String outcome = "error";
+            long size = -1;
+            if (args != null) {
+                for (Object arg : args) {
+                    if (arg instanceof byte[]) {
+                        size = ((byte[]) arg).length;
+                    }
+                }
+            }
+            try {
+                Object result = method.invoke(storage, args);
+                if (size < 0 && result instanceof Blob && ((Blob) result).getSize() != null) {
+                    size = ((Blob) result).getSize();
+                }
+                outcome = "success";
+                return result;
+            } catch (InvocationTargetException e) {
+                outcome = outcome(e.getCause());
+                throw e.getCause();
+            } finally {
+                Timer.builder("gcs.storage.calls")
+                        .description("calls to the Storage client")
+                        .tag("method", method.getName())
+                        .tag("outcome", outcome)
+                        .tag("size", sizeBucket(size))
+                        .register(this.registry)
+                        .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    public void hedge(String operation, String result) {
+        Counter.builder("gcs.hedge.requests")
+                .description("hedged read requests")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(this.registry)
+                .increment();
+    }
+
+    public void coalesced(String operation) {
+        Counter.builder("gcs.coalesced.requests")
+                .description("requests served by an identical call already in flight")
+                .tag("operation", operation)
+                .register(this.registry)
+                .increment();
+    }
+
+    private Timer serviceTimer(String operation, String outcome, long size) {
+        return Timer.builder("gcs.service.requests")
+                .description("GcsService operations")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .tag("size", sizeBucket(size))
+                .register(this.registry);
+    }
+
+    static String outcome(Throwable e) {
+        if (e instanceof FileNotFoundException) {
+            return "not_found";
+        }
+        if (e instanceof RejectedExecutionException) {
+            return "rejected";
+        }
+        if (e instanceof StorageException) {
+            int code = ((StorageException) e).getCode();
+            if (code == 404) {
+                return "not_found";
+            }
+            if (code == 429) {
+                return "throttled";
+            }
+            if (code >= 500) {
+                return "server_error";
+            }
+            if (code >= 400) {
+                return "client_error";
+            }
+        }
+        return "error";
+    }
+
+    static String sizeBucket(long size) {
+        if (size < 0) {
+            return "unknown";
+        }
+        if (size < 64 * KIB) {
+            return "0-64KiB";
+        }
+        if (size < MIB) {
+            return "64KiB-1MiB";
+        }
+        if (size < 16 * MIB) {
+            return "1MiB-16MiB";
+        }
+        if (size < 128 * MIB) {
+            return "16MiB-128MiB";
+        }
+        return "128MiB+";
+    }
+
+    /**
+     * 진행 중인 전송 하나. 감싼 stream 으로 오간 byte 수와 첫 byte 시각을 기록한다.
+     */
+    public final class Transfer {
+        private final String direction;
+        private final AtomicInteger active;
+        private final long started = System.nanoTime();
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile boolean firstByte = false;
+
+        private Transfer(String direction) {
+            this.direction = direction;
+            this.active = UPLOAD.equals(direction) ? activeUploads : activeDownloads;
+            this.active.incrementAndGet();
+        }
+
+        /**
+         * stream 밖에서 보낸 byte (composite upload 처럼 다른 thread 에서 읽는 경우)
+         */
+        public void add(long count) {
+            if (count > 0) {
+                this.markFirstByte();
+                this.bytes.addAndGet(count);
+            }
+        }
+
+        public InputStream track(InputStream inputStream) {
+            return new FilterInputStream(inputStream) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        add(1);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    add(n);
+                    return n;
+                }
+            };
+        }
+
+        public OutputStream track(OutputStream outputStream) {
+            return new FilterOutputStream(outputStream) {
+                @Override
+                public void write(int b) throws IOException {
+                    this.out.write(b);
+                    add(1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    this.out.write(b, off, len);
+                    add(len);
+                }
+            };
+        }
+
+        private void markFirstByte() {
+            if (!this.firstByte) {
+                this.firstByte = true;
+                Timer.builder("gcs.transfer.first-byte")
+                        .description("time to the first byte of a transfer")
+                        .tag("direction", this.direction)
+                        .register(registry)
+                        .record(System.nanoTime() - this.started, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void finish(String operation, String outcome, long size) {
+            this.active.decrementAndGet();
+            long elapsed = System.nanoTime() - this.started;
+            long transferred = this.bytes.get();
+            serviceTimer(operation, outcome, size >= 0 ? size : transferred).record(elapsed, TimeUnit.NANOSECONDS);
+            Timer.builder("gcs.transfer.duration")
+                    .description("total time of a transfer")
+                    .tag("direction", this.direction)
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            Counter.builder("gcs.transfer.bytes")
+                    .description("bytes transferred")
+                    .baseUnit("bytes")
+                    .tag("direction", this.direction)
+                    .register(registry)
+                    .increment(transferred);
+        }
+    }
+}
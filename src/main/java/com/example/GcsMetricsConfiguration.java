@@ -0,0 +1,25 @@
+package com.example;
+
+import com.google.cloud.storage.Storage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Storage bean 을 GcsMetrics 로 감싸서, 어디서 부르든 (service, uploader, downloader, lister ...) 모든 GCS 호출이 기록되도록 한다.
+ */
+@Configuration
+public class GcsMetricsConfiguration {
+
+    // BeanPostProcessor 는 다른 bean 보다 먼저 만들어지므로 static 으로 두고 GcsMetrics 는 Storage 를 감쌀 때 꺼낸다
+    @Bean
+    public static BeanPostProcessor gcsStorageMetricsPostProcessor(ObjectProvider<GcsMetrics> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof Storage ? metrics.getObject().instrument((Storage) bean) : bean;
+            }
+        };
+    }
+}
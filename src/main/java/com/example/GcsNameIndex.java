@@ -0,0 +1,240 @@
+package com.example;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.Storage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * bucket 의 object 이름을 정렬된 상태로 메모리에 들고 있는 index.
+ * 시작할 때 GcsParallelLister 의 병렬 listing 으로 채우고, 이 서비스의 upload / delete 로 바로 갱신하며,
+ * 다른 경로로 바뀐 내용은 주기적인 resync 로 따라간다.
+ * listing / paging / 디렉토리 탐색 / prefix 검색을 GCS 호출 없이 처리한다.
+ */
+@Component
+public class GcsNameIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GcsNameIndex.class);
+
+    @Autowired
+    private Storage storage;
+
+    @Autowired
+    private GcsParallelLister parallelLister;
+
+    @Value("${gcs-resource-test-bucket}")
+    private String bucketName;
+
+    @Value("${gcs.index.enabled:false}")
+    private boolean enabled;
+
+    @Value("${gcs.index.resync-interval-seconds:600}")
+    private long resyncIntervalSeconds;
+
+    private volatile ConcurrentSkipListMap<String, GcsIndexEntryDTO> entries = new ConcurrentSkipListMap<>();
+    private volatile boolean ready = false;
+
+    // resync 도중에 들어온 변경 (삭제는 Optional.empty()), 새 index 로 바꿔 끼울 때 다시 적용한다
+    private Map<String, Optional<GcsIndexEntryDTO>> changesDuringResync = null;
+    private final Object lock = new Object();
+
+    private ScheduledExecutorService scheduler;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!this.enabled) {
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "gcs-index-resync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::resyncQuietly, 0, this.resyncIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+    }
+
+    public boolean isReady() {
+        return this.enabled && this.ready;
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    public void put(GcsIndexEntryDTO entry) {
+        if (!this.enabled) {
+            return;
+        }
+        synchronized (this.lock) {
+            this.entries.put(entry.getName(), entry);
+            if (this.changesDuringResync != null) {
+                this.changesDuringResync.put(entry.getName(), Optional.of(entry));
+            }
+        }
+    }
+
+    public void remove(String name) {
+        if (!this.enabled) {
+            return;
+        }
+        synchronized (this.lock) {
+            this.entries.remove(name);
+            if (this.changesDuringResync != null) {
+                this.changesDuringResync.put(name, Optional.empty());
+            }
+        }
+    }
+
+    /**
+     * bucket 전체를 다시 읽어서 index 를 새로 만든 다음 한 번에 바꿔 끼운다.
+     */
+    public void resync() {
+        synchronized (this.lock) {
+            this.changesDuringResync = new ConcurrentHashMap<>();
+        }
+        long started = System.nanoTime();
+        ConcurrentSkipListMap<String, GcsIndexEntryDTO> loaded;
+        try {
+            loaded = this.loadAll();
+        } catch (RuntimeException e) {
+            synchronized (this.lock) {
+                this.changesDuringResync = null;
+            }
+            throw e;
+        }
+        synchronized (this.lock) {
+            for (Map.Entry<String, Optional<GcsIndexEntryDTO>> change : this.changesDuringResync.entrySet()) {
+                if (change.getValue().isPresent()) {
+                    loaded.put(change.getKey(), change.getValue().get());
+                } else {
+                    loaded.remove(change.getKey());
+                }
+            }
+            this.changesDuringResync = null;
+            this.entries = loaded;
+            this.ready = true;
+        }
+        LOG.info("{}", String.format("%d files is indexed from %s bucket in %d ms.",
+                loaded.size(), this.bucketName, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
+    }
+
+    private void resyncQuietly() {
+        try {
+            this.resync();
+        } catch (RuntimeException e) {
+            LOG.warn("index resync is failed.", e);
+        }
+    }
+
+    private ConcurrentSkipListMap<String, GcsIndexEntryDTO> loadAll() {
+        ConcurrentSkipListMap<String, GcsIndexEntryDTO> loaded = new ConcurrentSkipListMap<>();
+        for (Blob blob : this.parallelLister.collect(null, fields())) {
+            loaded.put(blob.getName(), GcsIndexEntryDTO.of(blob));
+        }
+        return loaded;
+    }
+
+    private static Storage.BlobListOption fields() {
+        return Storage.BlobListOption.fields(
+                Storage.BlobField.NAME,
+                Storage.BlobField.SIZE,
+                Storage.BlobField.CONTENT_TYPE,
+                Storage.BlobField.MD5HASH);
+    }
+
+    /**
+     * prefix 아래의 entry 를 offset 부터 limit 개 돌려준다.
+     */
+    public GcsIndexPageDTO listByOffset(String prefix, int offset, int limit) {
+        GcsIndexPageDTO page = new GcsIndexPageDTO();
+        int skipped = 0;
+        for (GcsIndexEntryDTO entry : this.range(prefix).values()) {
+            if (skipped++ < offset) {
+                continue;
+            }
+            if (page.getEntries().size() == limit) {
+                page.setNextCursor(page.getEntries().get(limit - 1).getName());
+                break;
+            }
+            page.getEntries().add(entry);
+        }
+        return page;
+    }
+
+    /**
+     * prefix 아래에서 cursor (직전 page 의 마지막 이름) 다음 entry 를 limit 개 돌려준다.
+     * 중간에 파일이 추가 / 삭제되어도 이미 본 entry 가 다시 나오거나 빠지지 않는다.
+     */
+    public GcsIndexPageDTO listByCursor(String prefix, String cursor, int limit) {
+        NavigableMap<String, GcsIndexEntryDTO> range = this.range(prefix);
+        if (cursor != null && !cursor.isEmpty()) {
+            range = range.tailMap(cursor, false);
+        }
+        GcsIndexPageDTO page = new GcsIndexPageDTO();
+        for (GcsIndexEntryDTO entry : range.values()) {
+            if (page.getEntries().size() == limit) {
+                page.setNextCursor(page.getEntries().get(limit - 1).getName());
+                break;
+            }
+            page.getEntries().add(entry);
+        }
+        return page;
+    }
+
+    /**
+     * prefix 를 디렉토리로 보고 바로 아래의 파일과 하위 디렉토리 목록을 돌려준다.
+     * 하위 디렉토리 하나를 찾으면 그 안은 건너뛰므로 전체 entry 수가 아니라 자식 수에 비례한다.
+     */
+    public GcsIndexPageDTO listDirectory(String prefix) {
+        String base = prefix == null ? "" : prefix;
+        NavigableMap<String, GcsIndexEntryDTO> range = this.range(base);
+        GcsIndexPageDTO page = new GcsIndexPageDTO();
+
+        String name = range.isEmpty() ? null : range.firstKey();
+        while (name != null) {
+            int slash = name.indexOf('/', base.length());
+            if (slash < 0) {
+                GcsIndexEntryDTO entry = range.get(name);
+                if (entry != null) {
+                    page.getEntries().add(entry);
+                }
+                name = range.higherKey(name);
+            } else {
+                String directory = name.substring(0, slash + 1);
+                page.getDirectories().add(directory);
+                name = range.ceilingKey(directory + Character.MAX_VALUE);
+            }
+        }
+        return page;
+    }
+
+    private NavigableMap<String, GcsIndexEntryDTO> range(String prefix) {
+        ConcurrentSkipListMap<String, GcsIndexEntryDTO> current = this.entries;
+        if (prefix == null || prefix.isEmpty()) {
+            return current;
+        }
+        return current.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+}
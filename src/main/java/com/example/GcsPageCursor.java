@@ -0,0 +1,78 @@
+package com.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * /page 의 cursor. prefix, page 크기, GCS page token 을 하나의 불투명한 문자열로 묶어서
+ * 다음 page 를 요청할 때도 첫 page 와 같은 조건으로 조회되도록 한다.
+ */
+public class GcsPageCursor {
+
+    private static final String VERSION = "c1";
+
+    public static final int MAX_ROW_COUNT = 1000;
+
+    final String prefix;
+    final int rowCount;
+    final String pageToken;
+
+    public GcsPageCursor(String prefix, int rowCount, String pageToken) {
+        this.prefix = prefix == null ? "" : prefix;
+        this.rowCount = rowCount;
+        this.pageToken = pageToken;
+    }
+
+    public String encode() {
+        String raw = VERSION + '\n' + this.rowCount + '\n' + (this.pageToken == null ? "" : this.pageToken) + '\n' + this.prefix;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * cursor 를 풀어서 돌려준다. 이전 버전처럼 GCS page token 을 그대로 보낸 경우에는
+     * 요청으로 받은 prefix 와 rowCount 를 그대로 사용한다.
+     *
+     * @param prefix 요청으로 받은 prefix (있으면 cursor 의 prefix 와 같아야 한다)
+     * @throws IllegalArgumentException cursor 의 page 크기가 범위를 벗어났거나 prefix 가 다른 경우
+     */
+    public static GcsPageCursor decode(String cursor, String prefix, int rowCount) {
+        if (cursor == null || cursor.isEmpty()) {
+            return new GcsPageCursor(prefix, rowCount, null);
+        }
+        String[] parts = null;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", 4);
+        } catch (IllegalArgumentException e) {
+            // GCS page token 으로 본다
+        }
+        if (parts == null || parts.length != 4 || !VERSION.equals(parts[0])) {
+            return new GcsPageCursor(prefix, rowCount, cursor);
+        }
+
+        int cursorRowCount;
+        try {
+            cursorRowCount = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("pageToken is not valid.");
+        }
+        if (cursorRowCount <= 0 || cursorRowCount > MAX_ROW_COUNT) {
+            throw new IllegalArgumentException("pageToken is not valid.");
+        }
+        if (prefix != null && !prefix.isEmpty() && !prefix.equals(parts[3])) {
+            throw new IllegalArgumentException("prefix does not match the pageToken.");
+        }
+        return new GcsPageCursor(parts[3], cursorRowCount, parts[2].isEmpty() ? null : parts[2]);
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public String getPageToken() {
+        return pageToken;
+    }
+}
@@ -0,0 +1,370 @@
+package com.example;
+
+import com.google.api.gax.paging.Page;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.Storage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 이름 공간을 겹치지 않는 구간 (shard) 으로 나눠서 동시에 listing 하는 엔진.
+ * page token 은 앞 page 가 있어야 받을 수 있어서 한 번의 listing 은 순차적일 수밖에 없으므로,
+ * 구간을 나눠 구간마다 따로 listing 하고 결과는 구간 순서대로 이어 붙여 사전순을 유지한다.
+ *
+ * 구간은 다음 두 가지 방법으로 나눈다.
+ * - prefixes : currentDirectory() 로 찾은 최상위 디렉토리 하나가 한 구간 (바로 아래 파일은 그대로 사용)
+ * - split-points : 후보 문자마다 startOffset 으로 첫 이름을 찾아 그 이름들을 startOffset / endOffset 경계로 사용
+ * auto 는 디렉토리 목록이 한 page 에 들어오면 prefixes, 아니면 split-points 를 쓴다.
+ */
+@Component
+public class GcsParallelLister {
+
+    private static final Object END = new Object();
+
+    @Autowired
+    private Storage storage;
+
+    @Autowired
+    @Qualifier("gcsListExecutor")
+    private Executor listExecutor;
+
+    @Autowired
+    private GcsCompositeUploader compositeUploader;
+
+    @Value("${gcs-resource-test-bucket}")
+    private String bucketName;
+
+    @Value("${gcs.list.parallel.parallelism:8}")
+    private int parallelism;
+
+    @Value("${gcs.list.parallel.strategy:auto}")
+    private String strategy;
+
+    @Value("${gcs.list.parallel.split-alphabet:0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz}")
+    private String splitAlphabet;
+
+    @Value("${gcs.list.parallel.read-ahead-pages:4}")
+    private int readAheadPages;
+
+    /**
+     * prefix 아래 전체를 병렬로 listing 해서 사전순으로 모아 돌려준다.
+     *
+     * @param options 구간마다 함께 보낼 option (fields, pageSize 등. prefix / offset / currentDirectory 는 넣지 않는다)
+     */
+    public List<Blob> collect(String prefix, Storage.BlobListOption... options) {
+        List<Shard> shards = this.plan(prefix, options);
+        Semaphore permits = new Semaphore(this.parallelism);
+        List<CompletableFuture<List<Blob>>> futures = new ArrayList<>(shards.size());
+
+        for (Shard shard : shards) {
+            if (shard.blob != null) {
+                futures.add(CompletableFuture.completedFuture(Collections.singletonList(shard.blob)));
+                continue;
+            }
+            permits.acquireUninterruptibly();
+            CompletableFuture<List<Blob>> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> this.listShard(shard, options), this.listExecutor);
+            } catch (RejectedExecutionException e) {
+                // executor 가 가득 차면 이 thread 에서 바로 읽는다. permit 은 여기서 한 번만 돌려준다
+                try {
+                    futures.add(CompletableFuture.completedFuture(this.listShard(shard, options)));
+                } finally {
+                    permits.release();
+                }
+                continue;
+            }
+            future.whenComplete((blobs, e) -> permits.release());
+            futures.add(future);
+        }
+
+        List<Blob> blobs = new ArrayList<>();
+        for (CompletableFuture<List<Blob>> future : futures) {
+            blobs.addAll(future.join());
+        }
+        return blobs;
+    }
+
+    /**
+     * prefix 아래 전체를 병렬로 listing 하면서 사전순으로 page 단위로 pageConsumer 에 넘긴다.
+     * 동시에 도는 구간은 parallelism 개, 구간마다 미리 받아두는 page 는 read-ahead-pages 개로 제한된다.
+     *
+     * @return 전체 entry 개수
+     */
+    public long stream(String prefix, Consumer<List<Blob>> pageConsumer, Storage.BlobListOption... options) {
+        List<Shard> shards = this.plan(prefix, options);
+        List<ShardFeed> feeds = new ArrayList<>(shards.size());
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        long count = 0;
+
+        try {
+            for (int i = 0; i < shards.size(); i++) {
+                // 지금 소비하는 구간부터 parallelism 개 구간까지만 미리 돌린다
+                while (feeds.size() < shards.size() && feeds.size() < i + this.parallelism) {
+                    feeds.add(this.start(shards.get(feeds.size()), cancelled, options));
+                }
+                count += this.drain(feeds.get(i), pageConsumer, options);
+                feeds.set(i, null);
+            }
+        } finally {
+            cancelled.set(true);
+        }
+        return count;
+    }
+
+    List<Shard> plan(String prefix, Storage.BlobListOption... options) {
+        String base = prefix == null ? "" : prefix;
+
+        if (!"split-points".equals(this.strategy)) {
+            Page<Blob> page = this.storage.list(this.bucketName, this.withOptions(options,
+                    Storage.BlobListOption.prefix(base), Storage.BlobListOption.currentDirectory()));
+            if ("prefixes".equals(this.strategy) || !page.hasNextPage()) {
+                List<Shard> shards = new ArrayList<>();
+                for (Blob blob : page.iterateAll()) {
+                    // composite upload 의 임시 part 디렉토리는 구간으로 만들지 않는다
+                    if (this.compositeUploader.isTemporary(blob.getName())) {
+                        continue;
+                    }
+                    shards.add(blob.isDirectory() ? Shard.ofPrefix(blob.getName()) : Shard.ofBlob(blob));
+                }
+                // 응답에서 파일과 디렉토리가 따로 오므로 이름 순으로 다시 정렬한다
+                shards.sort((a, b) -> a.key().compareTo(b.key()));
+                return shards;
+            }
+        }
+
+        return this.splitPoints(base);
+    }
+
+    /**
+     * base + 후보 문자 마다 그 이상인 첫 이름을 동시에 찾고, 찾은 이름들을 구간 경계로 쓴다.
+     */
+    private List<Shard> splitPoints(String base) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(this.splitAlphabet.length());
+        for (char c : this.splitAlphabet.toCharArray()) {
+            String candidate = base + c;
+            try {
+                futures.add(CompletableFuture.supplyAsync(() -> this.firstNameFrom(base, candidate), this.listExecutor));
+            } catch (RejectedExecutionException e) {
+                futures.add(CompletableFuture.completedFuture(this.firstNameFrom(base, candidate)));
+            }
+        }
+
+        TreeSet<String> points = new TreeSet<>();
+        for (CompletableFuture<String> future : futures) {
+            String point = future.join();
+            if (point != null) {
+                points.add(point);
+            }
+        }
+
+        List<Shard> shards = new ArrayList<>(points.size() + 1);
+        String start = null;
+        for (String point : points) {
+            shards.add(Shard.ofRange(base, start, point));
+            start = point;
+        }
+        shards.add(Shard.ofRange(base, start, null));
+        return shards;
+    }
+
+    private String firstNameFrom(String base, String startOffset) {
+        Iterator<Blob> it = this.storage.list(this.bucketName,
+                Storage.BlobListOption.prefix(base),
+                Storage.BlobListOption.startOffset(startOffset),
+                Storage.BlobListOption.pageSize(1),
+                Storage.BlobListOption.fields(Storage.BlobField.NAME)).getValues().iterator();
+        return it.hasNext() ? it.next().getName() : null;
+    }
+
+    private List<Blob> listShard(Shard shard, Storage.BlobListOption... options) {
+        List<Blob> blobs = new ArrayList<>();
+        for (Blob blob : this.storage.list(this.bucketName, this.shardOptions(shard, options)).iterateAll()) {
+            if (!this.compositeUploader.isTemporary(blob.getName())) {
+                blobs.add(blob);
+            }
+        }
+        return blobs;
+    }
+
+    private ShardFeed start(Shard shard, AtomicBoolean cancelled, Storage.BlobListOption... options) {
+        if (shard.blob != null) {
+            return ShardFeed.single(shard.blob);
+        }
+        ShardFeed feed = ShardFeed.queued(shard, this.readAheadPages);
+        try {
+            this.listExecutor.execute(() -> this.produce(feed, cancelled, options));
+        } catch (RejectedExecutionException e) {
+            // pool 이 가득 차면 소비하는 thread 에서 순서가 왔을 때 직접 listing 한다
+            return ShardFeed.inline(shard);
+        }
+        return feed;
+    }
+
+    private void produce(ShardFeed feed, AtomicBoolean cancelled, Storage.BlobListOption... options) {
+        try {
+            Page<Blob> page = this.storage.list(this.bucketName, this.shardOptions(feed.shard, options));
+            while (page != null) {
+                if (!feed.offer(this.toList(page), cancelled)) {
+                    return;
+                }
+                page = page.hasNextPage() ? page.getNextPage() : null;
+            }
+            feed.offer(END, cancelled);
+        } catch (RuntimeException e) {
+            feed.offer(e, cancelled);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private long drain(ShardFeed feed, Consumer<List<Blob>> pageConsumer, Storage.BlobListOption... options) {
+        long count = 0;
+        if (feed.inline) {
+            Page<Blob> page = this.storage.list(this.bucketName, this.shardOptions(feed.shard, options));
+            while (page != null) {
+                List<Blob> blobs = this.toList(page);
+                pageConsumer.accept(blobs);
+                count += blobs.size();
+                page = page.hasNextPage() ? page.getNextPage() : null;
+            }
+            return count;
+        }
+
+        while (true) {
+            Object item;
+            try {
+                item = feed.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("listing is interrupted.", e);
+            }
+            if (item == END) {
+                return count;
+            }
+            if (item instanceof RuntimeException) {
+                throw (RuntimeException) item;
+            }
+            List<Blob> blobs = (List<Blob>) item;
+            pageConsumer.accept(blobs);
+            count += blobs.size();
+        }
+    }
+
+    private List<Blob> toList(Page<Blob> page) {
+        List<Blob> blobs = new ArrayList<>();
+        for (Blob blob : page.getValues()) {
+            if (!this.compositeUploader.isTemporary(blob.getName())) {
+                blobs.add(blob);
+            }
+        }
+        return blobs;
+    }
+
+    private Storage.BlobListOption[] shardOptions(Shard shard, Storage.BlobListOption... options) {
+        List<Storage.BlobListOption> shardOptions = new ArrayList<>();
+        if (!shard.prefix.isEmpty()) {
+            shardOptions.add(Storage.BlobListOption.prefix(shard.prefix));
+        }
+        if (shard.startOffset != null) {
+            shardOptions.add(Storage.BlobListOption.startOffset(shard.startOffset));
+        }
+        if (shard.endOffset != null) {
+            shardOptions.add(Storage.BlobListOption.endOffset(shard.endOffset));
+        }
+        return this.withOptions(options, shardOptions.toArray(new Storage.BlobListOption[0]));
+    }
+
+    private Storage.BlobListOption[] withOptions(Storage.BlobListOption[] options, Storage.BlobListOption... extra) {
+        List<Storage.BlobListOption> merged = new ArrayList<>(Arrays.asList(options));
+        merged.addAll(Arrays.asList(extra));
+        return merged.toArray(new Storage.BlobListOption[0]);
+    }
+
+    static final class Shard {
+        final String prefix;
+        final String startOffset;
+        final String endOffset;
+        final Blob blob;
+
+        private Shard(String prefix, String startOffset, String endOffset, Blob blob) {
+            this.prefix = prefix;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.blob = blob;
+        }
+
+        static Shard ofPrefix(String prefix) {
+            return new Shard(prefix, null, null, null);
+        }
+
+        static Shard ofRange(String prefix, String startOffset, String endOffset) {
+            return new Shard(prefix, startOffset, endOffset, null);
+        }
+
+        static Shard ofBlob(Blob blob) {
+            return new Shard(blob.getName(), null, null, blob);
+        }
+
+        String key() {
+            return this.startOffset != null ? this.startOffset : this.prefix;
+        }
+    }
+
+    private static final class ShardFeed {
+        final Shard shard;
+        final BlockingQueue<Object> queue;
+        final boolean inline;
+
+        private ShardFeed(Shard shard, BlockingQueue<Object> queue, boolean inline) {
+            this.shard = shard;
+            this.queue = queue;
+            this.inline = inline;
+        }
+
+        static ShardFeed single(Blob blob) {
+            BlockingQueue<Object> queue = new ArrayBlockingQueue<>(2);
+            queue.add(Collections.singletonList(blob));
+            queue.add(END);
+            return new ShardFeed(null, queue, false);
+        }
+
+        static ShardFeed queued(Shard shard, int capacity) {
+            return new ShardFeed(shard, new ArrayBlockingQueue<>(Math.max(1, capacity)), false);
+        }
+
+        static ShardFeed inline(Shard shard) {
+            return new ShardFeed(shard, null, true);
+        }
+
+        boolean offer(Object item, AtomicBoolean cancelled) {
+            try {
+                while (!cancelled.get()) {
+                    if (this.queue.offer(item, 1, TimeUnit.SECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+}
@@ -1,166 +1,831 @@
 package com.example;
 
 import com.google.api.gax.paging.Page;
+import com.google.cloud.ReadChannel;
+import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.*;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
+import com.google.common.io.ByteStreams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.PostConstruct;
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
-import java.nio.file.Paths;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 @Service
 public class GcsService {
 
     private static final Logger LOG = LoggerFactory.getLogger(GcsService.class);
 
+    // listing 응답에 담는 필드만 GCS 에 요청한다 (bucket 과 name 은 항상 포함된다)
+    private static final Storage.BlobField[] LIST_FIELDS = {
+            Storage.BlobField.NAME,
+            Storage.BlobField.CONTENT_TYPE,
+            Storage.BlobField.MD5HASH,
+            Storage.BlobField.CUSTOM_TIME
+    };
+
+    // 단건 조회는 download / signed URL 에서 쓰는 필드까지 요청한다
+    private static final Storage.BlobField[] GET_FIELDS = {
+            Storage.BlobField.NAME,
+            Storage.BlobField.GENERATION,
+            Storage.BlobField.SIZE,
+            Storage.BlobField.CONTENT_TYPE,
+            Storage.BlobField.MD5HASH,
+            Storage.BlobField.CRC32C,
+            Storage.BlobField.UPDATED,
+            Storage.BlobField.CONTENT_ENCODING,
+            Storage.BlobField.METADATA,
+            Storage.BlobField.CUSTOM_TIME
+    };
+
     @Autowired
     private Storage storage;
 
+    @Autowired
+    private GcsMetadataCache metadataCache;
+
+    @Autowired
+    private GcsSignedUrlCache signedUrlCache;
+
+    @Autowired
+    private GcsNameIndex nameIndex;
+
+    @Autowired
+    private GcsParallelLister parallelLister;
+
+    @Autowired
+    private GcsDownloadCache downloadCache;
+
+    @Autowired
+    private GcsCompositeUploader compositeUploader;
+
+    @Autowired
+    private GcsSlicedDownloader slicedDownloader;
+
+    @Autowired
+    private GcsCompressionPolicy compressionPolicy;
+
+    @Autowired
+    private GcsArchiveStreamer archiveStreamer;
+
+    @Autowired
+    private GcsMetrics metrics;
+
+    @Autowired
+    private GcsHedgedReader hedgedReader;
+
+    @Autowired
+    private GcsSingleFlight singleFlight;
+
+    @Autowired
+    @Qualifier("gcsUploadExecutor")
+    private Executor uploadExecutor;
+
+    @Autowired
+    @Qualifier("gcsBatchExecutor")
+    private Executor batchExecutor;
+
+    @Autowired
+    @Qualifier("gcsSignExecutor")
+    private Executor signExecutor;
+
+    @Autowired
+    @Qualifier("gcsListExecutor")
+    private Executor listExecutor;
+
     @Value("${gcs-resource-test-bucket}")
     private String bucketName;
 
+    @Value("${gcs.upload.multi.max-concurrency-per-request:4}")
+    private int multiUploadConcurrencyPerRequest;
+
+    @Value("${gcs.upload.stream.chunk-size:8388608}")
+    private int streamUploadChunkSize;
+
+    @Value("${gcs.delete.batch-size:100}")
+    private int deleteBatchSize;
+
+    @Value("${gcs.delete.max-concurrent-batches:8}")
+    private int deleteMaxConcurrentBatches;
+
+    @Value("${gcs.signed-url.default-expiry-seconds:300}")
+    private long signedUrlDefaultExpirySeconds;
+
+    @Value("${gcs.page.prefetch.enabled:true}")
+    private boolean pagePrefetchEnabled;
+
+    @Value("${gcs.page.prefetch.ttl-seconds:30}")
+    private long pagePrefetchTtlSeconds;
+
+    @Value("${gcs.page.prefetch.maximum-size:1000}")
+    private long pagePrefetchMaximumSize;
+
+    // cursor 별로 미리 읽어둔 다음 page
+    private Cache<String, CompletableFuture<GCSPagedFileListDTO>> prefetchedPages;
+
+    @Value("${gcs.download.chunk-size:2097152}")
+    private int downloadChunkSize;
+
+    @Value("${gcs.download.buffer-size:65536}")
+    private int downloadBufferSize;
+
     @PostConstruct
     public void initialize() {
         String bName = System.getenv().get("GOOGLE_APPLICATION_CREDENTIALS");
         LOG.info("{}", bName);
+
+        this.prefetchedPages = CacheBuilder.newBuilder()
+                .maximumSize(this.pagePrefetchMaximumSize)
+                .expireAfterWrite(this.pagePrefetchTtlSeconds, TimeUnit.SECONDS)
+                .build();
     }
 
     public BlobInfo uploadFileToGCS(MultipartFile file) throws IOException {
-        BlobId blobId = BlobId.of(this.bucketName, file.getOriginalFilename());
-        BlobInfo blobInfo = BlobInfo
-                .newBuilder(blobId)
-                .setContentType(file.getContentType())
-                .build();
-        this.storage.createFrom(blobInfo, file.getInputStream());
-        return blobInfo;
+        return this.metrics.transfer("upload", GcsMetrics.UPLOAD, file.getSize(), transfer -> {
+            BlobId blobId = BlobId.of(this.bucketName, file.getOriginalFilename());
+            BlobInfo blobInfo = BlobInfo
+                    .newBuilder(blobId)
+                    .setContentType(file.getContentType())
+                    .build();
+            Blob blob;
+            if (this.compressionPolicy.shouldCompress(blobId.getName(), file.getContentType(), file.getSize())) {
+                // 압축하면 크기를 미리 알 수 없어서 composite upload 대신 하나의 stream 으로 올린다
+                blob = this.uploadCompressedToGCS(blobInfo, transfer.track(file.getInputStream()), file.getSize());
+            } else if (this.compositeUploader.accepts(file.getSize())) {
+                // part 들은 여러 thread 에서 따로 읽으므로 다 올린 다음 크기만 더한다
+                blob = this.compositeUploader.upload(blobInfo, file, file.getSize());
+                transfer.add(file.getSize());
+            } else {
+                blob = this.storage.createFrom(blobInfo, transfer.track(file.getInputStream()));
+            }
+            this.metadataCache.put(blob);
+            this.nameIndex.put(GcsIndexEntryDTO.of(blob));
+            this.invalidatePrefetchedPages();
+            return blobInfo;
+        });
+    }
+
+    /**
+     * multipart 를 미리 spool 하지 않고 들어오는 part 의 stream 을 WriteChannel 로 바로 흘려보낸다.
+     * 메모리 사용량은 chunk-size 로 제한되고, client 전송과 GCS 전송이 겹쳐서 진행된다.
+     * 중간에 끊기면 resumable upload 를 끝내지 않고 버리므로 같은 이름의 기존 object 는 그대로 남는다.
+     */
+    public BlobInfo uploadStreamToGCS(String fileName, String contentType, InputStream inputStream) throws IOException {
+        return this.metrics.transfer("upload_stream", GcsMetrics.UPLOAD, -1, transfer -> {
+            BlobId blobId = BlobId.of(this.bucketName, fileName);
+            BlobInfo blobInfo = BlobInfo
+                    .newBuilder(blobId)
+                    .setContentType(contentType)
+                    .build();
+            InputStream tracked = transfer.track(inputStream);
+            if (this.compressionPolicy.shouldCompress(fileName, contentType, -1)) {
+                return this.toBlobInfo(this.uploadCompressedToGCS(blobInfo, tracked, -1));
+            }
+            // 다 받은 다음에만 WriteChannel 을 닫는다. 중간에 실패해서 닫으면 받은 데까지로 기존 object 가 바뀌기 때문이다
+            WriteChannel writer = this.storage.writer(blobInfo);
+            writer.setChunkSize(this.streamUploadChunkSize);
+            long size;
+            try {
+                size = ByteStreams.copy(Channels.newChannel(tracked), writer);
+                writer.close();
+            } finally {
+                this.metadataCache.invalidate(blobId);
+            }
+            this.invalidatePrefetchedPages();
+            // md5 는 WriteChannel 로는 알 수 없으니 다음 resync 때 채워진다
+            this.nameIndex.put(new GcsIndexEntryDTO(fileName, size, contentType, null));
+            return blobInfo;
+        });
     }
 
-    public List<BlobInfo> uploadMultiFileToGCS(List<MultipartFile> files) throws IOException {
-        List<BlobInfo> blobInfoList = new LinkedList<>();
-        for (ListIterator<MultipartFile> it = files.listIterator(); it.hasNext(); ) {
-            MultipartFile file = it.next();
-            blobInfoList.add(this.uploadFileToGCS(file));
+    /**
+     * inputStream 을 gzip 으로 압축하면서 WriteChannel 로 올린다 (Content-Encoding: gzip, metadata 에 원래 크기).
+     * 중간에 실패하면 WriteChannel 을 닫지 않는다. 닫으면 받은 데까지로 object 가 만들어지기 때문이다.
+     *
+     * @param size 원래 크기 (모르면 -1, 이 경우 다 올린 다음 metadata 를 따로 갱신한다)
+     */
+    private Blob uploadCompressedToGCS(BlobInfo blobInfo, InputStream inputStream, long size) throws IOException {
+        BlobInfo.Builder builder = blobInfo.toBuilder().setContentEncoding(GcsCompressionPolicy.GZIP);
+        if (size >= 0) {
+            builder.setMetadata(Collections.singletonMap(GcsCompressionPolicy.ORIGINAL_SIZE_METADATA, String.valueOf(size)));
+        }
+        BlobInfo compressedInfo = builder.build();
+        BlobId blobId = compressedInfo.getBlobId();
+
+        WriteChannel writer = this.storage.writer(compressedInfo);
+        writer.setChunkSize(this.streamUploadChunkSize);
+        long originalSize;
+        try {
+            OutputStream gzip = this.compressionPolicy.gzip(Channels.newOutputStream(writer));
+            originalSize = ByteStreams.copy(inputStream, gzip);
+            // gzip trailer 를 쓰고 WriteChannel 을 닫아 upload 를 마친다
+            gzip.close();
+        } finally {
+            this.metadataCache.invalidate(blobId);
+        }
+
+        Blob blob = size >= 0
+                ? this.storage.get(blobId)
+                : this.storage.update(BlobInfo.newBuilder(blobId)
+                .setMetadata(Collections.singletonMap(GcsCompressionPolicy.ORIGINAL_SIZE_METADATA, String.valueOf(originalSize)))
+                .build());
+        LOG.info("{}", String.format("%s is uploaded with gzip (%d -> %d bytes).", blobId.getName(), originalSize, blob.getSize()));
+        if (size < 0) {
+            this.nameIndex.put(GcsIndexEntryDTO.of(blob));
+        }
+        this.invalidatePrefetchedPages();
+        return blob;
+    }
+
+    /**
+     * 여러 파일을 uploadExecutor 에서 동시에 업로드한다.
+     * 한 요청이 pool 을 독점하지 않도록 요청당 동시 업로드 수를 제한하고,
+     * 결과는 입력 순서대로 파일별 성공/실패를 담아 돌려준다 (하나가 실패해도 나머지는 계속 진행).
+     */
+    public List<GcsUploadResultDTO> uploadMultiFileToGCS(List<MultipartFile> files) {
+        long size = 0;
+        for (MultipartFile file : files) {
+            size += file.getSize();
+        }
+        return this.metrics.record("upload_multi", size, () -> this.uploadFilesToGCS(files));
+    }
+
+    private List<GcsUploadResultDTO> uploadFilesToGCS(List<MultipartFile> files) {
+        Semaphore permits = new Semaphore(this.multiUploadConcurrencyPerRequest);
+        List<CompletableFuture<GcsUploadResultDTO>> futures = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            permits.acquireUninterruptibly();
+            CompletableFuture<GcsUploadResultDTO> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> this.uploadFileQuietly(file), this.uploadExecutor);
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+            future.whenComplete((result, e) -> permits.release());
+            futures.add(future);
+        }
+
+        List<GcsUploadResultDTO> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<GcsUploadResultDTO> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    private GcsUploadResultDTO uploadFileQuietly(MultipartFile file) {
+        try {
+            return GcsUploadResultDTO.success(file.getOriginalFilename(), this.uploadFileToGCS(file));
+        } catch (Exception e) {
+            LOG.warn("{} upload is failed.", file.getOriginalFilename(), e);
+            return GcsUploadResultDTO.failure(file.getOriginalFilename(), e.getMessage());
         }
-        return blobInfoList;
     }
 
     public boolean deleteFileFromGCS(String fileName) throws IOException {
 
         LOG.info("{} will be deleted.", fileName);
 
-        BlobId blobId = BlobId.of(this.bucketName, fileName);
-        Blob blob = this.storage.get(blobId);
+        return this.metrics.record("delete", -1, () -> {
+            BlobId blobId = BlobId.of(this.bucketName, fileName);
+            Blob blob = this.lookupBlob(blobId);
 
-        if (blob == null) {
-            throw new FileNotFoundException(String.format("%s is not existed in GCS.", fileName));
+            if (blob == null) {
+                throw new FileNotFoundException(String.format("%s is not existed in GCS.", fileName));
+            }
+
+            try {
+                return this.storage.delete(blobId);
+            } finally {
+                this.metadataCache.invalidate(blobId);
+                this.nameIndex.remove(fileName);
+                this.invalidatePrefetchedPages();
+            }
+        });
+    }
+
+    /**
+     * prefix 아래의 모든 파일을 batch 삭제한다. 목록은 이름만 받아오면서 page 단위로 바로 batch 에 흘려보낸다.
+     */
+    public GcsBulkDeleteSummaryDTO deleteFilesByPrefixFromGCS(String prefix,
+                                                              BiConsumer<List<GcsDeleteResultDTO>, GcsBulkDeleteSummaryDTO> listener) {
+        if (prefix == null || prefix.isEmpty()) {
+            throw new IllegalArgumentException("prefix is required for delete-by-prefix.");
+        }
+        Page<Blob> blobs = this.storage.list(
+                this.bucketName,
+                Storage.BlobListOption.prefix(prefix),
+                Storage.BlobListOption.fields(Storage.BlobField.NAME)
+        );
+        // 진행 중인 composite upload 의 임시 part 는 uploader 가 정리하므로 건드리지 않는다
+        Iterable<String> fileNames = Iterables.filter(Iterables.transform(blobs.iterateAll(), Blob::getName),
+                name -> !this.compositeUploader.isTemporary(name));
+        return this.deleteFilesFromGCS(fileNames, listener);
+    }
+
+    /**
+     * 파일들을 batch-size 개씩 묶어 StorageBatch 로 삭제한다.
+     * 존재 여부를 미리 확인하지 않고 (없는 파일은 deleted=false 로 보고), 최대 max-concurrent-batches 개의 batch 를 동시에 보낸다.
+     * batch 가 끝날 때마다 파일별 결과와 누적 진행 상황을 listener 로 넘긴다 (listener 호출은 직렬화된다).
+     */
+    public GcsBulkDeleteSummaryDTO deleteFilesFromGCS(Iterable<String> fileNames,
+                                                      BiConsumer<List<GcsDeleteResultDTO>, GcsBulkDeleteSummaryDTO> listener) {
+        GcsBulkDeleteSummaryDTO summary = new GcsBulkDeleteSummaryDTO();
+        Semaphore permits = new Semaphore(this.deleteMaxConcurrentBatches);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        List<String> chunk = new ArrayList<>(this.deleteBatchSize);
+        for (Iterator<String> it = fileNames.iterator(); it.hasNext() && failure.get() == null; ) {
+            chunk.add(it.next());
+            if (chunk.size() == this.deleteBatchSize || !it.hasNext()) {
+                List<String> batchNames = chunk;
+                chunk = new ArrayList<>(this.deleteBatchSize);
+
+                permits.acquireUninterruptibly();
+                CompletableFuture<Void> future;
+                try {
+                    future = CompletableFuture.runAsync(() -> {
+                        List<GcsDeleteResultDTO> results = this.deleteBatchFromGCS(batchNames);
+                        synchronized (summary) {
+                            summary.add(results);
+                            listener.accept(results, summary.copy());
+                        }
+                    }, this.batchExecutor);
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    throw e;
+                }
+                future.whenComplete((v, e) -> {
+                    permits.release();
+                    if (e != null) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+                futures.add(future);
+            }
         }
 
-        return this.storage.delete(blobId);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        synchronized (summary) {
+            summary.setDone(true);
+            return summary.copy();
+        }
     }
 
-    public BlobInfo getBlobInfoFromGCS(String fileName) throws IOException {
-        BlobId blobId = BlobId.of(this.bucketName, fileName);
-        Blob blob = this.storage.get(blobId);
-        if (blob == null) {
-            throw new FileNotFoundException(String.format("%s is not existed in GCS.", fileName));
+    private List<GcsDeleteResultDTO> deleteBatchFromGCS(List<String> fileNames) {
+        return this.metrics.record("delete_batch", -1, () -> this.submitDeleteBatch(fileNames));
+    }
+
+    private List<GcsDeleteResultDTO> submitDeleteBatch(List<String> fileNames) {
+        StorageBatch batch = this.storage.batch();
+        List<StorageBatchResult<Boolean>> batchResults = new ArrayList<>(fileNames.size());
+        for (String fileName : fileNames) {
+            BlobId blobId = BlobId.of(this.bucketName, fileName);
+            this.metadataCache.invalidate(blobId);
+            batchResults.add(batch.delete(blobId));
+        }
+        batch.submit();
+        this.invalidatePrefetchedPages();
+
+        List<GcsDeleteResultDTO> results = new ArrayList<>(fileNames.size());
+        for (int i = 0; i < fileNames.size(); i++) {
+            String fileName = fileNames.get(i);
+            try {
+                boolean deleted = batchResults.get(i).get();
+                this.nameIndex.remove(fileName);
+                results.add(new GcsDeleteResultDTO(fileName, deleted, deleted ? null : "not existed in GCS."));
+            } catch (StorageException e) {
+                results.add(new GcsDeleteResultDTO(fileName, false, e.getMessage()));
+            }
         }
+        return results;
+    }
+
+    public BlobInfo getBlobInfoFromGCS(String fileName) throws IOException {
+        return this.getBlobInfoFromGCS(this.getBlobFromGCS(fileName));
+    }
+
+    public BlobInfo getBlobInfoFromGCS(Blob blob) {
         BlobInfo blobInfo = BlobInfo
                 .newBuilder(blob.getBlobId())
                 .setContentType(blob.getContentType())
+                .setContentEncoding(blob.getContentEncoding())
                 .setCustomTime(blob.getCustomTime())
                 .setMd5(blob.getMd5())
+                .setMetadata(blob.getMetadata())
                 .build();
 
-        LOG.info("{}", blobInfo);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("{}", blobInfo);
+        }
 
         return blobInfo;
     }
 
     public List<BlobInfo> getWholeBlobInfoFromGCS() throws IOException {
-        Page<Blob> blobs = this.storage.list(this.bucketName);
-        List<BlobInfo> blobList = new LinkedList<>();
-        for (Blob blob : blobs.iterateAll()) {
-            blobList.add(
-                    BlobInfo.newBuilder(blob.getBlobId())
-                            .setContentType(blob.getContentType())
-                            .setMd5(blob.getMd5())
-                            .setCustomTime(blob.getCustomTime())
-                            .build());
+        // 구간을 나눠 동시에 listing 해도 결과는 사전순으로 이어 붙여진다
+        List<Blob> blobs = this.metrics.record("list", -1,
+                () -> this.parallelLister.collect(null, Storage.BlobListOption.fields(LIST_FIELDS)));
+        List<BlobInfo> blobList = new ArrayList<>(blobs.size());
+        for (Blob blob : blobs) {
+            blobList.add(this.toBlobInfo(blob));
         }
         LOG.info("{}", String.format("%d files is existed in %s bucket.", blobList.size(), this.bucketName));
 
         return blobList;
     }
 
+    /**
+     * getWholeBlobInfoFromGCS 와 같은 목록을 BlobInfo 로 복사하지 않고 바로 필드별 배열에 담는다.
+     */
+    public GcsFileListColumnsDTO getWholeFileColumnsFromGCS() {
+        List<Blob> blobs = this.metrics.record("list", -1,
+                () -> this.parallelLister.collect(null, Storage.BlobListOption.fields(LIST_FIELDS)));
+        GcsFileListColumnsDTO columns = new GcsFileListColumnsDTO(blobs.size());
+        for (int i = 0; i < blobs.size(); i++) {
+            columns.set(i, blobs.get(i));
+        }
+        return columns;
+    }
+
+    /**
+     * 목록을 GCS 가 돌려주는 page 단위로 pageConsumer 에 넘긴다.
+     * 한 번에 한 page 만 들고 있으므로 bucket 크기와 상관없이 메모리 사용량이 일정하다.
+     * currentDirectory 가 아니면 GcsParallelLister 로 구간을 나눠 동시에 읽되 순서는 사전순 그대로 넘긴다.
+     *
+     * @param prefix 조회할 prefix (null 이면 bucket 전체)
+     * @param currentDirectory true 이면 '/' 를 delimiter 로 써서 바로 아래 단계만 조회 (하위 디렉토리는 prefix 로 나온다)
+     * @return 전체 entry 개수
+     */
+    public long listBlobInfoPagesFromGCS(String prefix, boolean currentDirectory, Consumer<List<BlobInfo>> pageConsumer) {
+        return this.metrics.record("list_stream", -1, () -> this.listPagesFromGCS(prefix, currentDirectory, pageConsumer));
+    }
+
+    private long listPagesFromGCS(String prefix, boolean currentDirectory, Consumer<List<BlobInfo>> pageConsumer) {
+        if (!currentDirectory) {
+            return this.parallelLister.stream(prefix, blobs -> {
+                List<BlobInfo> blobList = new ArrayList<>(blobs.size());
+                for (Blob blob : blobs) {
+                    blobList.add(this.toBlobInfo(blob));
+                }
+                pageConsumer.accept(blobList);
+            }, Storage.BlobListOption.fields(LIST_FIELDS));
+        }
+
+        List<Storage.BlobListOption> options = new ArrayList<>();
+        if (prefix != null && !prefix.isEmpty()) {
+            options.add(Storage.BlobListOption.prefix(prefix));
+        }
+        options.add(Storage.BlobListOption.currentDirectory());
+        options.add(Storage.BlobListOption.fields(LIST_FIELDS));
+
+        long count = 0;
+        Page<Blob> page = this.storage.list(this.bucketName, options.toArray(new Storage.BlobListOption[0]));
+        while (page != null) {
+            List<BlobInfo> blobList = new ArrayList<>();
+            for (Blob blob : page.getValues()) {
+                if (!this.compositeUploader.isTemporary(blob.getName())) {
+                    blobList.add(this.toBlobInfo(blob));
+                }
+            }
+            count += blobList.size();
+            pageConsumer.accept(blobList);
+            page = page.hasNextPage() ? page.getNextPage() : null;
+        }
+        return count;
+    }
+
+    public GcsFileListColumnsDTO getPagedFileColumnsFromGCS(String cursor, String prefix, int rowCount) {
+        GCSPagedFileListDTO paged = this.getPagedFileListFromGCS(cursor, prefix, rowCount);
+        return GcsFileListColumnsDTO.of(paged.getBlobList(), paged.getPageToken());
+    }
+
     public GCSPagedFileListDTO getPagedFileListFromGCS(String pageToken, int rowCount) {
-        List<BlobInfo> blobList = new LinkedList<>();
-        Page<Blob> blobs = null;
-        if (pageToken != null && !pageToken.isEmpty()) {
-            blobs = this.storage.list(
-                    this.bucketName,
-                    Storage.BlobListOption.pageSize(rowCount),
-                    //Storage.BlobListOption.currentDirectory(),
-                    Storage.BlobListOption.pageToken(pageToken)
-            );
-        } else {
-            blobs = this.storage.list(
-                    this.bucketName,
-                    //Storage.BlobListOption.pageSize(rowCount),
-                    Storage.BlobListOption.currentDirectory()
-            );
+        return this.getPagedFileListFromGCS(pageToken, null, rowCount);
+    }
+
+    /**
+     * cursor 기준으로 한 page 를 조회한다. 모든 page 에서 prefix 와 rowCount 를 그대로 적용하고,
+     * 응답한 다음에는 다음 page 를 listExecutor 에서 미리 읽어서 짧은 시간 동안 들고 있는다.
+     * 순서대로 넘겨보는 경우 다음 요청은 대부분 메모리에서 바로 응답된다.
+     *
+     * @param cursor 직전 응답의 pageToken (첫 page 는 null)
+     * @param prefix 첫 page 의 조회 조건 (이후에는 cursor 에 들어있는 값을 쓴다)
+     * @param rowCount 첫 page 의 page 크기 (이후에는 cursor 에 들어있는 값을 쓴다)
+     */
+    public GCSPagedFileListDTO getPagedFileListFromGCS(String cursor, String prefix, int rowCount) {
+        GcsPageCursor pageCursor = GcsPageCursor.decode(cursor, prefix, rowCount);
+        String key = pageCursor.encode();
+
+        GCSPagedFileListDTO paged = null;
+        CompletableFuture<GCSPagedFileListDTO> prefetched = this.prefetchedPages.getIfPresent(key);
+        if (prefetched != null) {
+            try {
+                paged = prefetched.join();
+            } catch (CompletionException | CancellationException e) {
+                this.prefetchedPages.invalidate(key);
+            }
+        }
+        if (paged == null) {
+            paged = this.metrics.record("list_page", -1, () -> this.fetchPage(pageCursor));
+        }
+
+        if (this.pagePrefetchEnabled && paged.getPageToken() != null) {
+            this.prefetchPage(paged.getPageToken());
+        }
+        return paged;
+    }
+
+    /**
+     * object 를 만들거나 지운 다음 호출한다. 미리 읽어둔 다음 page 에 새 object 가 빠져 있거나 지운 object 가 남아있지 않도록 버린다.
+     */
+    public void invalidatePrefetchedPages() {
+        this.prefetchedPages.invalidateAll();
+    }
+
+    private void prefetchPage(String cursor) {
+        try {
+            this.prefetchedPages.asMap().computeIfAbsent(cursor, key -> CompletableFuture.supplyAsync(
+                    () -> this.fetchPage(GcsPageCursor.decode(key, null, 0)), this.listExecutor));
+        } catch (RejectedExecutionException e) {
+            LOG.debug("next page prefetch is skipped, list executor is busy.");
         }
+    }
 
-        for (Iterator<Blob> ir = blobs.getValues().iterator(); ir.hasNext();) {
-            Blob blob = ir.next();
-            blobList.add(
-                    BlobInfo.newBuilder(blob.getBlobId())
-                            .setContentType(blob.getContentType())
-                            .setMd5(blob.getMd5())
-                            .setCustomTime(blob.getCustomTime())
-                            .build());
+    private GCSPagedFileListDTO fetchPage(GcsPageCursor cursor) {
+        List<Storage.BlobListOption> options = new ArrayList<>();
+        options.add(Storage.BlobListOption.pageSize(cursor.getRowCount()));
+        options.add(Storage.BlobListOption.fields(LIST_FIELDS));
+        if (!cursor.getPrefix().isEmpty()) {
+            options.add(Storage.BlobListOption.prefix(cursor.getPrefix()));
+        }
+        if (cursor.getPageToken() != null) {
+            options.add(Storage.BlobListOption.pageToken(cursor.getPageToken()));
         }
+        Page<Blob> blobs = this.hedgedReader.read("list_page",
+                () -> this.storage.list(this.bucketName, options.toArray(new Storage.BlobListOption[0])));
 
+        List<BlobInfo> blobList = new ArrayList<>();
+        for (Blob blob : blobs.getValues()) {
+            // composite upload 의 임시 part 는 빼므로 page 가 rowCount 보다 짧을 수 있다
+            if (!this.compositeUploader.isTemporary(blob.getName())) {
+                blobList.add(this.toBlobInfo(blob));
+            }
+        }
+
+        String nextPageToken = blobs.getNextPageToken();
         GCSPagedFileListDTO paged = new GCSPagedFileListDTO();
-        paged.setPageToken(blobs.getNextPageToken());
+        paged.setPageToken(nextPageToken == null || nextPageToken.isEmpty()
+                ? null
+                : new GcsPageCursor(cursor.getPrefix(), cursor.getRowCount(), nextPageToken).encode());
         paged.setBlobList(blobList);
 
         return paged;
     }
 
     public URL getSignedURL(String fileName) throws IOException {
+        GcsSignedUrlDTO signed = this.getSignedURL(fileName, this.signedUrlDefaultExpirySeconds);
+        return signed == null ? null : signed.getUrl();
+    }
+
+    /**
+     * 파일이 존재하면 expirySeconds 동안 유효한 V4 signed URL 을 돌려준다 (없으면 null).
+     * 같은 파일, 같은 만료 시간으로 최근에 서명한 URL 이 있으면 다시 서명하지 않고 재사용한다.
+     */
+    public GcsSignedUrlDTO getSignedURL(String fileName, long expirySeconds) {
         BlobId blobId = BlobId.of(this.bucketName, fileName);
 
-        Blob blob = this.storage.get((blobId));
+        Blob blob = this.lookupBlob(blobId);
 
         if (blob == null) {
             return null;
         }
 
-        return this.storage.signUrl(
-                BlobInfo.newBuilder(blobId).build(),
-                5*60,
-                TimeUnit.SECONDS,
-                Storage.SignUrlOption.withV4Signature()
-                );
+        return this.signedUrlCache.get(fileName, expirySeconds, () -> this.singleFlight.execute("sign_url", fileName + '\n' + expirySeconds,
+                () -> this.metrics.record("sign_url", -1, () -> this.storage.signUrl(
+                        BlobInfo.newBuilder(blobId).build(),
+                        expirySeconds,
+                        TimeUnit.SECONDS,
+                        Storage.SignUrlOption.withV4Signature()
+                ))));
     }
 
-    public File downloadFile(String fileName) {
-        BlobId blobId = BlobId.of(this.bucketName, fileName);
-        Blob blob = this.storage.get(blobId);
+    /**
+     * 여러 파일의 signed URL 을 signExecutor 에서 동시에 만든다.
+     * 결과는 입력 순서대로이고, 없는 파일은 url 이 null 이다.
+     */
+    public List<GcsSignedUrlDTO> getSignedURLs(List<String> fileNames, long expirySeconds) {
+        List<CompletableFuture<GcsSignedUrlDTO>> futures = new ArrayList<>(fileNames.size());
+        for (String fileName : fileNames) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                GcsSignedUrlDTO signed = this.getSignedURL(fileName, expirySeconds);
+                return signed != null ? signed : new GcsSignedUrlDTO(fileName, null, null);
+            }, this.signExecutor));
+        }
 
-        File f = new File(String.format("./%s", fileName));
-        blob.downloadTo(Paths.get(f.toURI()));
+        List<GcsSignedUrlDTO> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<GcsSignedUrlDTO> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
 
-        return f;
+    public long getSignedUrlDefaultExpirySeconds() {
+        return this.signedUrlDefaultExpirySeconds;
+    }
+
+    private BlobInfo toBlobInfo(Blob blob) {
+        return BlobInfo.newBuilder(blob.getBlobId())
+                .setContentType(blob.getContentType())
+                .setMd5(blob.getMd5())
+                .setCustomTime(blob.getCustomTime())
+                .build();
+    }
+
+    public GcsNameIndex getNameIndex() {
+        return this.nameIndex;
+    }
+
+    public GcsCacheStatsDTO getMetadataCacheStats() {
+        return this.metadataCache.getStats();
+    }
+
+    private Blob lookupBlob(BlobId blobId) {
+        if (this.metadataCache.isEnabled()) {
+            // cache 가 같은 key 의 load 를 하나로 묶으므로 single flight 를 다시 거치지 않는다
+            return this.metadataCache.get(blobId, this::getBlob);
+        }
+        return this.metadataCache.get(blobId, id -> this.singleFlight.execute("get", id.toString(), () -> this.getBlob(id)));
+    }
+
+    private Blob getBlob(BlobId blobId) {
+        return this.hedgedReader.read("get", () -> this.storage.get(blobId, Storage.BlobGetOption.fields(GET_FIELDS)));
+    }
+
+    public Blob getBlobFromGCS(String fileName) throws FileNotFoundException {
+        return this.metrics.record("get", -1, () -> {
+            BlobId blobId = BlobId.of(this.bucketName, fileName);
+            Blob blob = this.lookupBlob(blobId);
+            if (blob == null) {
+                throw new FileNotFoundException(String.format("%s is not existed in GCS.", fileName));
+            }
+            return blob;
+        });
+    }
+
+    /**
+     * archive 로 묶을 blob 목록을 만든다. prefix 가 있으면 그 아래 전체를 사전순으로, 아니면 fileNames 를 주어진 순서로 (중복 제외).
+     *
+     * @throws FileNotFoundException fileNames 중 없는 파일이 있는 경우
+     * @throws IllegalArgumentException entry 가 max-entries 를 넘는 경우
+     */
+    public List<Blob> getArchiveBlobsFromGCS(String prefix, List<String> fileNames) throws FileNotFoundException {
+        List<Blob> blobs;
+        if (prefix != null && !prefix.isEmpty()) {
+            blobs = this.parallelLister.collect(prefix, Storage.BlobListOption.fields(GET_FIELDS));
+        } else {
+            blobs = new ArrayList<>();
+            for (String fileName : new LinkedHashSet<>(fileNames)) {
+                blobs.add(this.getBlobFromGCS(fileName));
+            }
+        }
+        if (blobs.size() > this.archiveStreamer.getMaxEntries()) {
+            throw new IllegalArgumentException(String.format("archive has %d entries (max %d).",
+                    blobs.size(), this.archiveStreamer.getMaxEntries()));
+        }
+        return blobs;
+    }
+
+    public int streamArchiveFromGCS(List<Blob> blobs, OutputStream outputStream) throws IOException {
+        return this.metrics.transfer("archive", GcsMetrics.DOWNLOAD, -1,
+                transfer -> this.archiveStreamer.streamTo(blobs, transfer.track(outputStream)));
+    }
+
+    /**
+     * blob 의 [offset, offset + length) 구간을 내려보낸다.
+     * download cache 가 받을 수 있는 크기면 로컬 디스크의 cache 파일에서 (전체 요청인데 없으면 먼저 받아서) 보내고,
+     * 아니면 (cache 에 없는 Range 요청 포함) GCS 에서 바로 stream 한다. 같은 구간을 동시에 받는 요청들은 GCS 에서 한 번만 읽은 stream 을 나눠 받는다.
+     */
+    public long serveBlob(Blob blob, long offset, long length, OutputStream outputStream) throws IOException {
+        return this.metrics.transfer("download", GcsMetrics.DOWNLOAD, length, transfer -> {
+            OutputStream out = transfer.track(outputStream);
+            if (this.downloadCache.accepts(blob)) {
+                long transferred = this.downloadCache.transferTo(blob, this::downloadBlobTo, offset, length, out);
+                if (transferred >= 0) {
+                    return transferred;
+                }
+            }
+            if (this.slicedDownloader.accepts(length)) {
+                return this.slicedDownloader.streamTo(blob, offset, length, out);
+            }
+            return this.singleFlight.stream("download", GcsSingleFlight.key(blob, offset, length), length,
+                    sink -> this.streamBlobTo(blob, offset, length, sink), out);
+        });
+    }
+
+    private void downloadBlobTo(Blob blob, Path target) throws IOException {
+        if (this.slicedDownloader.accepts(blob.getSize())) {
+            this.slicedDownloader.downloadTo(blob, target);
+            return;
+        }
+        try (OutputStream outputStream = Files.newOutputStream(target)) {
+            this.streamBlobTo(blob, 0, blob.getSize(), outputStream);
+        }
+    }
+
+    /**
+     * gzip 으로 저장된 blob 의 압축을 풀면서 outputStream 에 쓴다 (Accept-Encoding: gzip 을 보내지 않는 client 용).
+     * ReadChannel 은 저장된 byte 를 그대로 돌려주므로 GZIPInputStream 으로 직접 푼다.
+     */
+    public long serveDecompressedBlob(Blob blob, OutputStream outputStream) throws IOException {
+        return this.metrics.transfer("download_decompressed", GcsMetrics.DOWNLOAD, -1, transfer -> {
+            BlobId blobId = BlobId.of(blob.getBucket(), blob.getName(), blob.getGeneration());
+            OutputStream out = transfer.track(outputStream);
+            long transferred;
+            try (ReadChannel reader = this.storage.reader(blobId)) {
+                reader.setChunkSize(this.downloadChunkSize);
+                InputStream inputStream = new GZIPInputStream(Channels.newInputStream(reader), this.downloadBufferSize);
+                transferred = ByteStreams.copy(inputStream, out);
+            } catch (StorageException e) {
+                if (e.getCode() == 404) {
+                    this.metadataCache.invalidate(blobId);
+                }
+                throw e;
+            }
+            out.flush();
+            return transferred;
+        });
+    }
+
+    /**
+     * blob 의 [offset, offset + length) 구간을 ReadChannel 로 읽어 outputStream 에 바로 쓴다.
+     * 로컬 디스크를 거치지 않으며, 메모리 사용량은 chunk-size + buffer-size 로 제한된다.
+     * 읽는 도중 object 가 교체되어도 섞이지 않도록 조회 시점의 generation 에 고정해서 읽는다.
+     */
+    public long streamBlobTo(Blob blob, long offset, long length, OutputStream outputStream) throws IOException {
+        BlobId blobId = BlobId.of(blob.getBucket(), blob.getName(), blob.getGeneration());
+        long transferred = 0;
+        try (ReadChannel reader = this.storage.reader(blobId)) {
+            // 짧은 구간은 chunk 도 그만큼만 요청해서 구간 밖을 받아오지 않는다
+            reader.setChunkSize((int) Math.max(1, Math.min(this.downloadChunkSize, length)));
+            if (offset > 0) {
+                reader.seek(offset);
+            }
+
+            WritableByteChannel out = Channels.newChannel(outputStream);
+            ByteBuffer buffer = ByteBuffer.allocate(this.downloadBufferSize);
+            // ReadChannel 에는 끝 위치를 정하는 방법이 없어서 남은 byte 수만큼만 buffer 를 열어두고 읽는다
+            long remaining = length;
+            while (remaining > 0) {
+                buffer.limit((int) Math.min(buffer.capacity(), remaining));
+                if (reader.read(buffer) < 0) {
+                    break;
+                }
+                buffer.flip();
+                remaining -= buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    transferred += out.write(buffer);
+                }
+                buffer.clear();
+            }
+        } catch (StorageException e) {
+            if (e.getCode() == 404) {
+                // cache 에 있던 generation 이 이미 교체/삭제된 경우
+                this.metadataCache.invalidate(blobId);
+            }
+            throw e;
+        }
+        outputStream.flush();
+        return transferred;
     }
 }
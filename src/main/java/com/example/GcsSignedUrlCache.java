@@ -0,0 +1,75 @@
+package com.example;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 발급한 signed URL 을 (파일 이름, 만료 시간) 별로 보관했다가,
+ * 유효 기간 중 reuse-fraction 만큼이 지나기 전까지는 다시 서명하지 않고 재사용한다.
+ */
+@Component
+public class GcsSignedUrlCache {
+
+    @Value("${gcs.signed-url.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gcs.signed-url.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${gcs.signed-url.cache.reuse-fraction:0.5}")
+    private double reuseFraction;
+
+    @Value("${gcs.signed-url.max-expiry-seconds:604800}")
+    private long maxExpirySeconds;
+
+    private Cache<String, Entry> cache;
+
+    @PostConstruct
+    public void initialize() {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(this.maximumSize)
+                .expireAfterWrite(this.maxExpirySeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 재사용 가능한 URL 이 있으면 돌려주고, 없으면 signer 로 새로 서명해서 보관한다.
+     */
+    public GcsSignedUrlDTO get(String fileName, long expirySeconds, Supplier<URL> signer) {
+        String key = fileName + '\n' + expirySeconds;
+        long now = System.currentTimeMillis();
+
+        if (this.enabled) {
+            Entry cached = this.cache.getIfPresent(key);
+            if (cached != null && now < cached.reuseUntil) {
+                return new GcsSignedUrlDTO(fileName, cached.url, cached.expiresAt);
+            }
+        }
+
+        URL url = signer.get();
+        Entry entry = new Entry(url, now, expirySeconds, this.reuseFraction);
+        if (this.enabled) {
+            this.cache.put(key, entry);
+        }
+        return new GcsSignedUrlDTO(fileName, url, entry.expiresAt);
+    }
+
+    private static final class Entry {
+        final URL url;
+        final long expiresAt;
+        final long reuseUntil;
+
+        Entry(URL url, long signedAt, long expirySeconds, double reuseFraction) {
+            this.url = url;
+            this.expiresAt = signedAt + TimeUnit.SECONDS.toMillis(expirySeconds);
+            this.reuseUntil = signedAt + (long) (TimeUnit.SECONDS.toMillis(expirySeconds) * reuseFraction);
+        }
+    }
+}
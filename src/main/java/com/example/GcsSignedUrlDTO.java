@@ -0,0 +1,43 @@
+package com.example;
+
+import java.net.URL;
+
+public class GcsSignedUrlDTO {
+
+    String fileName;
+    URL url = null;
+    Long expiresAt = null;
+
+    public GcsSignedUrlDTO() {
+    }
+
+    public GcsSignedUrlDTO(String fileName, URL url, Long expiresAt) {
+        this.fileName = fileName;
+        this.url = url;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public URL getUrl() {
+        return url;
+    }
+
+    public void setUrl(URL url) {
+        this.url = url;
+    }
+
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
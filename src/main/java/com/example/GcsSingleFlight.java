@@ -0,0 +1,632 @@
+package com.example;
+
+import com.google.cloud.storage.Blob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 같은 object 에 대한 같은 작업이 동시에 들어오면 GCS 호출을 하나만 보내고 결과를 나눠 쓴다 (single flight).
+ * 새 분석 결과가 올라온 직후처럼 여러 client 가 같은 파일을 한꺼번에 조회 / 다운로드하는 경우를 위한 것이다.
+ * 결과는 진행 중인 동안에만 공유되고, 끝나면 바로 잊는다 (cache 는 GcsMetadataCache / GcsDownloadCache 가 맡는다).
+ * max-stream-bytes 를 넘는 stream 은 spool 이 켜져 있으면 임시 파일에 받아 두고, 끝나기 전에 붙은 요청은 그 파일을 처음부터 읽는다.
+ */
+@Component
+public class GcsSingleFlight {
+
+    /**
+     * 공유할 data 를 sink 에 쓰는 작업
+     */
+    @FunctionalInterface
+    public interface Producer {
+        long writeTo(OutputStream sink) throws IOException;
+    }
+
+    @Value("${gcs.coalesce.enabled:false}")
+    private boolean enabled;
+
+    // 이 크기 이하의 구간만 stream 을 나눠 쓴다. 붙은 요청이 있을 때만, 그 요청들이 아직 보내지 못한 byte 가 메모리에 남는다
+    @Value("${gcs.coalesce.max-stream-bytes:16777216}")
+    private long maxStreamBytes;
+
+    // max-stream-bytes 를 넘는 stream 을 임시 파일로 나눠 쓸지 (켜면 그런 download 는 모두 디스크에 한 번 더 쓴다)
+    @Value("${gcs.coalesce.spool.enabled:false}")
+    private boolean spoolEnabled;
+
+    @Value("${gcs.coalesce.spool.dir:${java.io.tmpdir}/gcs-coalesce-spool}")
+    private String spoolDirectory;
+
+    @Value("${gcs.download.buffer-size:65536}")
+    private int downloadBufferSize;
+
+    @Autowired
+    private GcsMetrics metrics;
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Spool> spools = new ConcurrentHashMap<>();
+
+    private Path spoolRoot;
+
+    @PostConstruct
+    public void initialize() throws IOException {
+        if (!this.enabled || !this.spoolEnabled) {
+            return;
+        }
+        this.spoolRoot = Paths.get(this.spoolDirectory);
+        Files.createDirectories(this.spoolRoot);
+
+        // 이전 process 가 지우지 못한 spool 파일은 읽을 요청이 없으므로 지운다
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.spoolRoot)) {
+            for (Path path : stream) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * operation 과 key 가 같은 호출이 진행 중이면 그 결과를 기다려서 돌려주고, 아니면 call 을 실행한다.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, String key, Supplier<T> call) {
+        if (!this.enabled) {
+            return call.get();
+        }
+        String flightKey = operation + '\n' + key;
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = this.calls.putIfAbsent(flightKey, future);
+        if (inFlight != null) {
+            this.metrics.coalesced(operation);
+            try {
+                return (T) inFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            T value = call.get();
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.calls.remove(flightKey, future);
+        }
+    }
+
+    /**
+     * key 가 같은 stream 이 아직 첫 byte 를 받기 전이면 거기에 붙어서 같은 byte 를 받고, 아니면 producer 로 직접 받는다.
+     * 처음 요청은 producer 가 자기 client 에 바로 쓰고, 붙은 요청이 있을 때만 받은 byte 를 복사해서 넘겨준다.
+     * max-stream-bytes 를 넘으면 spool 이 켜져 있을 때만 임시 파일을 거쳐 나눠 쓰고, 아니면 producer 가 out 에 바로 쓴다.
+     *
+     * @param length 받을 byte 수
+     * @return out 에 쓴 byte 수
+     */
+    public long stream(String operation, String key, long length, Producer producer, OutputStream out) throws IOException {
+        if (!this.enabled) {
+            return producer.writeTo(out);
+        }
+        String flightKey = operation + '\n' + key;
+        if (length > this.maxStreamBytes) {
+            return this.spoolRoot != null ? this.spool(operation, flightKey, producer, out) : producer.writeTo(out);
+        }
+        Flight flight = new Flight();
+        Flight inFlight = this.flights.putIfAbsent(flightKey, flight);
+        if (inFlight != null) {
+            Follower follower = inFlight.join();
+            if (follower == null) {
+                // 이미 보내기 시작한 stream 의 앞부분은 남아있지 않으므로 따로 받는다
+                return producer.writeTo(out);
+            }
+            this.metrics.coalesced(operation);
+            return follower.copyTo(out);
+        }
+        try {
+            return flight.lead(producer, out, this.downloadBufferSize);
+        } finally {
+            this.flights.remove(flightKey, flight);
+        }
+    }
+
+    /**
+     * 처음 요청이 받는 byte 를 임시 파일에도 써 두고, 끝나기 전에 붙은 요청은 그 파일을 처음부터 따라 읽는다.
+     */
+    private long spool(String operation, String flightKey, Producer producer, OutputStream out) throws IOException {
+        Spool spool = new Spool();
+        Spool inFlight = this.spools.putIfAbsent(flightKey, spool);
+        if (inFlight != null) {
+            SpoolReader reader = inFlight.join();
+            if (reader == null) {
+                // 이미 끝났거나 spool 파일에 쓰지 못했으면 따로 받는다
+                return producer.writeTo(out);
+            }
+            this.metrics.coalesced(operation);
+            return reader.copyTo(out, this.downloadBufferSize);
+        }
+        try {
+            return spool.lead(this.spoolRoot, producer, out, this.downloadBufferSize);
+        } finally {
+            this.spools.remove(flightKey, spool);
+        }
+    }
+
+    /**
+     * 같은 generation 의 같은 구간만 같은 stream 으로 본다
+     */
+    public static String key(Blob blob, long offset, long length) {
+        return String.format("%s/%s#%s[%d+%d]", blob.getBucket(), blob.getName(), blob.getGeneration(), offset, length);
+    }
+
+    /**
+     * 처음 요청이 받는 stream. 붙은 요청 (Follower) 이 있으면 producer 가 쓴 byte 를 segment 로 복사해 두고,
+     * 모든 Follower 가 보낸 segment 는 바로 버린다.
+     */
+    private static final class Flight {
+        private final List<byte[]> segments = new ArrayList<>();
+        private final List<Follower> followers = new ArrayList<>();
+        // 버린 segment 수 (Follower.next 는 처음부터 센 segment 번호)
+        private int dropped = 0;
+        private long produced = 0;
+        private boolean done = false;
+        private Throwable failure;
+
+        /**
+         * @return 이미 byte 를 보내기 시작했으면 null
+         */
+        synchronized Follower join() {
+            if (this.produced > 0 || this.done) {
+                return null;
+            }
+            Follower follower = new Follower(this);
+            this.followers.add(follower);
+            return follower;
+        }
+
+        long lead(Producer producer, OutputStream out, int bufferSize) throws IOException {
+            Tee tee = new Tee(out);
+            long written;
+            Throwable failure = null;
+            try (OutputStream sink = new BufferedOutputStream(tee, bufferSize)) {
+                written = producer.writeTo(sink);
+            } catch (Throwable e) {
+                failure = e;
+                throw e;
+            } finally {
+                this.finish(failure);
+            }
+            // Follower 를 위해 끝까지 받았더라도 처음 요청의 client 가 끊겼으면 그 오류를 알린다
+            tee.rethrow();
+            return written;
+        }
+
+        /**
+         * 처음 요청의 client 에 쓰면서 Follower 가 있으면 복사해 둔다.
+         * client 가 먼저 끊겨도 Follower 가 남아 있으면 끝까지 받는다.
+         */
+        private final class Tee extends OutputStream {
+            private OutputStream out;
+            private IOException outFailure;
+
+            Tee(OutputStream out) {
+                this.out = out;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                this.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (len <= 0) {
+                    return;
+                }
+                boolean shared;
+                synchronized (Flight.this) {
+                    shared = !followers.isEmpty();
+                    if (shared) {
+                        segments.add(Arrays.copyOfRange(b, off, off + len));
+                        Flight.this.notifyAll();
+                    }
+                    produced += len;
+                }
+                if (this.out != null) {
+                    try {
+                        this.out.write(b, off, len);
+                    } catch (IOException e) {
+                        this.outFailure = e;
+                        this.out = null;
+                    }
+                }
+                if (this.out == null && !shared) {
+                    throw this.outFailure;
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (this.out != null) {
+                    try {
+                        this.out.flush();
+                    } catch (IOException e) {
+                        this.outFailure = e;
+                        this.out = null;
+                    }
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                // client 의 stream 은 닫지 않는다
+                this.flush();
+            }
+
+            void rethrow() throws IOException {
+                if (this.outFailure != null) {
+                    throw this.outFailure;
+                }
+            }
+        }
+
+        private synchronized void finish(Throwable failure) {
+            this.done = true;
+            this.failure = failure;
+            this.notifyAll();
+        }
+
+        private synchronized void leave(Follower follower) {
+            this.followers.remove(follower);
+            this.trim();
+        }
+
+        // 모든 Follower 가 보낸 segment 를 버린다
+        private void trim() {
+            int next = this.dropped + this.segments.size();
+            for (Follower follower : this.followers) {
+                next = Math.min(next, follower.next);
+            }
+            if (next > this.dropped) {
+                this.segments.subList(0, next - this.dropped).clear();
+                this.dropped = next;
+            }
+        }
+
+        private void rethrow() throws IOException {
+            if (this.failure != null) {
+                propagate(this.failure);
+            }
+        }
+    }
+
+    private static void propagate(Throwable failure) throws IOException {
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) failure).getCause();
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        throw new IOException(failure);
+    }
+
+    /**
+     * Flight 에 붙은 요청. 처음 요청이 받는 속도로 처음부터 같은 byte 를 받는다.
+     */
+    private static final class Follower {
+        private final Flight flight;
+        private int next = 0;
+
+        Follower(Flight flight) {
+            this.flight = flight;
+        }
+
+        long copyTo(OutputStream out) throws IOException {
+            long written = 0;
+            try {
+                while (true) {
+                    byte[] segment = null;
+                    synchronized (this.flight) {
+                        while (this.next - this.flight.dropped >= this.flight.segments.size() && !this.flight.done) {
+                            try {
+                                this.flight.wait();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new InterruptedIOException("interrupted while waiting for a shared download.");
+                            }
+                        }
+                        if (this.next - this.flight.dropped < this.flight.segments.size()) {
+                            segment = this.flight.segments.get(this.next - this.flight.dropped);
+                            this.next++;
+                            this.flight.trim();
+                        } else {
+                            this.flight.rethrow();
+                        }
+                    }
+                    if (segment == null) {
+                        out.flush();
+                        return written;
+                    }
+                    out.write(segment);
+                    written += segment.length;
+                }
+            } finally {
+                this.flight.leave(this);
+            }
+        }
+    }
+
+    /**
+     * max-stream-bytes 를 넘는 stream. 처음 요청의 client 에 쓰면서 같은 byte 를 임시 파일에도 쓰고,
+     * 붙은 요청 (SpoolReader) 은 파일에 써진 만큼씩 처음부터 읽는다. 처음 요청이 끝나고 SpoolReader 가 모두 떠나면 파일을 지운다.
+     */
+    private static final class Spool {
+        private Path file;
+        // 처음 요청의 thread 만 쓰고 닫는다
+        private FileChannel channel;
+        private long produced = 0;
+        private int readers = 0;
+        private boolean done = false;
+        private Throwable failure;
+        // spool 파일에 쓰지 못한 오류 (처음 요청은 계속 받고, SpoolReader 만 실패한다)
+        private IOException spoolFailure;
+
+        /**
+         * @return 이미 끝났거나 spool 파일에 쓰지 못했으면 null
+         */
+        synchronized SpoolReader join() {
+            if (this.done || this.spoolFailure != null) {
+                return null;
+            }
+            this.readers++;
+            return new SpoolReader(this);
+        }
+
+        long lead(Path root, Producer producer, OutputStream out, int bufferSize) throws IOException {
+            Tee tee = new Tee(out);
+            long written;
+            Throwable failure = null;
+            try {
+                try {
+                    Path file = Files.createTempFile(root, "spool-", ".tmp");
+                    synchronized (this) {
+                        this.file = file;
+                    }
+                    this.channel = FileChannel.open(file, StandardOpenOption.WRITE);
+                } catch (IOException e) {
+                    this.spoolFailed(e);
+                }
+                try (OutputStream sink = new BufferedOutputStream(tee, bufferSize)) {
+                    written = producer.writeTo(sink);
+                }
+            } catch (Throwable e) {
+                failure = e;
+                throw e;
+            } finally {
+                this.finish(failure);
+            }
+            // SpoolReader 를 위해 끝까지 받았더라도 처음 요청의 client 가 끊겼으면 그 오류를 알린다
+            tee.rethrow();
+            return written;
+        }
+
+        /**
+         * 처음 요청의 client 와 spool 파일에 같이 쓴다.
+         * client 가 먼저 끊겨도 SpoolReader 가 남아 있으면 끝까지 받는다.
+         */
+        private final class Tee extends OutputStream {
+            private OutputStream out;
+            private IOException outFailure;
+
+            Tee(OutputStream out) {
+                this.out = out;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                this.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (len <= 0) {
+                    return;
+                }
+                if (channel != null) {
+                    try {
+                        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                    } catch (IOException e) {
+                        spoolFailed(e);
+                    }
+                }
+                if (this.out != null) {
+                    try {
+                        this.out.write(b, off, len);
+                    } catch (IOException e) {
+                        this.outFailure = e;
+                        this.out = null;
+                    }
+                }
+                synchronized (Spool.this) {
+                    produced += len;
+                    Spool.this.notifyAll();
+                    if (this.out == null && (readers == 0 || spoolFailure != null)) {
+                        // 받을 요청이 없으므로 그만 받고, 이후 요청은 붙지 못하게 한다
+                        done = true;
+                        throw this.outFailure;
+                    }
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (this.out != null) {
+                    try {
+                        this.out.flush();
+                    } catch (IOException e) {
+                        this.outFailure = e;
+                        this.out = null;
+                    }
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                // client 의 stream 은 닫지 않는다
+                this.flush();
+            }
+
+            void rethrow() throws IOException {
+                if (this.outFailure != null) {
+                    throw this.outFailure;
+                }
+            }
+        }
+
+        private synchronized void spoolFailed(IOException e) {
+            this.spoolFailure = e;
+            this.closeChannel();
+            this.notifyAll();
+        }
+
+        private synchronized void finish(Throwable failure) {
+            this.done = true;
+            this.failure = failure;
+            this.closeChannel();
+            this.notifyAll();
+            this.cleanup();
+        }
+
+        private synchronized void leave() {
+            this.readers--;
+            this.cleanup();
+        }
+
+        private void closeChannel() {
+            if (this.channel == null) {
+                return;
+            }
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                // 다 쓴 뒤에 닫지 못한 것이므로 읽는 쪽에는 영향이 없다
+            }
+            this.channel = null;
+        }
+
+        // 처음 요청이 끝나고 읽는 요청도 없으면 spool 파일을 지운다
+        private void cleanup() {
+            if (!this.done || this.readers > 0 || this.file == null) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(this.file);
+            } catch (IOException e) {
+                this.file.toFile().deleteOnExit();
+            }
+            this.file = null;
+        }
+    }
+
+    /**
+     * Spool 에 붙은 요청. spool 파일을 처음부터 처음 요청이 받은 만큼씩 읽는다.
+     */
+    private static final class SpoolReader {
+        private final Spool spool;
+
+        SpoolReader(Spool spool) {
+            this.spool = spool;
+        }
+
+        long copyTo(OutputStream out, int bufferSize) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+            FileChannel channel = null;
+            long position = 0;
+            try {
+                while (true) {
+                    long available;
+                    synchronized (this.spool) {
+                        while (position >= this.spool.produced && !this.spool.done && this.spool.spoolFailure == null) {
+                            try {
+                                this.spool.wait();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new InterruptedIOException("interrupted while waiting for a shared download.");
+                            }
+                        }
+                        if (this.spool.spoolFailure != null) {
+                            throw this.spool.spoolFailure;
+                        }
+                        if (position >= this.spool.produced) {
+                            if (this.spool.failure != null) {
+                                propagate(this.spool.failure);
+                            }
+                            break;
+                        }
+                        available = this.spool.produced;
+                        if (channel == null) {
+                            channel = FileChannel.open(this.spool.file, StandardOpenOption.READ);
+                        }
+                    }
+                    while (position < available) {
+                        buffer.clear();
+                        buffer.limit((int) Math.min(buffer.capacity(), available - position));
+                        int read = channel.read(buffer, position);
+                        if (read < 0) {
+                            throw new EOFException("spool file ended at " + position + " of " + available + " bytes.");
+                        }
+                        out.write(buffer.array(), 0, read);
+                        position += read;
+                    }
+                }
+                out.flush();
+                return position;
+            } finally {
+                try {
+                    if (channel != null) {
+                        channel.close();
+                    }
+                } finally {
+                    this.spool.leave();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.example;
+
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.primitives.Ints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 큰 object 를 slice 로 나눠 여러 ranged read (ReadChannel seek, slice 크기만큼만 읽기) 로 동시에 받는다.
+ * 파일로 받을 때는 미리 크기를 잡아둔 파일의 각 위치에 slice 를 바로 쓰고,
+ * 응답으로 보낼 때는 앞에서부터 순서대로 내보내면서 read-ahead-slices 개까지만 미리 받아 메모리에 둔다.
+ * object 전체를 받은 경우에는 crc32c (없으면 md5) 를 확인한다.
+ * 응답으로 보낼 때는 확인이 끝날 때까지 마지막 1 byte 를 보내지 않고 들고 있다가, 맞지 않으면 보내지 않은 채로 실패한다.
+ * 그 전의 내용은 이미 나갔으므로 Content-Length 보다 짧게 끊긴 응답을 오류로 보는 client 만 알아챌 수 있다 (best-effort).
+ */
+@Component
+public class GcsSlicedDownloader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GcsSlicedDownloader.class);
+
+    private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+    @Autowired
+    private Storage storage;
+
+    @Autowired
+    @Qualifier("gcsSliceExecutor")
+    private Executor sliceExecutor;
+
+    @Value("${gcs.download.sliced.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gcs.download.sliced.threshold-bytes:67108864}")
+    private long thresholdBytes;
+
+    @Value("${gcs.download.sliced.slice-size:8388608}")
+    private int sliceSize;
+
+    @Value("${gcs.download.sliced.parallelism:4}")
+    private int parallelism;
+
+    @Value("${gcs.download.sliced.read-ahead-slices:4}")
+    private int readAheadSlices;
+
+    // 모든 응답 stream 이 함께 쓰는 slice buffer 개수 제한 (메모리 사용량 = max-buffered-slices * slice-size)
+    private final Semaphore bufferedSlices;
+
+    public GcsSlicedDownloader(@Value("${gcs.download.sliced.max-buffered-slices:32}") int maxBufferedSlices) {
+        this.bufferedSlices = new Semaphore(maxBufferedSlices);
+    }
+
+    public boolean accepts(long length) {
+        return this.enabled && length >= this.thresholdBytes;
+    }
+
+    /**
+     * blob 전체를 target 파일로 받는다. 파일을 먼저 blob 크기로 잡아두고 slice 들이 각자 자기 위치에 쓴다.
+     */
+    public void downloadTo(Blob blob, Path target) throws IOException {
+        long size = blob.getSize();
+        BlobId blobId = pinned(blob);
+        long started = System.nanoTime();
+
+        try (RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")) {
+            file.setLength(size);
+        }
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            Semaphore permits = new Semaphore(this.parallelism);
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            try {
+                for (long offset = 0; offset < size; offset += this.sliceSize) {
+                    long sliceOffset = offset;
+                    int sliceLength = (int) Math.min(this.sliceSize, size - offset);
+                    permits.acquire();
+                    CompletableFuture<Void> future;
+                    try {
+                        future = CompletableFuture.runAsync(() -> this.readSliceTo(blobId, sliceOffset, sliceLength, channel), this.sliceExecutor);
+                    } catch (RejectedExecutionException e) {
+                        permits.release();
+                        throw e;
+                    }
+                    future.whenComplete((result, e) -> permits.release());
+                    futures.add(future);
+                    // 앞 slice 가 실패했으면 나머지는 받지 않는다
+                    if (futures.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("sliced download is interrupted.", e);
+            } finally {
+                awaitAll(futures);
+            }
+            for (CompletableFuture<Void> future : futures) {
+                join(future);
+            }
+        }
+
+        Checksum checksum = Checksum.of(blob);
+        if (checksum != null) {
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+                while (channel.read(buffer) >= 0) {
+                    buffer.flip();
+                    checksum.update(buffer.array(), 0, buffer.limit());
+                    buffer.clear();
+                }
+            }
+            checksum.verify(blob.getName());
+        }
+        LOG.info("{}", String.format("%s (%d bytes) is downloaded in %d slices in %d ms.",
+                blob.getName(), size, (size + this.sliceSize - 1) / this.sliceSize,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
+    }
+
+    /**
+     * blob 의 [offset, offset + length) 구간을 slice 로 나눠 동시에 받으면서 순서대로 outputStream 에 쓴다.
+     * object 전체를 보낼 때는 checksum 이 맞아야 마지막 1 byte 를 쓰고, 맞지 않으면 IOException 으로 응답을 끊는다.
+     */
+    public long streamTo(Blob blob, long offset, long length, OutputStream outputStream) throws IOException {
+        BlobId blobId = pinned(blob);
+        Checksum checksum = (offset == 0 && length == blob.getSize()) ? Checksum.of(blob) : null;
+        long end = offset + length;
+        long next = offset;
+        long written = 0;
+
+        Deque<CompletableFuture<byte[]>> window = new ArrayDeque<>();
+        try {
+            while (next < end || !window.isEmpty()) {
+                // read-ahead 만큼 미리 요청한다. 하나도 없으면 buffer 가 생길 때까지 기다린다 (가진 buffer 가 없으므로 교착되지 않는다)
+                while (next < end && window.size() < this.readAheadSlices
+                        && (window.isEmpty() ? this.acquireBuffer() : this.bufferedSlices.tryAcquire())) {
+                    long sliceOffset = next;
+                    int sliceLength = (int) Math.min(this.sliceSize, end - next);
+                    window.add(this.submitSlice(blobId, sliceOffset, sliceLength));
+                    next += sliceLength;
+                }
+
+                CompletableFuture<byte[]> head = window.poll();
+                try {
+                    byte[] data = join(head);
+                    if (checksum != null) {
+                        checksum.update(data, 0, data.length);
+                        if (written + data.length == length) {
+                            // 마지막 byte 는 checksum 을 확인한 다음에 쓴다
+                            outputStream.write(data, 0, data.length - 1);
+                            outputStream.flush();
+                            checksum.verify(blob.getName());
+                            outputStream.write(data, data.length - 1, 1);
+                            written += data.length;
+                            continue;
+                        }
+                    }
+                    outputStream.write(data);
+                    written += data.length;
+                } finally {
+                    this.bufferedSlices.release();
+                }
+            }
+        } finally {
+            // 중간에 실패하거나 client 가 끊은 경우 남은 slice 를 기다렸다가 buffer 를 돌려준다
+            for (CompletableFuture<byte[]> future : window) {
+                future.handle((data, e) -> null).join();
+                this.bufferedSlices.release();
+            }
+        }
+        outputStream.flush();
+        return written;
+    }
+
+    private boolean acquireBuffer() throws IOException {
+        try {
+            this.bufferedSlices.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("sliced download is interrupted.", e);
+        }
+    }
+
+    private CompletableFuture<byte[]> submitSlice(BlobId blobId, long offset, int length) {
+        try {
+            return CompletableFuture.supplyAsync(() -> this.readSlice(blobId, offset, length), this.sliceExecutor);
+        } catch (RejectedExecutionException e) {
+            this.bufferedSlices.release();
+            throw e;
+        }
+    }
+
+    private byte[] readSlice(BlobId blobId, long offset, int length) {
+        byte[] data = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try (ReadChannel reader = this.openSlice(blobId, offset, length)) {
+            while (buffer.hasRemaining() && reader.read(buffer) >= 0) {
+                // slice 를 끝까지 채운다
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (buffer.hasRemaining()) {
+            throw new UncheckedIOException(new IOException(String.format(
+                    "%s slice at %d is truncated (%d of %d bytes).", blobId.getName(), offset, buffer.position(), length)));
+        }
+        return data;
+    }
+
+    private void readSliceTo(BlobId blobId, long offset, int length, FileChannel channel) {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.min(COPY_BUFFER_SIZE, length));
+        long position = offset;
+        long end = offset + length;
+        try (ReadChannel reader = this.openSlice(blobId, offset, length)) {
+            // 다음 slice 구간을 덮어쓰지 않도록 slice 에 남은 만큼만 읽는다
+            while (position < end) {
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                if (reader.read(buffer) < 0) {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (position != end) {
+            throw new UncheckedIOException(new IOException(String.format(
+                    "%s slice at %d is truncated (%d of %d bytes).", blobId.getName(), offset, position - offset, length)));
+        }
+    }
+
+    private ReadChannel openSlice(BlobId blobId, long offset, int length) throws IOException {
+        ReadChannel reader = this.storage.reader(blobId);
+        // slice 하나를 한 번의 ranged GET 으로 받는다
+        reader.setChunkSize(length);
+        reader.seek(offset);
+        return reader;
+    }
+
+    // 받는 도중 object 가 교체되어도 slice 끼리 섞이지 않도록 generation 에 고정한다
+    private static BlobId pinned(Blob blob) {
+        return BlobId.of(blob.getBucket(), blob.getName(), blob.getGeneration());
+    }
+
+    private static void awaitAll(List<? extends CompletableFuture<?>> futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.handle((result, e) -> null).join();
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * GCS 가 알려준 crc32c (composite object 는 md5 가 없다) 또는 md5 와 받은 내용을 비교한다.
+     */
+    private static final class Checksum {
+        final Hasher hasher;
+        final String expected;
+        final boolean crc32c;
+
+        private Checksum(Hasher hasher, String expected, boolean crc32c) {
+            this.hasher = hasher;
+            this.expected = expected;
+            this.crc32c = crc32c;
+        }
+
+        @SuppressWarnings("deprecation")
+        static Checksum of(Blob blob) {
+            if (blob.getCrc32c() != null) {
+                return new Checksum(Hashing.crc32c().newHasher(), blob.getCrc32c(), true);
+            }
+            if (blob.getMd5() != null) {
+                return new Checksum(Hashing.md5().newHasher(), blob.getMd5(), false);
+            }
+            return null;
+        }
+
+        void update(byte[] data, int offset, int length) {
+            this.hasher.putBytes(data, offset, length);
+        }
+
+        void verify(String name) throws IOException {
+            // GCS 의 crc32c 는 big-endian 4 byte 를 base64 로 인코딩한 값이다
+            byte[] actual = this.crc32c ? Ints.toByteArray(this.hasher.hash().asInt()) : this.hasher.hash().asBytes();
+            String encoded = BaseEncoding.base64().encode(actual);
+            if (!encoded.equals(this.expected)) {
+                throw new IOException(String.format("%s checksum mismatch (%s expected, %s received).",
+                        name, this.expected, encoded));
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example;
+
+import com.google.api.gax.retrying.RetrySettings;
+import com.google.cloud.http.HttpTransportOptions;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.PriorityOrdered;
+import org.threeten.bp.Duration;
+
+/**
+ * Storage bean 의 RPC 마다 connect / read timeout 과 재시도 전체 시간 (total-timeout) 을 건다.
+ * GcsHedgedReader 의 deadline 은 호출한 쪽이 기다리는 시간만 줄이므로, 실제로 GCS 호출을 끊는 것은 이 설정이다.
+ */
+@Configuration
+public class GcsStorageOptionsConfiguration {
+
+    @Bean
+    public static BeanPostProcessor gcsStorageTimeoutPostProcessor(
+            @Value("${gcs.rpc.connect-timeout-millis:5000}") int connectTimeoutMillis,
+            @Value("${gcs.rpc.read-timeout-millis:20000}") int readTimeoutMillis,
+            @Value("${gcs.rpc.total-timeout-millis:30000}") long totalTimeoutMillis,
+            @Value("${gcs.rpc.max-attempts:6}") int maxAttempts) {
+        return new StorageTimeoutPostProcessor(connectTimeoutMillis, readTimeoutMillis, totalTimeoutMillis, maxAttempts);
+    }
+
+    /**
+     * GcsMetricsConfiguration 이 Storage 를 감싸기 전에 바꿔야 하므로 PriorityOrdered 로 먼저 실행된다.
+     */
+    private static final class StorageTimeoutPostProcessor implements BeanPostProcessor, PriorityOrdered {
+        private final int connectTimeoutMillis;
+        private final int readTimeoutMillis;
+        private final long totalTimeoutMillis;
+        private final int maxAttempts;
+
+        private StorageTimeoutPostProcessor(int connectTimeoutMillis, int readTimeoutMillis, long totalTimeoutMillis, int maxAttempts) {
+            this.connectTimeoutMillis = connectTimeoutMillis;
+            this.readTimeoutMillis = readTimeoutMillis;
+            this.totalTimeoutMillis = totalTimeoutMillis;
+            this.maxAttempts = maxAttempts;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof Storage)) {
+                return bean;
+            }
+            StorageOptions options;
+            try {
+                options = ((Storage) bean).getOptions();
+            } catch (UnsupportedOperationException e) {
+                // 테스트용 Proxy Storage 처럼 options 가 없는 경우
+                return bean;
+            }
+            if (options == null || !(options.getTransportOptions() instanceof HttpTransportOptions)) {
+                return bean;
+            }
+
+            HttpTransportOptions transport = ((HttpTransportOptions) options.getTransportOptions()).toBuilder()
+                    .setConnectTimeout(this.connectTimeoutMillis)
+                    .setReadTimeout(this.readTimeoutMillis)
+                    .build();
+            RetrySettings retrySettings = options.getRetrySettings().toBuilder()
+                    .setTotalTimeout(Duration.ofMillis(this.totalTimeoutMillis))
+                    .setMaxAttempts(this.maxAttempts)
+                    .build();
+            return options.toBuilder()
+                    .setTransportOptions(transport)
+                    .setRetrySettings(retrySettings)
+                    .build()
+                    .getService();
+        }
+
+        @Override
+        public int getOrder() {
+            return LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example;
+
+import com.google.cloud.storage.BlobInfo;
+
+public class GcsUploadResultDTO {
+
+    String fileName;
+    boolean uploaded;
+    BlobInfo blobInfo = null;
+    String error = null;
+
+    public static GcsUploadResultDTO success(String fileName, BlobInfo blobInfo) {
+        GcsUploadResultDTO result = new GcsUploadResultDTO();
+        result.setFileName(fileName);
+        result.setUploaded(true);
+        result.setBlobInfo(blobInfo);
+        return result;
+    }
+
+    public static GcsUploadResultDTO failure(String fileName, String error) {
+        GcsUploadResultDTO result = new GcsUploadResultDTO();
+        result.setFileName(fileName);
+        result.setUploaded(false);
+        result.setError(error);
+        return result;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public boolean isUploaded() {
+        return uploaded;
+    }
+
+    public void setUploaded(boolean uploaded) {
+        this.uploaded = uploaded;
+    }
+
+    public BlobInfo getBlobInfo() {
+        return blobInfo;
+    }
+
+    public void setBlobInfo(BlobInfo blobInfo) {
+        this.blobInfo = blobInfo;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 분할 업로드 session 의 생성 요청이자 진행 상황.
+ * 0 번부터 nextChunk - 1 번까지의 chunk (= [0, receivedBytes) 구간) 는 순서대로 GCS upload 에 넘겼고,
+ * bufferedChunks 는 순서보다 먼저 도착해서 서버가 들고 있는 chunk 이다. 나머지는 다시 보내야 한다.
+ */
+public class GcsUploadSessionDTO {
+
+    String sessionId;
+    String fileName;
+    String contentType;
+    long size;
+    int chunkSize;
+    int chunkCount;
+    int nextChunk;
+    long receivedBytes;
+    List<Integer> bufferedChunks = new ArrayList<>();
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public int getNextChunk() {
+        return nextChunk;
+    }
+
+    public void setNextChunk(int nextChunk) {
+        this.nextChunk = nextChunk;
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+
+    public void setReceivedBytes(long receivedBytes) {
+        this.receivedBytes = receivedBytes;
+    }
+
+    public List<Integer> getBufferedChunks() {
+        return bufferedChunks;
+    }
+
+    public void setBufferedChunks(List<Integer> bufferedChunks) {
+        this.bufferedChunks = bufferedChunks;
+    }
+}
@@ -0,0 +1,338 @@
+package com.example;
+
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.io.ByteStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 큰 파일을 chunk 단위로 나눠 받는 업로드 session (init → chunk N → status → complete).
+ * session 하나가 GCS resumable upload 하나 (WriteChannel) 에 대응하고, chunk 는 번호 순서대로 WriteChannel 에 쓴다.
+ * 순서보다 먼저 온 chunk 는 max-buffered-chunks 개까지만 메모리에 들고 있다가 앞 chunk 가 오면 이어서 쓴다.
+ * 먼저 온 chunk 가 차지하는 메모리는 모든 session 을 합쳐 max-buffered-bytes 로 제한한다.
+ * WriteChannel 에 쓰다가 실패하면 GCS 에 어디까지 반영되었는지 알 수 없으므로 session 을 버린다 (client 는 새 session 으로 다시 올린다).
+ * 연결이 끊기면 client 는 status 로 nextChunk / bufferedChunks 를 확인하고 빠진 chunk 만 다시 보내면 된다.
+ * idle-timeout 동안 아무 요청이 없으면 session 을 버린다 (GCS 에는 완료되지 않은 upload 로 남았다가 만료된다).
+ */
+@Component
+public class GcsUploadSessionManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GcsUploadSessionManager.class);
+
+    // GCS resumable upload 의 chunk 는 256KiB 의 배수여야 한다 (마지막 chunk 제외)
+    private static final int CHUNK_ALIGNMENT = 256 * 1024;
+
+    @Autowired
+    private Storage storage;
+
+    @Autowired
+    private GcsMetadataCache metadataCache;
+
+    @Autowired
+    private GcsNameIndex nameIndex;
+
+    @Autowired
+    private GcsService gcsService;
+
+    @Value("${gcs-resource-test-bucket}")
+    private String bucketName;
+
+    @Value("${gcs.upload.session.max-chunk-size:67108864}")
+    private int maxChunkSize;
+
+    @Value("${gcs.upload.session.max-buffered-chunks:8}")
+    private int maxBufferedChunks;
+
+    @Value("${gcs.upload.session.maximum-size:1000}")
+    private long maximumSize;
+
+    @Value("${gcs.upload.session.idle-timeout-seconds:86400}")
+    private long idleTimeoutSeconds;
+
+    // 모든 session 이 함께 쓰는 먼저 온 chunk 의 byte 수 제한
+    private final Semaphore bufferedBytes;
+
+    private Cache<String, Session> sessions;
+
+    public GcsUploadSessionManager(@Value("${gcs.upload.session.max-buffered-bytes:536870912}") int maxBufferedBytes) {
+        this.bufferedBytes = new Semaphore(maxBufferedBytes);
+    }
+
+    @PostConstruct
+    public void initialize() {
+        this.sessions = CacheBuilder.newBuilder()
+                .maximumSize(this.maximumSize)
+                .expireAfterAccess(this.idleTimeoutSeconds, TimeUnit.SECONDS)
+                .<String, Session>removalListener(notification -> {
+                    this.release(notification.getValue());
+                    if (notification.getCause() != RemovalCause.EXPLICIT) {
+                        LOG.warn("upload session {} ({}) is dropped : {}",
+                                notification.getKey(), notification.getValue().blobInfo.getName(), notification.getCause());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 새 session 을 연다.
+     *
+     * @throws IllegalArgumentException 파일 이름이 없거나 size / chunkSize 가 맞지 않을 때
+     */
+    public GcsUploadSessionDTO create(String fileName, String contentType, long size, int chunkSize) {
+        if (fileName == null || fileName.isEmpty()) {
+            throw new IllegalArgumentException("fileName is required.");
+        }
+        if (size < 0) {
+            throw new IllegalArgumentException("size must be >= 0.");
+        }
+        if (chunkSize <= 0 || chunkSize % CHUNK_ALIGNMENT != 0 || chunkSize > this.maxChunkSize) {
+            throw new IllegalArgumentException(String.format(
+                    "chunkSize must be a multiple of %d and <= %d.", CHUNK_ALIGNMENT, this.maxChunkSize));
+        }
+        long chunkCount = (size + chunkSize - 1) / chunkSize;
+        if (chunkCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many chunks, use a larger chunkSize.");
+        }
+
+        BlobInfo blobInfo = BlobInfo
+                .newBuilder(BlobId.of(this.bucketName, fileName))
+                .setContentType(contentType)
+                .build();
+        WriteChannel writer = this.storage.writer(blobInfo);
+        writer.setChunkSize(chunkSize);
+
+        Session session = new Session(UUID.randomUUID().toString(), blobInfo, size, chunkSize, (int) chunkCount, writer);
+        this.sessions.put(session.id, session);
+        LOG.info("upload session {} is opened for {} ({} bytes, {} chunks).", session.id, fileName, size, chunkCount);
+        return session.toDTO();
+    }
+
+    /**
+     * @return session 이 없으면 (완료 / 취소 / 만료) null
+     */
+    public GcsUploadSessionDTO getStatus(String sessionId) {
+        Session session = this.sessions.getIfPresent(sessionId);
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            return session.toDTO();
+        }
+    }
+
+    /**
+     * index 번 chunk 를 받는다. 이미 받은 chunk 를 다시 보내면 body 를 버리고 현재 상태를 돌려준다.
+     * body 를 읽는 동안에는 session 을 잠그지 않으므로 여러 chunk 를 동시에 보내도 된다.
+     *
+     * @return session 이 없으면 null
+     * @throws IllegalArgumentException index 가 범위를 벗어나거나 chunk 크기가 맞지 않을 때
+     * @throws IllegalStateException    index 가 nextChunk 보다 max-buffered-chunks 이상 앞서 있거나
+     *                                  먼저 온 chunk 가 max-buffered-bytes 를 넘을 때 (나중에 다시 보내야 한다)
+     * @throws IOException              WriteChannel 에 쓰다가 실패했을 때 (session 은 버려진다)
+     */
+    public GcsUploadSessionDTO putChunk(String sessionId, int index, InputStream inputStream) throws IOException {
+        Session session = this.sessions.getIfPresent(sessionId);
+        if (session == null) {
+            return null;
+        }
+        if (index < 0 || index >= session.chunkCount) {
+            throw new IllegalArgumentException(String.format("chunk index must be between 0 and %d.", session.chunkCount - 1));
+        }
+        synchronized (session) {
+            if (session.isReceived(index)) {
+                return session.toDTO();
+            }
+            this.checkWindow(session, index);
+        }
+
+        int expected = session.chunkLength(index);
+        byte[] data = new byte[expected];
+        int read = ByteStreams.read(inputStream, data, 0, expected);
+        if (read != expected || inputStream.read() >= 0) {
+            throw new IllegalArgumentException(String.format("chunk %d must be exactly %d bytes.", index, expected));
+        }
+
+        synchronized (session) {
+            if (session.closed) {
+                // body 를 읽는 동안 완료 / 취소 / 실패로 session 이 없어졌다
+                return null;
+            }
+            if (session.isReceived(index)) {
+                return session.toDTO();
+            }
+            this.checkWindow(session, index);
+            if (index != session.nextChunk) {
+                if (!this.bufferedBytes.tryAcquire(data.length)) {
+                    throw new IllegalStateException(String.format(
+                            "too many chunks are buffered on this server, chunks from %d must be sent first.", session.nextChunk));
+                }
+                session.buffered.put(index, data);
+                return session.toDTO();
+            }
+            try {
+                session.write(data);
+                byte[] next;
+                while ((next = session.buffered.get(session.nextChunk)) != null) {
+                    // 쓰기에 성공한 뒤에 buffer 에서 뺀다
+                    session.write(next);
+                    session.buffered.remove(session.nextChunk - 1);
+                    this.bufferedBytes.release(next.length);
+                }
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("upload session {} ({}) is dropped because chunk {} could not be written.",
+                        sessionId, session.blobInfo.getName(), session.nextChunk, e);
+                this.sessions.invalidate(sessionId);
+                throw e;
+            }
+            return session.toDTO();
+        }
+    }
+
+    /**
+     * 모든 chunk 가 반영되었으면 upload 를 마치고 만들어진 blob 을 돌려준다.
+     *
+     * @return session 이 없으면 null
+     * @throws IllegalStateException 아직 반영되지 않은 chunk 가 있을 때
+     */
+    public Blob complete(String sessionId) throws IOException {
+        Session session = this.sessions.getIfPresent(sessionId);
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            if (session.closed) {
+                return null;
+            }
+            if (session.receivedBytes != session.size) {
+                throw new IllegalStateException(String.format("%d of %d bytes are received in order, chunk %d is missing.",
+                        session.receivedBytes, session.size, session.nextChunk));
+            }
+            BlobId blobId = session.blobInfo.getBlobId();
+            try {
+                session.writer.close();
+            } finally {
+                this.sessions.invalidate(sessionId);
+                this.metadataCache.invalidate(blobId);
+                this.gcsService.invalidatePrefetchedPages();
+            }
+
+            Blob blob = this.storage.get(blobId);
+            if (blob != null) {
+                this.metadataCache.put(blob);
+                this.nameIndex.put(GcsIndexEntryDTO.of(blob));
+            }
+            LOG.info("upload session {} is completed for {}.", sessionId, blobId.getName());
+            return blob;
+        }
+    }
+
+    /**
+     * session 을 버린다. WriteChannel 을 닫으면 받은 데까지로 object 가 만들어지므로 닫지 않는다.
+     *
+     * @return session 이 있었으면 true
+     */
+    public boolean abort(String sessionId) {
+        Session session = this.sessions.getIfPresent(sessionId);
+        if (session == null) {
+            return false;
+        }
+        this.sessions.invalidate(sessionId);
+        LOG.info("upload session {} is aborted.", sessionId);
+        return true;
+    }
+
+    /**
+     * session 에서 빠질 때 (완료 / 취소 / 실패 / 만료) 들고 있던 chunk 의 buffer 를 돌려준다.
+     */
+    private void release(Session session) {
+        synchronized (session) {
+            session.closed = true;
+            for (byte[] data : session.buffered.values()) {
+                this.bufferedBytes.release(data.length);
+            }
+            session.buffered.clear();
+        }
+    }
+
+    private void checkWindow(Session session, int index) {
+        if (index >= session.nextChunk + this.maxBufferedChunks) {
+            throw new IllegalStateException(String.format(
+                    "chunk %d is too far ahead, chunks from %d must be sent first.", index, session.nextChunk));
+        }
+    }
+
+    private static final class Session {
+        final String id;
+        final BlobInfo blobInfo;
+        final long size;
+        final int chunkSize;
+        final int chunkCount;
+        final WriteChannel writer;
+
+        int nextChunk = 0;
+        // 순서대로 WriteChannel 에 넘긴 byte 수 (WriteChannel 이 chunkSize 만큼 모아서 보내므로 GCS 에 저장된 크기와는 다를 수 있다)
+        long receivedBytes = 0;
+        final TreeMap<Integer, byte[]> buffered = new TreeMap<>();
+        boolean closed = false;
+
+        Session(String id, BlobInfo blobInfo, long size, int chunkSize, int chunkCount, WriteChannel writer) {
+            this.id = id;
+            this.blobInfo = blobInfo;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.chunkCount = chunkCount;
+            this.writer = writer;
+        }
+
+        int chunkLength(int index) {
+            return (int) Math.min(this.chunkSize, this.size - (long) index * this.chunkSize);
+        }
+
+        boolean isReceived(int index) {
+            return index < this.nextChunk || this.buffered.containsKey(index);
+        }
+
+        void write(byte[] data) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                this.writer.write(buffer);
+            }
+            this.nextChunk++;
+            this.receivedBytes += data.length;
+        }
+
+        GcsUploadSessionDTO toDTO() {
+            GcsUploadSessionDTO dto = new GcsUploadSessionDTO();
+            dto.setSessionId(this.id);
+            dto.setFileName(this.blobInfo.getName());
+            dto.setContentType(this.blobInfo.getContentType());
+            dto.setSize(this.size);
+            dto.setChunkSize(this.chunkSize);
+            dto.setChunkCount(this.chunkCount);
+            dto.setNextChunk(this.nextChunk);
+            dto.setReceivedBytes(this.receivedBytes);
+            dto.setBufferedChunks(new ArrayList<>(this.buffered.keySet()));
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * virtual-threads profile (gcs.virtual-threads.enabled=true) 에서 Tomcat 요청을 virtual thread 로 처리한다.
+ * 내부 executor 들의 thread 도 virtual thread 로 바뀐다 (GcsExecutorConfiguration 참고).
+ */
+@Configuration
+@ConditionalOnProperty(name = "gcs.virtual-threads.enabled", havingValue = "true")
+public class GcsVirtualThreadConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GcsVirtualThreadConfiguration.class);
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService tomcatVirtualThreadExecutor() {
+        return GcsVirtualThreads.perTaskExecutor("tomcat-vt-");
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService tomcatVirtualThreadExecutor) {
+        LOG.info("tomcat requests are handled on virtual threads.");
+        return protocolHandler -> protocolHandler.setExecutor(tomcatVirtualThreadExecutor);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * JDK 21 의 virtual thread 를 reflection 으로 만든다.
+ * 프로젝트는 Spring Boot 2.4 (Spring 5.3 의 ASM 이 Java 21 class file 을 읽지 못함) 때문에 1.8 bytecode 로 빌드하므로
+ * Thread.ofVirtual() 을 직접 호출할 수 없다. JDK 21 미만에서 부르면 IllegalStateException 을 던진다.
+ */
+public final class GcsVirtualThreads {
+
+    private GcsVirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * name + 0, name + 1, ... 이름의 virtual thread 를 만드는 ThreadFactory
+     */
+    public static ThreadFactory factory(String name) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual threads require JDK 21 or later.", e);
+        }
+    }
+
+    /**
+     * 작업마다 새 virtual thread 를 만드는 executor (Executors.newThreadPerTaskExecutor)
+     */
+    public static ExecutorService perTaskExecutor(String name) {
+        ThreadFactory factory = factory(name);
+        try {
+            Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) method.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual threads require JDK 21 or later.", e);
+        }
+    }
+}
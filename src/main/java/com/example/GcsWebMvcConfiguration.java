@@ -0,0 +1,31 @@
+package com.example;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * StreamingResponseBody 를 gcsStreamExecutor 에서 실행하고, async 요청의 timeout 을 정한다.
+ * (executor bean 을 직접 정의하면 Spring Boot 의 applicationTaskExecutor 가 만들어지지 않아서
+ * 설정하지 않으면 요청마다 새 thread 를 만드는 SimpleAsyncTaskExecutor 가 쓰인다)
+ */
+@Configuration
+public class GcsWebMvcConfiguration implements WebMvcConfigurer {
+
+    @Autowired
+    @Qualifier("gcsStreamExecutor")
+    private ThreadPoolTaskExecutor streamExecutor;
+
+    @Value("${gcs.async.request-timeout-millis:-1}")
+    private long requestTimeoutMillis;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(this.streamExecutor);
+        configurer.setDefaultTimeout(this.requestTimeoutMillis);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.contrib.nio.testing.LocalStorageHelper;
+import com.google.common.io.ByteStreams;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class GcsArchiveStreamerTest {
+
+    private static final int PREFETCH_BYTES = 16;
+
+    private GcsArchiveStreamer streamer;
+    private final Storage storage = LocalStorageHelper.customOptions(false).getService();
+
+    @BeforeEach
+    void setup() {
+        this.streamer = new GcsArchiveStreamer(32);
+        ReflectionTestUtils.setField(this.streamer, "storage", this.storage);
+        ReflectionTestUtils.setField(this.streamer, "slicedDownloader", mock(GcsSlicedDownloader.class));
+        ReflectionTestUtils.setField(this.streamer, "prefetchExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(this.streamer, "prefetchEntries", 4);
+        ReflectionTestUtils.setField(this.streamer, "prefetchBytes", PREFETCH_BYTES);
+        ReflectionTestUtils.setField(this.streamer, "level", 0);
+        ReflectionTestUtils.setField(this.streamer, "maxEntries", 100);
+        ReflectionTestUtils.setField(this.streamer, "downloadChunkSize", 1024);
+        ReflectionTestUtils.setField(this.streamer, "downloadBufferSize", 1024);
+    }
+
+    private Blob create(String name, String content) {
+        this.storage.create(BlobInfo.newBuilder("bucket", name).build(), content.getBytes(StandardCharsets.UTF_8));
+        // 만들 때 돌려받은 blob 에는 크기가 없으므로 다시 읽는다
+        return this.storage.get("bucket", name);
+    }
+
+    // entry 이름 → 내용, method 는 이름 뒤에 붙여 돌려준다
+    private static Map<String, String> unzip(byte[] archive) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String method = entry.getMethod() == ZipEntry.STORED ? "STORED" : "DEFLATED";
+                entries.put(entry.getName() + " " + method, new String(ByteStreams.toByteArray(zip), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    void entryNamesAreNormalized() {
+        assertThat(GcsArchiveStreamer.entryName("/a/./b//c.txt")).isEqualTo("a/b/c.txt");
+        assertThat(GcsArchiveStreamer.entryName("a\\b.txt")).isEqualTo("a/b.txt");
+        assertThat(GcsArchiveStreamer.entryName("./dir/")).isEqualTo("dir/");
+        assertThat(GcsArchiveStreamer.entryName("a/../../etc/passwd")).isNull();
+        assertThat(GcsArchiveStreamer.entryName("/./")).isNull();
+    }
+
+    @Test
+    void duplicateNamesAreSuffixed() throws IOException {
+        List<Blob> blobs = new ArrayList<>(Arrays.asList(
+                this.create("dup.txt", "first"),
+                this.create("./dup.txt", "second"),
+                this.create("/dup.txt", "third"),
+                this.create("dir/", ""),
+                this.create("./dir/", ""),
+                this.create("../escape.txt", "unsafe")));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertThat(this.streamer.streamTo(blobs, outputStream)).isEqualTo(4);
+
+        Map<String, String> entries = unzip(outputStream.toByteArray());
+        assertThat(entries.keySet()).containsExactly(
+                "dup.txt STORED", "dup (1).txt STORED", "dup (2).txt STORED", "dir/ STORED");
+        assertThat(entries.values()).containsExactly("first", "second", "third", "");
+    }
+
+    @Test
+    void onlyEntriesWithinThePrefetchAreStored() throws IOException {
+        String large = "larger than the prefetched head";
+        List<Blob> blobs = Arrays.asList(this.create("small.txt", "small"), this.create("large.txt", large));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        this.streamer.streamTo(blobs, outputStream);
+
+        Map<String, String> entries = unzip(outputStream.toByteArray());
+        assertThat(entries).containsEntry("small.txt STORED", "small");
+        assertThat(entries).containsEntry("large.txt DEFLATED", large);
+    }
+}
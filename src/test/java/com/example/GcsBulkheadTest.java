@@ -0,0 +1,61 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GcsBulkheadTest {
+
+    @Test
+    void unwrittenBodyDoesNotHoldStream() {
+        GcsBulkhead bulkhead = new GcsBulkhead("download", Runnable::run, 1);
+
+        // async timeout 이나 client 가 먼저 끊은 경우처럼 body 가 실행되지 않는다
+        bulkhead.stream(out -> out.write(1));
+        bulkhead.stream(out -> out.write(1));
+
+        assertThat(bulkhead.getAvailableStreams()).isEqualTo(1);
+    }
+
+    @Test
+    void busyBulkheadRejectsBodyAndReleasesAfterFailure() throws Exception {
+        GcsBulkhead bulkhead = new GcsBulkhead("download", Runnable::run, 1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        StreamingResponseBody slow = bulkhead.stream(out -> {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("client is gone.");
+        });
+        Thread writer = new Thread(() -> {
+            try {
+                slow.writeTo(new ByteArrayOutputStream());
+            } catch (IOException e) {
+                // 실패해도 자리는 돌려줘야 한다
+            }
+        });
+        writer.start();
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        StreamingResponseBody rejected = bulkhead.stream(out -> out.write(1));
+        assertThatThrownBy(() -> rejected.writeTo(new ByteArrayOutputStream()))
+                .isInstanceOf(RejectedExecutionException.class);
+
+        release.countDown();
+        writer.join(5000);
+        assertThat(bulkhead.getAvailableStreams()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example;
+
+import com.google.cloud.storage.Blob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GcsDownloadCacheTest {
+
+    private Path directory;
+    private GcsDownloadCache cache;
+    private final AtomicInteger fills = new AtomicInteger();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @BeforeEach
+    void setup() throws IOException {
+        this.directory = Files.createTempDirectory("gcs-download-cache-test");
+        this.cache = new GcsDownloadCache();
+        ReflectionTestUtils.setField(this.cache, "enabled", true);
+        ReflectionTestUtils.setField(this.cache, "directory", this.directory.toString());
+        ReflectionTestUtils.setField(this.cache, "maxBytes", 20L);
+        ReflectionTestUtils.setField(this.cache, "maxObjectBytes", 20L);
+        this.cache.initialize();
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        this.executor.shutdownNow();
+        FileSystemUtils.deleteRecursively(this.directory);
+    }
+
+    private static Blob blob(String name, String content) {
+        Blob blob = mock(Blob.class);
+        when(blob.getBucket()).thenReturn("bucket");
+        when(blob.getName()).thenReturn(name);
+        when(blob.getGeneration()).thenReturn(1L);
+        when(blob.getSize()).thenReturn((long) content.length());
+        return blob;
+    }
+
+    // 이름을 내용으로 가진 파일을 채운다 (이름은 모두 같은 길이)
+    private void fill(Blob blob, Path target) throws IOException {
+        this.fills.incrementAndGet();
+        Files.write(target, (blob.getName() + "-content").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String transfer(Blob blob, long offset, long length) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        long transferred = this.cache.transferTo(blob, this::fill, offset, length, outputStream);
+        assertThat(transferred).isEqualTo(outputStream.size());
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private long cachedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void rangeMissIsNotFilledButServedAfterWholeGet() throws IOException {
+        Blob blob = blob("a", "a-content");
+
+        assertThat(this.cache.transferTo(blob, this::fill, 2, 3, new ByteArrayOutputStream())).isEqualTo(-1);
+        assertThat(this.fills.get()).isZero();
+        assertThat(this.cachedFiles()).isZero();
+
+        assertThat(this.transfer(blob, 0, 9)).isEqualTo("a-content");
+        assertThat(this.transfer(blob, 2, 3)).isEqualTo("con");
+        assertThat(this.transfer(blob, 0, 9)).isEqualTo("a-content");
+        assertThat(this.fills.get()).isEqualTo(1);
+    }
+
+    @Test
+    void fileBeingSentIsNotEvicted() throws Exception {
+        Blob a = blob("a", "a-content");
+        Blob b = blob("b", "b-content");
+        Blob c = blob("c", "c-content");
+        this.transfer(a, 0, 9);
+
+        // a 를 보내는 도중에 멈춰두고, 자리가 모자라도록 b, c 를 채운다
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        OutputStream slow = new OutputStream() {
+            @Override
+            public void write(int b) {
+                this.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writing.countDown();
+                try {
+                    resume.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.write(b, off, len);
+            }
+        };
+        Future<Long> sending = this.executor.submit(() -> this.cache.transferTo(a, this::fill, 0, 9, slow));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        this.transfer(b, 0, 9);
+        this.transfer(c, 0, 9);
+        // 보내는 중인 a 대신 그 다음으로 오래된 b 가 지워진다
+        assertThat(this.cachedFiles()).isEqualTo(2);
+
+        resume.countDown();
+        assertThat(sending.get(5, TimeUnit.SECONDS)).isEqualTo(9);
+        assertThat(new String(received.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("a-content");
+
+        this.fills.set(0);
+        assertThat(this.transfer(a, 0, 9)).isEqualTo("a-content");
+        assertThat(this.transfer(c, 0, 9)).isEqualTo("c-content");
+        assertThat(this.fills.get()).isZero();
+        assertThat(this.transfer(b, 0, 9)).isEqualTo("b-content");
+        assertThat(this.fills.get()).isEqualTo(1);
+    }
+}
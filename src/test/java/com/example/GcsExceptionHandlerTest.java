@@ -0,0 +1,46 @@
+package com.example;
+
+import com.google.cloud.storage.StorageException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GcsExceptionHandlerTest {
+
+    private final GcsExceptionHandler handler = new GcsExceptionHandler();
+
+    @Test
+    void deadlineExceededIsGatewayTimeout() {
+        ResponseEntity<?> response = this.handler.handleStorageException(
+                new StorageException(504, "get exceeded the 1000 ms deadline."), new MockHttpServletResponse());
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(504);
+        assertThat(response.getBody()).isEqualTo("get exceeded the 1000 ms deadline.");
+    }
+
+    @Test
+    void throttledIsPassedThroughWithRetryAfter() {
+        ResponseEntity<?> response = this.handler.handleStorageException(
+                new StorageException(429, "rate limit exceeded."), new MockHttpServletResponse());
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(429);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    @Test
+    void otherFailuresAreInternalServerError() {
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        servletResponse.setHeader(HttpHeaders.CONTENT_LENGTH, "1024");
+
+        ResponseEntity<?> response = this.handler.handleStorageException(
+                new StorageException(403, "caller does not have storage.objects.get access."), servletResponse);
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(500);
+        assertThat(response.getBody()).isEqualTo("GCS call failed.");
+        // 실패하기 전에 붙인 헤더는 남기지 않는다
+        assertThat(servletResponse.getHeader(HttpHeaders.CONTENT_LENGTH)).isNull();
+    }
+}
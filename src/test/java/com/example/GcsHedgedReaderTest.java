@@ -0,0 +1,159 @@
+package com.example;
+
+import com.google.cloud.storage.StorageException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class GcsHedgedReaderTest {
+
+    private static final int WINDOW_SIZE = 10;
+
+    private GcsHedgedReader reader;
+    private final GcsMetrics metrics = mock(GcsMetrics.class);
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setup() {
+        this.reader = new GcsHedgedReader();
+        ReflectionTestUtils.setField(this.reader, "hedgePercentile", 0.95);
+        ReflectionTestUtils.setField(this.reader, "hedgeMinDelayMillis", 10L);
+        ReflectionTestUtils.setField(this.reader, "budgetRatio", 1.0);
+        ReflectionTestUtils.setField(this.reader, "budgetBurst", 10.0);
+        ReflectionTestUtils.setField(this.reader, "deadlinePercentile", 0.999);
+        ReflectionTestUtils.setField(this.reader, "deadlineMultiplier", 3.0);
+        ReflectionTestUtils.setField(this.reader, "deadlineMinMillis", 50L);
+        ReflectionTestUtils.setField(this.reader, "deadlineMaxMillis", 200L);
+        ReflectionTestUtils.setField(this.reader, "windowSize", WINDOW_SIZE);
+        ReflectionTestUtils.setField(this.reader, "minSamples", WINDOW_SIZE);
+        ReflectionTestUtils.setField(this.reader, "executor", this.executor);
+        ReflectionTestUtils.setField(this.reader, "metrics", this.metrics);
+    }
+
+    @AfterEach
+    void teardown() {
+        this.release.countDown();
+        this.executor.shutdownNow();
+    }
+
+    // release 전까지 끝나지 않는 호출
+    private String stuck() {
+        try {
+            this.release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "stuck";
+    }
+
+    // 빠른 호출로 window 를 채워서 percentile 을 쓸 수 있게 한다
+    private void warmUp(String operation) {
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            assertThat(this.reader.read(operation, () -> "fast")).isEqualTo("fast");
+        }
+    }
+
+    @Test
+    void slowCallIsHedgedAndTheFasterOneWins() {
+        ReflectionTestUtils.setField(this.reader, "hedgeEnabled", true);
+        this.warmUp("get");
+
+        AtomicInteger calls = new AtomicInteger();
+        String result = this.reader.read("get", () -> calls.incrementAndGet() == 1 ? this.stuck() : "hedged");
+
+        assertThat(result).isEqualTo("hedged");
+        assertThat(calls.get()).isEqualTo(2);
+        verify(this.metrics).hedge("get", "sent");
+        verify(this.metrics, timeout(5000)).hedge("get", "won");
+    }
+
+    // millis 뒤에 value 를 돌려주거나, value 가 null 이면 실패하는 호출
+    private static String after(long millis, String value) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (value == null) {
+            throw new StorageException(503, "failed after " + millis + " ms");
+        }
+        return value;
+    }
+
+    @Test
+    void primaryFailureWaitsForTheHedge() {
+        ReflectionTestUtils.setField(this.reader, "hedgeEnabled", true);
+        this.warmUp("get");
+
+        // 첫 호출은 hedge 가 나간 뒤에 실패하고, hedge 는 그보다 늦게 성공한다
+        AtomicInteger calls = new AtomicInteger();
+        String result = this.reader.read("get", () -> calls.incrementAndGet() == 1 ? after(40, null) : after(80, "hedged"));
+
+        assertThat(result).isEqualTo("hedged");
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void failsOnlyWhenEveryAttemptFailed() {
+        ReflectionTestUtils.setField(this.reader, "hedgeEnabled", true);
+        this.warmUp("get");
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> this.reader.read("get", () -> calls.incrementAndGet() == 1 ? after(40, null) : after(80, null)))
+                .isInstanceOf(StorageException.class)
+                .hasMessage("failed after 80 ms");
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void hedgeIsNotSentBeforeEnoughSamples() {
+        ReflectionTestUtils.setField(this.reader, "hedgeEnabled", true);
+
+        AtomicInteger calls = new AtomicInteger();
+        String result = this.reader.read("get", () -> {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow";
+        });
+
+        assertThat(result).isEqualTo("slow");
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void callOverTheDeadlineFailsWith504() {
+        ReflectionTestUtils.setField(this.reader, "deadlineEnabled", true);
+
+        // sample 이 모이기 전에는 max-millis 까지 기다린다
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> this.reader.read("list", this::stuck))
+                .isInstanceOf(StorageException.class)
+                .satisfies(e -> assertThat(((StorageException) e).getCode()).isEqualTo(504));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isBetween(200L, 5000L);
+
+        // 빠른 호출이 쌓이면 min-millis 까지만 기다린다
+        this.warmUp("list");
+        started = System.nanoTime();
+        assertThatThrownBy(() -> this.reader.read("list", this::stuck))
+                .isInstanceOf(StorageException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isBetween(50L, 200L);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example;
+
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import com.google.cloud.storage.contrib.nio.testing.LocalStorageHelper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GcsMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private GcsMetrics metrics;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(this.registry);
+        this.metrics = new GcsMetrics(provider);
+    }
+
+    private double activeDownloads() {
+        return this.registry.get("gcs.transfers.active").tag("direction", GcsMetrics.DOWNLOAD).gauge().value();
+    }
+
+    @Test
+    void transferRecordsBytesFirstByteAndOutcome() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long written = this.metrics.transfer("download", GcsMetrics.DOWNLOAD, -1, transfer -> {
+            assertThat(this.activeDownloads()).isEqualTo(1);
+            OutputStream out = transfer.track(outputStream);
+            out.write(new byte[100 * 1024]);
+            out.write(1);
+            return 100 * 1024 + 1L;
+        });
+
+        assertThat(written).isEqualTo(outputStream.size());
+        assertThat(this.activeDownloads()).isZero();
+        assertThat(this.registry.get("gcs.transfer.bytes").tag("direction", GcsMetrics.DOWNLOAD).counter().count())
+                .isEqualTo(100 * 1024 + 1);
+        assertThat(this.registry.get("gcs.transfer.first-byte").tag("direction", GcsMetrics.DOWNLOAD).timer().count())
+                .isEqualTo(1);
+        // 크기를 모르면 실제로 보낸 byte 수로 size tag 를 정한다
+        assertThat(this.registry.get("gcs.service.requests")
+                .tags("operation", "download", "outcome", "success", "size", "64KiB-1MiB").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void failuresAreTaggedByOutcome() {
+        assertThatThrownBy(() -> this.metrics.record("get", -1, () -> {
+            throw new StorageException(404, "missing");
+        })).isInstanceOf(StorageException.class);
+        assertThatThrownBy(() -> this.metrics.transfer("download", GcsMetrics.DOWNLOAD, 10, transfer -> {
+            throw new StorageException(503, "unavailable");
+        })).isInstanceOf(StorageException.class);
+
+        assertThat(this.registry.get("gcs.service.requests")
+                .tags("operation", "get", "outcome", "not_found", "size", "unknown").timer().count()).isEqualTo(1);
+        assertThat(this.registry.get("gcs.transfer.duration")
+                .tags("direction", GcsMetrics.DOWNLOAD, "outcome", "server_error").timer().count()).isEqualTo(1);
+        assertThat(this.activeDownloads()).isZero();
+    }
+
+    @Test
+    void instrumentedStorageRecordsEveryCall() {
+        Storage storage = this.metrics.instrument(LocalStorageHelper.customOptions(false).getService());
+
+        storage.create(BlobInfo.newBuilder("bucket", "metrics-test").build(), new byte[10]);
+        assertThat(storage.get(BlobId.of("bucket", "metrics-test"))).isNotNull();
+        assertThat(storage.get(BlobId.of("bucket", "missing"))).isNull();
+
+        assertThat(this.registry.get("gcs.storage.calls")
+                .tags("method", "create", "outcome", "success", "size", "0-64KiB").timer().count()).isEqualTo(1);
+        assertThat(this.registry.get("gcs.storage.calls")
+                .tags("method", "get", "outcome", "success").timers())
+                .extracting(timer -> timer.count())
+                .containsOnly(1L);
+    }
+}
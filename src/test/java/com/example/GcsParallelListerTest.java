@@ -0,0 +1,87 @@
+package com.example;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.contrib.nio.testing.LocalStorageHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class GcsParallelListerTest {
+
+    private static final String BUCKET = "parallel-lister-test";
+    private static final int PARALLELISM = 2;
+    private static final int SHARDS = 10;
+
+    private GcsParallelLister lister;
+
+    @BeforeEach
+    void setup() {
+        Storage storage = LocalStorageHelper.customOptions(false).getService();
+        for (int i = 0; i < SHARDS; i++) {
+            storage.create(BlobInfo.newBuilder(BUCKET, "dir-" + i + "/file.txt").build(), new byte[]{(byte) i});
+        }
+
+        this.lister = new GcsParallelLister();
+        ReflectionTestUtils.setField(this.lister, "storage", storage);
+        ReflectionTestUtils.setField(this.lister, "compositeUploader", mock(GcsCompositeUploader.class));
+        ReflectionTestUtils.setField(this.lister, "bucketName", BUCKET);
+        ReflectionTestUtils.setField(this.lister, "parallelism", PARALLELISM);
+        ReflectionTestUtils.setField(this.lister, "strategy", "prefixes");
+        ReflectionTestUtils.setField(this.lister, "readAheadPages", 4);
+    }
+
+    /**
+     * 처음 rejections 번은 거절하고, 그 다음부터는 gate 가 열릴 때까지 붙잡아 두면서 동시에 도는 구간 수를 센다.
+     */
+    private static final class SaturatedExecutor implements Executor {
+        private final AtomicInteger rejections;
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        SaturatedExecutor(int rejections) {
+            this.rejections = new AtomicInteger(rejections);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (this.rejections.getAndDecrement() > 0) {
+                throw new RejectedExecutionException("saturated");
+            }
+            new Thread(() -> {
+                this.maxRunning.accumulateAndGet(this.running.incrementAndGet(), Math::max);
+                try {
+                    this.gate.await(200, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // permit 은 command 가 끝나야 돌아오므로 그 전에 빼도 동시 실행 수는 넘지 않는다
+                this.running.decrementAndGet();
+                command.run();
+            }).start();
+        }
+    }
+
+    @Test
+    void rejectedShardsDoNotRaiseTheFanOutLimit() {
+        SaturatedExecutor executor = new SaturatedExecutor(3);
+        ReflectionTestUtils.setField(this.lister, "listExecutor", executor);
+
+        List<Blob> blobs = this.lister.collect(null);
+
+        assertThat(blobs).hasSize(SHARDS);
+        assertThat(executor.maxRunning.get()).isLessThanOrEqualTo(PARALLELISM);
+    }
+}
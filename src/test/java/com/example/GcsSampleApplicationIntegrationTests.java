@@ -37,9 +37,6 @@ import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -64,6 +61,9 @@ public class GcsSampleApplicationIntegrationTests {
 	@Autowired
 	private TestRestTemplate testRestTemplate;
 
+	@Autowired
+	private GcsService gcsService;
+
 	@Value("${gcs-resource-test-bucket}")
 	private String bucketName;
 
@@ -234,23 +234,17 @@ public class GcsSampleApplicationIntegrationTests {
 			});
 	}
 
+	/**
+	 * Mockup 파일 삭제 (prefix 로 batch 삭제)
+	 */
 	@Test
-	public void testGcsResourceDeleteWholeMockup() throws ExecutionException, InterruptedException {
-		Page<Blob> blobs1 = this.storage.list(
-				this.bucketName,
-				Storage.BlobListOption.pageSize(100),
-				Storage.BlobListOption.currentDirectory()
+	public void testGcsResourceDeleteWholeMockup() {
+		GcsBulkDeleteSummaryDTO summary = this.gcsService.deleteFilesByPrefixFromGCS(
+				"my-file-",
+				(results, progress) -> LOG.info("DELETED >>> {} / FAILED >>> {}", progress.getDeleted(), progress.getFailed())
 		);
-		Deque<FutureTask> deque = new ArrayDeque<>();
-		for (Iterator<Blob> ir = blobs1.getValues().iterator(); ir.hasNext();) {
-			Blob blob = ir.next();
-			FutureTask ft = new FutureTask(() -> storage.delete(blob.getBlobId()));
-			deque.add(ft);
-		}
-		while(deque.size()>0) {
-			deque.pop().run();
-			LOG.info("DEQUE SIZE >>> {}", deque.size());
-		}
+		assertThat(summary.isDone()).isTrue();
+		assertThat(summary.getFailed()).isEqualTo(0);
 	}
 
 	@Test
@@ -0,0 +1,222 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class GcsSingleFlightTest {
+
+    private static final byte[] DATA = "0123456789abcdef".getBytes();
+
+    private GcsSingleFlight singleFlight;
+    private final GcsMetrics metrics = mock(GcsMetrics.class);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setup() {
+        this.singleFlight = new GcsSingleFlight();
+        ReflectionTestUtils.setField(this.singleFlight, "enabled", true);
+        ReflectionTestUtils.setField(this.singleFlight, "maxStreamBytes", 1024L);
+        ReflectionTestUtils.setField(this.singleFlight, "downloadBufferSize", 4);
+        ReflectionTestUtils.setField(this.singleFlight, "metrics", this.metrics);
+    }
+
+    // 첫 byte 를 쓰기 전에 release 를 기다리는 producer
+    private long produce(OutputStream sink) throws IOException {
+        this.calls.incrementAndGet();
+        this.started.countDown();
+        await(this.release);
+        sink.write(DATA);
+        return DATA.length;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Long> stream(OutputStream out) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.singleFlight.stream("download", "key", DATA.length, this::produce, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private CompletableFuture<Long> lead(OutputStream out) throws InterruptedException {
+        CompletableFuture<Long> result = this.stream(out);
+        assertThat(this.started.await(5, TimeUnit.SECONDS)).isTrue();
+        return result;
+    }
+
+    @Test
+    void requestJoiningBeforeFirstByteSharesTheCall() throws Exception {
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        CompletableFuture<Long> leader = this.lead(first);
+
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        CompletableFuture<Long> follower = this.stream(second);
+        verify(this.metrics, timeout(5000)).coalesced("download");
+        this.release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(DATA.length);
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(DATA.length);
+        assertThat(first.toByteArray()).isEqualTo(DATA);
+        assertThat(second.toByteArray()).isEqualTo(DATA);
+        assertThat(this.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void requestAfterFirstByteReadsOnItsOwn() throws Exception {
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Long> leader = CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.singleFlight.stream("download", "key", DATA.length, sink -> {
+                    sink.write(DATA, 0, 8);
+                    sink.flush();
+                    written.countDown();
+                    await(finish);
+                    sink.write(DATA, 8, 8);
+                    return DATA.length;
+                }, first);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        this.release.countDown();
+        this.singleFlight.stream("download", "key", DATA.length, this::produce, second);
+        finish.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(DATA.length);
+        assertThat(first.toByteArray()).isEqualTo(DATA);
+        assertThat(second.toByteArray()).isEqualTo(DATA);
+        assertThat(this.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void followerGetsEverythingWhenFirstClientIsGone() throws Exception {
+        OutputStream gone = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("client is gone.");
+            }
+        };
+        CompletableFuture<Long> leader = this.lead(gone);
+
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        CompletableFuture<Long> follower = this.stream(second);
+        verify(this.metrics, timeout(5000)).coalesced("download");
+        this.release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("client is gone.");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(DATA.length);
+        assertThat(second.toByteArray()).isEqualTo(DATA);
+        assertThat(this.calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void largeStreamIsReplayedFromTheSpoolFile() throws Exception {
+        Path directory = Files.createTempDirectory("gcs-coalesce-spool");
+        try {
+            ReflectionTestUtils.setField(this.singleFlight, "spoolEnabled", true);
+            ReflectionTestUtils.setField(this.singleFlight, "spoolDirectory", directory.toString());
+            this.singleFlight.initialize();
+
+            byte[] large = new byte[4096];
+            new Random(1).nextBytes(large);
+            ByteArrayOutputStream first = new ByteArrayOutputStream();
+            CountDownLatch written = new CountDownLatch(1);
+            CountDownLatch finish = new CountDownLatch(1);
+            CompletableFuture<Long> leader = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return this.singleFlight.stream("download", "key", large.length, sink -> {
+                        this.calls.incrementAndGet();
+                        sink.write(large, 0, 3000);
+                        sink.flush();
+                        written.countDown();
+                        await(finish);
+                        sink.write(large, 3000, large.length - 3000);
+                        return large.length;
+                    }, first);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // 첫 byte 를 보낸 뒤에 붙어도 spool 파일을 처음부터 읽는다
+            ByteArrayOutputStream second = new ByteArrayOutputStream();
+            CompletableFuture<Long> follower = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return this.singleFlight.stream("download", "key", large.length, sink -> {
+                        this.calls.incrementAndGet();
+                        sink.write(large);
+                        return large.length;
+                    }, second);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            verify(this.metrics, timeout(5000)).coalesced("download");
+            finish.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(large.length);
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(large.length);
+            assertThat(first.toByteArray()).isEqualTo(large);
+            assertThat(second.toByteArray()).isEqualTo(large);
+            assertThat(this.calls.get()).isEqualTo(1);
+            try (Stream<Path> files = Files.list(directory)) {
+                assertThat(files).isEmpty();
+            }
+        } finally {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void largeStreamIsNotSharedWithoutSpool() throws Exception {
+        byte[] large = new byte[4096];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThat(this.singleFlight.stream("download", "key", large.length, sink -> {
+            this.calls.incrementAndGet();
+            sink.write(large);
+            return large.length;
+        }, out)).isEqualTo(large.length);
+
+        assertThat(out.toByteArray()).isEqualTo(large);
+        assertThat(this.calls.get()).isEqualTo(1);
+    }
+}
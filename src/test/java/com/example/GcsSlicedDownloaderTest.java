@@ -0,0 +1,98 @@
+package com.example;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.contrib.nio.testing.LocalStorageHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GcsSlicedDownloaderTest {
+
+    private static final int SLICE_SIZE = 1000;
+
+    private GcsSlicedDownloader downloader;
+    private final Storage storage = LocalStorageHelper.customOptions(false).getService();
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final byte[] content = new byte[10 * SLICE_SIZE + 123];
+
+    @BeforeEach
+    void setup() {
+        this.downloader = new GcsSlicedDownloader(32);
+        ReflectionTestUtils.setField(this.downloader, "storage", this.storage);
+        // slice 가 요청한 순서와 다르게 끝나도록 임의로 늦춘다
+        ReflectionTestUtils.setField(this.downloader, "sliceExecutor", (Executor) command ->
+                this.executor.execute(() -> {
+                    try {
+                        Thread.sleep(ThreadLocalRandom.current().nextInt(20));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    command.run();
+                }));
+        ReflectionTestUtils.setField(this.downloader, "enabled", true);
+        ReflectionTestUtils.setField(this.downloader, "sliceSize", SLICE_SIZE);
+        ReflectionTestUtils.setField(this.downloader, "parallelism", 4);
+        ReflectionTestUtils.setField(this.downloader, "readAheadSlices", 4);
+        new Random(18).nextBytes(this.content);
+    }
+
+    @AfterEach
+    void teardown() {
+        this.executor.shutdownNow();
+    }
+
+    private Blob create(String name) {
+        this.storage.create(BlobInfo.newBuilder("bucket", name).build(), this.content);
+        // 만들 때 돌려받은 blob 에는 크기가 없으므로 다시 읽는다
+        return this.storage.get("bucket", name);
+    }
+
+    @Test
+    void slicesAreWrittenInOrder() throws IOException {
+        Blob blob = this.create("ordered");
+
+        ByteArrayOutputStream whole = new ByteArrayOutputStream();
+        assertThat(this.downloader.streamTo(blob, 0, this.content.length, whole)).isEqualTo(this.content.length);
+        assertThat(whole.toByteArray()).isEqualTo(this.content);
+
+        ByteArrayOutputStream range = new ByteArrayOutputStream();
+        this.downloader.streamTo(blob, 1500, 6000, range);
+        assertThat(range.toByteArray()).isEqualTo(Arrays.copyOfRange(this.content, 1500, 7500));
+    }
+
+    @Test
+    void truncatedSliceFailsTheStream() {
+        Blob blob = this.create("truncated");
+
+        // object 보다 긴 구간을 요청하면 마지막 slice 가 모자란다
+        assertThatThrownBy(() -> this.downloader.streamTo(blob, 0, this.content.length + SLICE_SIZE, new ByteArrayOutputStream()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("truncated");
+    }
+
+    @Test
+    void checksumMismatchHoldsBackTheLastByte() {
+        Blob blob = this.create("corrupted").toBuilder().setCrc32c("AAAAAA==").build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertThatThrownBy(() -> this.downloader.streamTo(blob, 0, this.content.length, outputStream))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum mismatch");
+        assertThat(outputStream.size()).isEqualTo(this.content.length - 1);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example;
+
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GcsUploadSessionManagerTest {
+
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    private GcsUploadSessionManager manager;
+    private final Storage storage = mock(Storage.class);
+    private final WriteChannel writer = mock(WriteChannel.class);
+    // 이 횟수만큼 write 에 성공한 다음부터는 실패한다
+    private final AtomicInteger writesBeforeFailure = new AtomicInteger(Integer.MAX_VALUE);
+
+    @BeforeEach
+    void setup() throws IOException {
+        when(this.storage.writer(any(BlobInfo.class))).thenReturn(this.writer);
+        when(this.writer.write(any(ByteBuffer.class))).thenAnswer(invocation -> {
+            if (this.writesBeforeFailure.getAndDecrement() <= 0) {
+                throw new StorageException(503, "write failed (injected).");
+            }
+            ByteBuffer buffer = invocation.getArgument(0);
+            int length = buffer.remaining();
+            buffer.position(buffer.limit());
+            return length;
+        });
+    }
+
+    private void createManager(int maxBufferedBytes) {
+        this.manager = new GcsUploadSessionManager(maxBufferedBytes);
+        ReflectionTestUtils.setField(this.manager, "storage", this.storage);
+        ReflectionTestUtils.setField(this.manager, "metadataCache", mock(GcsMetadataCache.class));
+        ReflectionTestUtils.setField(this.manager, "nameIndex", mock(GcsNameIndex.class));
+        ReflectionTestUtils.setField(this.manager, "gcsService", mock(GcsService.class));
+        ReflectionTestUtils.setField(this.manager, "bucketName", "bucket");
+        ReflectionTestUtils.setField(this.manager, "maxChunkSize", CHUNK_SIZE);
+        ReflectionTestUtils.setField(this.manager, "maxBufferedChunks", 8);
+        ReflectionTestUtils.setField(this.manager, "maximumSize", 10L);
+        ReflectionTestUtils.setField(this.manager, "idleTimeoutSeconds", 60L);
+        this.manager.initialize();
+    }
+
+    private GcsUploadSessionDTO putChunk(String sessionId, int index) throws IOException {
+        return this.manager.putChunk(sessionId, index, new ByteArrayInputStream(new byte[CHUNK_SIZE]));
+    }
+
+    private int freeBufferBytes() {
+        return ((Semaphore) ReflectionTestUtils.getField(this.manager, "bufferedBytes")).availablePermits();
+    }
+
+    @Test
+    void writeFailureDropsTheSessionAndItsBufferedChunks() throws IOException {
+        this.createManager(4 * CHUNK_SIZE);
+        String sessionId = this.manager.create("file", null, 3L * CHUNK_SIZE, CHUNK_SIZE).getSessionId();
+        this.putChunk(sessionId, 1);
+        this.putChunk(sessionId, 2);
+        assertThat(this.freeBufferBytes()).isEqualTo(2 * CHUNK_SIZE);
+
+        // chunk 0 은 써지고, 이어서 쓰는 chunk 1 에서 실패한다
+        this.writesBeforeFailure.set(1);
+        assertThatThrownBy(() -> this.putChunk(sessionId, 0)).isInstanceOf(StorageException.class);
+
+        assertThat(this.manager.getStatus(sessionId)).isNull();
+        assertThat(this.putChunk(sessionId, 0)).isNull();
+        assertThat(this.manager.complete(sessionId)).isNull();
+        assertThat(this.freeBufferBytes()).isEqualTo(4 * CHUNK_SIZE);
+    }
+
+    @Test
+    void bufferedBytesAreSharedByAllSessions() throws IOException {
+        this.createManager(CHUNK_SIZE);
+        String first = this.manager.create("first", null, 2L * CHUNK_SIZE, CHUNK_SIZE).getSessionId();
+        String second = this.manager.create("second", null, 2L * CHUNK_SIZE, CHUNK_SIZE).getSessionId();
+
+        assertThat(this.putChunk(first, 1).getBufferedChunks()).containsExactly(1);
+        assertThatThrownBy(() -> this.putChunk(second, 1)).isInstanceOf(IllegalStateException.class);
+        // 순서대로 온 chunk 는 buffer 없이 바로 쓴다
+        assertThat(this.putChunk(second, 0).getReceivedBytes()).isEqualTo(CHUNK_SIZE);
+
+        // 앞 chunk 가 와서 buffer 가 비면 다른 session 이 쓸 수 있다
+        GcsUploadSessionDTO status = this.putChunk(first, 0);
+        assertThat(status.getReceivedBytes()).isEqualTo(2L * CHUNK_SIZE);
+        assertThat(status.getBufferedChunks()).isEmpty();
+        assertThat(this.freeBufferBytes()).isEqualTo(CHUNK_SIZE);
+
+        String third = this.manager.create("third", null, 3L * CHUNK_SIZE, CHUNK_SIZE).getSessionId();
+        this.putChunk(third, 2);
+        assertThat(this.freeBufferBytes()).isZero();
+        assertThat(this.manager.abort(third)).isTrue();
+        assertThat(this.freeBufferBytes()).isEqualTo(CHUNK_SIZE);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.controller;
+
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * fake-gcs profile (메모리 안의 GCS, 지연 없음) 위에서 controller 를 MockMvc 로 호출하는 test 의 공통 부분.
+ * 설정이 같은 test class 들은 Spring context 하나를 같이 쓰므로 object 이름은 class 마다 다른 prefix 로 만든다.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "fake-gcs.default-latency-millis=0",
+                "fake-gcs.latency-millis.list=0",
+                "fake-gcs.jitter-millis=0",
+                "fake-gcs.bandwidth-bytes-per-second=0"
+        })
+@AutoConfigureMockMvc
+@ActiveProfiles("fake-gcs")
+public abstract class AbstractFakeGcsControllerTest {
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected Storage storage;
+
+    @Value("${gcs-resource-test-bucket}")
+    protected String bucketName;
+
+    /**
+     * 요청을 보내고, handler 가 async (CompletableFuture / StreamingResponseBody) 로 처리하면 asyncDispatch 까지 마친 결과를 돌려준다.
+     */
+    protected ResultActions perform(RequestBuilder request) throws Exception {
+        ResultActions actions = this.mockMvc.perform(request);
+        MvcResult result = actions.andReturn();
+        if (!result.getRequest().isAsyncStarted()) {
+            return actions;
+        }
+        result.getAsyncResult();
+        return this.mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result));
+    }
+
+    protected String contentOf(ResultActions actions) throws Exception {
+        return actions.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    protected void create(String name, String content) {
+        this.storage.create(BlobInfo.newBuilder(this.bucketName, name).build(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected String read(String name) {
+        return new String(this.storage.readAllBytes(BlobId.of(this.bucketName, name)), StandardCharsets.UTF_8);
+    }
+}
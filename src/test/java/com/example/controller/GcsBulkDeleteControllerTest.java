@@ -0,0 +1,66 @@
+package com.example.controller;
+
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GcsBulkDeleteControllerTest extends AbstractFakeGcsControllerTest {
+
+    private static final String PREFIX = "bulk-delete-test/";
+
+    // 한 줄에 JSON 하나, 마지막 줄이 전체 요약이다
+    private List<String> deleteBulk(String body) throws Exception {
+        String content = contentOf(perform(MockMvcRequestBuilders.post("/delete/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(MockMvcResultMatchers.status().isOk()));
+        List<String> lines = new ArrayList<>();
+        for (String line : content.split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    @Test
+    void namedFilesAreDeletedAndMissingOnesReported() throws Exception {
+        create(PREFIX + "named/1.txt", "1");
+        create(PREFIX + "named/2.txt", "2");
+
+        List<String> lines = deleteBulk(String.format("{\"fileNames\":[\"%s\",\"%s\",\"%s\"]}",
+                PREFIX + "named/1.txt", PREFIX + "named/missing.txt", PREFIX + "named/2.txt"));
+
+        String summary = lines.get(lines.size() - 1);
+        assertThat((Boolean) JsonPath.read(summary, "$.done")).isTrue();
+        assertThat(((Number) JsonPath.read(summary, "$.deleted")).intValue()).isEqualTo(2);
+        assertThat(String.join("\n", lines)).contains(PREFIX + "named/missing.txt");
+        assertThat(storage.get(BlobId.of(bucketName, PREFIX + "named/1.txt"))).isNull();
+        assertThat(storage.get(BlobId.of(bucketName, PREFIX + "named/2.txt"))).isNull();
+    }
+
+    @Test
+    void everyFileUnderThePrefixIsDeleted() throws Exception {
+        for (int i = 0; i < 250; i++) {
+            create(PREFIX + "prefix/" + i + ".txt", String.valueOf(i));
+        }
+        create(PREFIX + "kept.txt", "kept");
+
+        List<String> lines = deleteBulk(String.format("{\"prefix\":\"%s\"}", PREFIX + "prefix/"));
+
+        String summary = lines.get(lines.size() - 1);
+        assertThat(((Number) JsonPath.read(summary, "$.deleted")).intValue()).isEqualTo(250);
+        assertThat(storage.list(bucketName, Storage.BlobListOption.prefix(PREFIX + "prefix/"))
+                .iterateAll()).isEmpty();
+        assertThat(read(PREFIX + "kept.txt")).isEqualTo("kept");
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.controller;
+
+import com.example.GcsFileListColumnsDTO;
+import com.google.cloud.storage.BlobInfo;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GcsColumnarListingControllerTest extends AbstractFakeGcsControllerTest {
+
+    private static final String PREFIX = "columnar-listing-test/";
+
+    @Test
+    void columnarPageHasTheSameEntriesAsJson() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            storage.create(BlobInfo.newBuilder(bucketName, PREFIX + "file-" + i + ".txt")
+                    .setContentType(i % 2 == 0 ? "text/plain" : "application/json")
+                    .build(), ("content " + i).getBytes(StandardCharsets.UTF_8));
+        }
+
+        String json = contentOf(perform(MockMvcRequestBuilders.get("/page")
+                .param("prefix", PREFIX)
+                .param("rowCount", "3"))
+                .andExpect(MockMvcResultMatchers.status().isOk()));
+        String columnar = contentOf(perform(MockMvcRequestBuilders.get("/page")
+                .accept(GcsFileListColumnsDTO.MEDIA_TYPE)
+                .param("prefix", PREFIX)
+                .param("rowCount", "3"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(GcsFileListColumnsDTO.MEDIA_TYPE)));
+
+        assertThat((Integer) JsonPath.read(columnar, "$.count")).isEqualTo(3);
+        assertThat((List<?>) JsonPath.read(columnar, "$.names")).isEqualTo(JsonPath.read(json, "$.blobList[*].name"));
+        assertThat((List<?>) JsonPath.read(columnar, "$.contentTypes")).isEqualTo(JsonPath.read(json, "$.blobList[*].contentType"));
+        assertThat((List<String>) JsonPath.read(columnar, "$.contentTypes")).containsExactly("text/plain", "application/json", "text/plain");
+
+        // columnar 의 pageToken 으로도 같은 다음 page 를 받는다
+        String next = contentOf(perform(MockMvcRequestBuilders.get("/page")
+                .accept(GcsFileListColumnsDTO.MEDIA_TYPE)
+                .param("pageToken", (String) JsonPath.read(columnar, "$.pageToken")))
+                .andExpect(MockMvcResultMatchers.status().isOk()));
+        assertThat((List<String>) JsonPath.read(next, "$.names")).containsExactly(PREFIX + "file-3.txt", PREFIX + "file-4.txt");
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.controller;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// part 가 compose 한 번의 source 한도 (32) 를 넘도록 작게 나눈다
+@TestPropertySource(properties = {
+        "gcs.upload.composite.threshold-bytes=4096",
+        "gcs.upload.composite.part-size=100",
+        "gcs.upload.composite.temp-prefix=composite-upload-test-parts/"
+})
+public class GcsCompositeUploadControllerTest extends AbstractFakeGcsControllerTest {
+
+    private static final String FILE_NAME = "composite-upload-test.bin";
+
+    @Test
+    void partsAreComposedInOrderAndRemoved() throws Exception {
+        byte[] content = new byte[5050];
+        new Random(17).nextBytes(content);
+
+        perform(MockMvcRequestBuilders.multipart("/upload")
+                .file(new MockMultipartFile("files", FILE_NAME, "application/octet-stream", content)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        assertThat(storage.readAllBytes(BlobId.of(bucketName, FILE_NAME))).isEqualTo(content);
+        assertThat(storage.get(BlobId.of(bucketName, FILE_NAME)).getContentType()).isEqualTo("application/octet-stream");
+
+        List<String> leftovers = new ArrayList<>();
+        for (Blob blob : storage.list(bucketName, Storage.BlobListOption.prefix("composite-upload-test-parts/")).iterateAll()) {
+            leftovers.add(blob.getName());
+        }
+        assertThat(leftovers).isEmpty();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.controller;
+
+import com.example.GcsCompressionPolicy;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.common.io.ByteStreams;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = "gcs.compression.enabled=true")
+public class GcsCompressionControllerTest extends AbstractFakeGcsControllerTest {
+
+    private static final String FILE_NAME = "compression-test.txt";
+
+    private String content;
+
+    @BeforeEach
+    void setup() throws Exception {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            builder.append("line ").append(i).append(" of a compressible text file\n");
+        }
+        content = builder.toString();
+
+        MockMultipartFile file = new MockMultipartFile("files", FILE_NAME, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+        perform(MockMvcRequestBuilders.multipart("/upload").file(file))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    private MvcResult download(HttpHeaders headers) throws Exception {
+        return perform(MockMvcRequestBuilders.get("/" + FILE_NAME + "/download").headers(headers))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+    }
+
+    @Test
+    void compressibleUploadIsStoredAsGzip() {
+        Blob blob = storage.get(BlobId.of(bucketName, FILE_NAME));
+
+        assertThat(blob.getContentEncoding()).isEqualTo(GcsCompressionPolicy.GZIP);
+        assertThat(blob.getMetadata()).containsEntry(GcsCompressionPolicy.ORIGINAL_SIZE_METADATA,
+                String.valueOf(content.getBytes(StandardCharsets.UTF_8).length));
+        assertThat(blob.getSize()).isLessThan(content.length());
+    }
+
+    @Test
+    void gzipIsPassedThroughWhenAccepted() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+
+        MvcResult getResult = download(headers);
+
+        assertThat(getResult.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo(GcsCompressionPolicy.GZIP);
+        assertThat(getResult.getResponse().getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(getResult.getResponse().getContentAsByteArray()))) {
+            assertThat(new String(ByteStreams.toByteArray(gzip), StandardCharsets.UTF_8)).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void gzipIsDecompressedOtherwise() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity");
+
+        MvcResult getResult = download(headers);
+
+        assertThat(getResult.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(getResult.getResponse().getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(getResult.getResponse().getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("none");
+        assertThat(getResult.getResponse().getContentAsString()).isEqualTo(content);
+    }
+}
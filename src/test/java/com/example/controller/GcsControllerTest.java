@@ -42,12 +42,17 @@ public class GcsControllerTest {
 
     @Test
     void getSignedURLTest()  throws Exception {
-        MvcResult getResult = mockMvc
+        MvcResult asyncResult = mockMvc
                 .perform(MockMvcRequestBuilders.get("/api/v1/gcs")
                         .contentType(MediaType.APPLICATION_JSON)
                         //.param("fileName", "ANALYSIS_FILES/1357_HE18-035-0758028-LHT_final.bam.tdf")
                         .param("fileName", "ANALYSIS_FILES/1556_NA14623.pdf")
                 )
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        MvcResult getResult = mockMvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(asyncResult))
                 .andExpect(MockMvcResultMatchers.status().isTemporaryRedirect())
                 .andReturn();
 
@@ -0,0 +1,71 @@
+package com.example.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GcsDownloadControllerTest extends AbstractFakeGcsControllerTest {
+
+    private static final String FILE_NAME = "download-test.txt";
+    private static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    @BeforeEach
+    void setup() {
+        this.create(FILE_NAME, CONTENT);
+    }
+
+    private MvcResult download(HttpHeaders headers) throws Exception {
+        return this.perform(MockMvcRequestBuilders.get("/" + FILE_NAME + "/download").headers(headers)).andReturn();
+    }
+
+    @Test
+    void rangeIsServedAsPartialContent() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=10-15");
+
+        MvcResult getResult = this.download(headers);
+
+        assertThat(getResult.getResponse().getStatus()).isEqualTo(206);
+        assertThat(getResult.getResponse().getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 10-15/" + CONTENT.length());
+        assertThat(getResult.getResponse().getContentAsString()).isEqualTo(CONTENT.substring(10, 16));
+    }
+
+    @Test
+    void rangeBeyondTheEndIsNotSatisfiable() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=" + CONTENT.length() + "-");
+
+        MvcResult getResult = this.download(headers);
+
+        assertThat(getResult.getResponse().getStatus()).isEqualTo(416);
+        assertThat(getResult.getResponse().getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */" + CONTENT.length());
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        MvcResult first = this.download(new HttpHeaders());
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        this.perform(MockMvcRequestBuilders.get("/" + FILE_NAME + "/download").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+    }
+
+    @Test
+    void staleIfRangeGetsTheWholeFile() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=10-15");
+        headers.set(HttpHeaders.IF_RANGE, "\"an-older-version\"");
+
+        MvcResult getResult = this.download(headers);
+
+        assertThat(getResult.getResponse().getStatus()).isEqualTo(200);
+        assertThat(getResult.getResponse().getContentAsString()).isEqualTo(CONTENT);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GcsListingControllerTest extends AbstractFakeGcsControllerTest {
+
+    private static final String PREFIX = "listing-test/";
+
+    // 디렉토리 (구간) 와 바로 아래 파일이 섞이도록 순서 없이 만든다
+    private static final List<String> NAMES = Arrays.asList(
+            "listing-test/b-dir/2.txt", "listing-test/c.txt", "listing-test/a-dir/1.txt", "listing-test/b-dir/1.txt",
+            "listing-test/a.txt", "listing-test/c-dir/x/y.txt", "listing-test/a-dir/0.txt", "listing-test/b.txt");
+
+    @BeforeEach
+    void setup() {
+        for (String name : NAMES) {
+            create(name, name);
+        }
+    }
+
+    private static List<String> sorted(List<String> names) {
+        List<String> sorted = new ArrayList<>(names);
+        sorted.sort(null);
+        return sorted;
+    }
+
+    @Test
+    void wholeListIsMergedInNameOrder() throws Exception {
+        String body = contentOf(perform(MockMvcRequestBuilders.get("/list"))
+                .andExpect(MockMvcResultMatchers.status().isOk()));
+
+        List<String> names = JsonPath.read(body, "$[*].name");
+        assertThat(names).isEqualTo(sorted(names));
+        assertThat(names).containsSubsequence(sorted(NAMES));
+    }
+
+    @Test
+    void streamedListIsMergedInNameOrder() throws Exception {
+        String body = contentOf(perform(MockMvcRequestBuilders.get("/list/stream").param("prefix", PREFIX))
+                .andExpect(MockMvcResultMatchers.status().isOk()));
+
+        List<String> names = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            names.add(JsonPath.read(line, "$.name"));
+        }
+        assertThat(names).isEqualTo(sorted(NAMES));
+    }
+}
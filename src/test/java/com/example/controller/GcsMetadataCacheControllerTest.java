@@ -0,0 +1,64 @@
+package com.example.controller;
+
+import com.example.GcsCacheStatsDTO;
+import com.example.GcsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GcsMetadataCacheControllerTest extends AbstractFakeGcsControllerTest {
+
+    private static final String PREFIX = "metadata-cache-test-";
+
+    @Autowired
+    GcsService gcsService;
+
+    private void getInfo(String fileName) throws Exception {
+        perform(MockMvcRequestBuilders.get("/" + fileName))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value(fileName));
+    }
+
+    @Test
+    void repeatedLookupIsServedFromTheCache() throws Exception {
+        String fileName = PREFIX + "repeated.txt";
+        create(fileName, "content");
+
+        getInfo(fileName);
+        GcsCacheStatsDTO before = gcsService.getMetadataCacheStats();
+        getInfo(fileName);
+        GcsCacheStatsDTO after = gcsService.getMetadataCacheStats();
+
+        assertThat(after.getHits()).isEqualTo(before.getHits() + 1);
+        assertThat(after.getMisses()).isEqualTo(before.getMisses());
+    }
+
+    @Test
+    void missingFileIsCachedUntilThisServiceWritesIt() throws Exception {
+        String fileName = PREFIX + "missing.txt";
+
+        assertThatThrownBy(() -> gcsService.getBlobFromGCS(fileName)).isInstanceOf(FileNotFoundException.class);
+
+        // 다른 곳에서 만든 파일은 negative TTL 동안 보이지 않는다
+        create(fileName, "created elsewhere");
+        GcsCacheStatsDTO before = gcsService.getMetadataCacheStats();
+        assertThatThrownBy(() -> gcsService.getBlobFromGCS(fileName)).isInstanceOf(FileNotFoundException.class);
+        assertThat(gcsService.getMetadataCacheStats().getNegativeHits()).isEqualTo(before.getNegativeHits() + 1);
+
+        // 이 서비스로 올리면 cache 가 바로 갱신된다 (write-through)
+        perform(MockMvcRequestBuilders.multipart("/upload")
+                .file(new MockMultipartFile("files", fileName, "text/plain", "uploaded".getBytes(StandardCharsets.UTF_8))))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        before = gcsService.getMetadataCacheStats();
+        getInfo(fileName);
+        assertThat(gcsService.getMetadataCacheStats().getMisses()).isEqualTo(before.getMisses());
+    }
+}
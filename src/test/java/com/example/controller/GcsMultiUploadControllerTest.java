@@ -0,0 +1,67 @@
+package com.example.controller;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GcsMultiUploadControllerTest extends AbstractFakeGcsControllerTest {
+
+    private static final String PREFIX = "multi-upload-test/";
+
+    private static MockMultipartFile file(String name) {
+        return new MockMultipartFile("files", PREFIX + name, "application/octet-stream", name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 읽는 도중 client 가 끊긴 것처럼 실패하는 파일
+    private static MockMultipartFile brokenFile(String name) {
+        return new MockMultipartFile("files", PREFIX + name, "application/octet-stream", new byte[0]) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                throw new IOException(name + " is broken.");
+            }
+        };
+    }
+
+    @Test
+    void resultsFollowTheRequestOrder() throws Exception {
+        perform(MockMvcRequestBuilders.multipart("/uploads")
+                .file(file("1.txt"))
+                .file(file("2.txt"))
+                .file(file("3.txt"))
+                .file(file("4.txt"))
+                .file(file("5.txt")))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[*].fileName").value(Matchers.contains(
+                        PREFIX + "1.txt", PREFIX + "2.txt", PREFIX + "3.txt", PREFIX + "4.txt", PREFIX + "5.txt")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[*].uploaded").value(Matchers.everyItem(
+                        Matchers.is(true))));
+
+        for (int i = 1; i <= 5; i++) {
+            assertThat(read(PREFIX + i + ".txt")).isEqualTo(i + ".txt");
+        }
+    }
+
+    @Test
+    void oneFailedFileDoesNotStopTheOthers() throws Exception {
+        perform(MockMvcRequestBuilders.multipart("/uploads")
+                .file(file("a.txt"))
+                .file(brokenFile("b.txt"))
+                .file(file("c.txt")))
+                .andExpect(MockMvcResultMatchers.status().isMultiStatus())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].uploaded").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].uploaded").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].error").value("b.txt is broken."))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[2].uploaded").value(true));
+
+        assertThat(read(PREFIX + "a.txt")).isEqualTo("a.txt");
+        assertThat(read(PREFIX + "c.txt")).isEqualTo("c.txt");
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.controller;
+
+import com.example.GcsNameIndex;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.nio.charset.StandardCharsets;
+
+@TestPropertySource(properties = "gcs.index.enabled=true")
+public class GcsNameIndexControllerTest extends AbstractFakeGcsControllerTest {
+
+    private static final String PREFIX = "name-index-test/";
+
+    @Autowired
+    GcsNameIndex nameIndex;
+
+    private ResultActions list(String prefix) throws Exception {
+        return perform(MockMvcRequestBuilders.get("/index/list").param("prefix", prefix).param("limit", "100"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    @Test
+    void uploadAndDeleteAreVisibleWithoutResync() throws Exception {
+        String prefix = PREFIX + "writes/";
+        create(prefix + "a.txt", "a");
+        create(prefix + "b.txt", "b");
+        nameIndex.resync();
+
+        perform(MockMvcRequestBuilders.multipart("/upload")
+                .file(new MockMultipartFile("files", prefix + "uploaded.txt", "text/plain", "uploaded".getBytes(StandardCharsets.UTF_8))))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        list(prefix).andExpect(MockMvcResultMatchers.jsonPath("$.entries[*].name")
+                .value(Matchers.contains(prefix + "a.txt", prefix + "b.txt", prefix + "uploaded.txt")));
+
+        perform(MockMvcRequestBuilders.delete("/delete").param("fileName", prefix + "a.txt"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        list(prefix).andExpect(MockMvcResultMatchers.jsonPath("$.entries[*].name")
+                .value(Matchers.contains(prefix + "b.txt", prefix + "uploaded.txt")));
+
+        perform(MockMvcRequestBuilders.post("/delete/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"fileNames\":[\"" + prefix + "uploaded.txt\"]}"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        list(prefix).andExpect(MockMvcResultMatchers.jsonPath("$.entries[*].name")
+                .value(Matchers.contains(prefix + "b.txt")));
+    }
+
+    @Test
+    void changesMadeElsewhereArriveWithResync() throws Exception {
+        String prefix = PREFIX + "elsewhere/";
+        create(prefix + "a.txt", "a");
+        nameIndex.resync();
+
+        create(prefix + "b.txt", "b");
+        list(prefix).andExpect(MockMvcResultMatchers.jsonPath("$.entries[*].name").value(Matchers.contains(prefix + "a.txt")));
+
+        nameIndex.resync();
+        list(prefix).andExpect(MockMvcResultMatchers.jsonPath("$.entries[*].name")
+                .value(Matchers.contains(prefix + "a.txt", prefix + "b.txt")));
+    }
+
+    @Test
+    void directoryListsFilesAndSubDirectories() throws Exception {
+        String prefix = PREFIX + "dir/";
+        create(prefix + "a.txt", "a");
+        create(prefix + "sub/b.txt", "b");
+        create(prefix + "sub/deeper/c.txt", "c");
+        nameIndex.resync();
+
+        perform(MockMvcRequestBuilders.get("/index/dir").param("prefix", prefix))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.entries[*].name").value(Matchers.contains(prefix + "a.txt")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.directories").value(Matchers.contains(prefix + "sub/")));
+    }
+}
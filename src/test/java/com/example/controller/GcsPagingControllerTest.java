@@ -0,0 +1,88 @@
+package com.example.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GcsPagingControllerTest extends AbstractFakeGcsControllerTest {
+
+    private static final String PREFIX = "paging-test/";
+
+    private void createFiles(String prefix, int count) {
+        for (int i = 0; i < count; i++) {
+            create(prefix + "file-" + i + ".txt", "content " + i);
+        }
+    }
+
+    private String firstPage(String prefix) throws Exception {
+        return contentOf(perform(MockMvcRequestBuilders.get("/page")
+                .param("prefix", prefix)
+                .param("rowCount", "2"))
+                .andExpect(MockMvcResultMatchers.status().isOk()));
+    }
+
+    private List<String> nextPage(String pageToken) throws Exception {
+        String body = contentOf(perform(MockMvcRequestBuilders.get("/page").param("pageToken", pageToken))
+                .andExpect(MockMvcResultMatchers.status().isOk()));
+        return JsonPath.read(body, "$.blobList[*].name");
+    }
+
+    @Test
+    void tamperedCursorIsRejected() throws Exception {
+        String prefix = PREFIX + "tampered/";
+        createFiles(prefix, 5);
+        String pageToken = JsonPath.read(firstPage(prefix), "$.pageToken");
+        String raw = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+
+        // page 크기를 제한보다 크게 바꾼 cursor
+        String oversized = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.replaceFirst("\n2\n", "\n100000\n").getBytes(StandardCharsets.UTF_8));
+        perform(MockMvcRequestBuilders.get("/page").param("pageToken", oversized))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        // 다른 prefix 로 이어서 조회하려는 경우
+        perform(MockMvcRequestBuilders.get("/page")
+                .param("pageToken", pageToken)
+                .param("prefix", "other/"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void pagingResumesAfterDelete() throws Exception {
+        String prefix = PREFIX + "delete/";
+        createFiles(prefix, 5);
+        String body = firstPage(prefix);
+        List<String> firstNames = JsonPath.read(body, "$.blobList[*].name");
+        assertThat(firstNames).containsExactly(prefix + "file-0.txt", prefix + "file-1.txt");
+
+        // 다음 page 는 이미 미리 읽혀 있지만, 그 사이에 지운 파일이 나오면 안 된다
+        Thread.sleep(200);
+        perform(MockMvcRequestBuilders.delete("/delete").param("fileName", prefix + "file-2.txt"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        assertThat(nextPage(JsonPath.read(body, "$.pageToken"))).containsExactly(prefix + "file-3.txt", prefix + "file-4.txt");
+    }
+
+    @Test
+    void pagingResumesAfterUpload() throws Exception {
+        String prefix = PREFIX + "upload/";
+        createFiles(prefix, 5);
+        String body = firstPage(prefix);
+
+        // 다음 page 를 미리 읽은 다음 그 구간에 올린 파일도 나와야 한다
+        Thread.sleep(200);
+        perform(MockMvcRequestBuilders.multipart("/upload")
+                .file(new MockMultipartFile("files", prefix + "file-2a.txt", "text/plain", "uploaded".getBytes(StandardCharsets.UTF_8))))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        assertThat(nextPage(JsonPath.read(body, "$.pageToken"))).containsExactly(prefix + "file-2.txt", prefix + "file-2a.txt");
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GcsSignedUrlControllerTest extends AbstractFakeGcsControllerTest {
+
+    private static final String PREFIX = "signed-url-test/";
+
+    private String signBatch(String... fileNames) throws Exception {
+        return contentOf(perform(MockMvcRequestBuilders.post("/urls")
+                .param("expirySeconds", "600")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"" + String.join("\",\"", fileNames) + "\"]"))
+                .andExpect(MockMvcResultMatchers.status().isOk()));
+    }
+
+    @Test
+    void batchIsSignedInRequestOrder() throws Exception {
+        create(PREFIX + "a.txt", "a");
+        create(PREFIX + "b.txt", "b");
+
+        String body = signBatch(PREFIX + "a.txt", PREFIX + "missing.txt", PREFIX + "b.txt");
+
+        List<String> fileNames = JsonPath.read(body, "$[*].fileName");
+        assertThat(fileNames).containsExactly(PREFIX + "a.txt", PREFIX + "missing.txt", PREFIX + "b.txt");
+        assertThat((String) JsonPath.read(body, "$[0].url")).contains(PREFIX + "a.txt").contains("X-Goog-Signature=");
+        assertThat((Object) JsonPath.read(body, "$[1].url")).isNull();
+        assertThat((String) JsonPath.read(body, "$[2].url")).contains(PREFIX + "b.txt");
+    }
+
+    @Test
+    void signedUrlIsReusedWithinItsLifetime() throws Exception {
+        create(PREFIX + "reused.txt", "reused");
+
+        String first = signBatch(PREFIX + "reused.txt");
+        Thread.sleep(20);
+        String second = signBatch(PREFIX + "reused.txt");
+
+        // 다시 서명했다면 만료 시각이 달라진다
+        assertThat((Object) JsonPath.read(second, "$[0].expiresAt")).isEqualTo(JsonPath.read(first, "$[0].expiresAt"));
+        assertThat((String) JsonPath.read(second, "$[0].url")).isEqualTo(JsonPath.read(first, "$[0].url"));
+    }
+
+    @Test
+    void expiryOverTheLimitIsRejected() throws Exception {
+        create(PREFIX + "limit.txt", "limit");
+
+        perform(MockMvcRequestBuilders.get("/url")
+                .param("fileName", PREFIX + "limit.txt")
+                .param("expirySeconds", String.valueOf(7L * 24 * 3600 + 1)))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+}
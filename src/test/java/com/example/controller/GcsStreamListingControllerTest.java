@@ -0,0 +1,64 @@
+package com.example.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GcsStreamListingControllerTest extends AbstractFakeGcsControllerTest {
+
+    private static final String PREFIX = "stream-listing-test/";
+
+    private List<String> names(ResultActions actions) throws Exception {
+        List<String> names = new ArrayList<>();
+        for (String line : contentOf(actions.andExpect(MockMvcResultMatchers.status().isOk())).split("\n")) {
+            if (!line.isEmpty()) {
+                names.add(JsonPath.read(line, "$.name"));
+            }
+        }
+        return names;
+    }
+
+    @Test
+    void everyObjectIsWrittenOnce() throws Exception {
+        String prefix = PREFIX + "many/";
+        for (int i = 0; i < 1200; i++) {
+            create(String.format("%s%04d.txt", prefix, i), String.valueOf(i));
+        }
+
+        List<String> names = names(perform(MockMvcRequestBuilders.get("/list/stream").param("prefix", prefix)));
+
+        assertThat(names).hasSize(1200);
+        assertThat(new HashSet<>(names)).hasSize(1200);
+        assertThat(names.get(0)).isEqualTo(prefix + "0000.txt");
+        assertThat(names.get(1199)).isEqualTo(prefix + "1199.txt");
+    }
+
+    @Test
+    void delimiterListsOnlyTheCurrentDirectory() throws Exception {
+        String prefix = PREFIX + "dir/";
+        create(prefix + "a.txt", "a");
+        create(prefix + "b.txt", "b");
+        create(prefix + "sub/c.txt", "c");
+        create(prefix + "sub/deeper/d.txt", "d");
+
+        List<String> names = names(perform(MockMvcRequestBuilders.get("/list/stream")
+                .param("prefix", prefix)
+                .param("delimiter", "/")));
+
+        assertThat(names).containsExactlyInAnyOrder(prefix + "a.txt", prefix + "b.txt", prefix + "sub/");
+    }
+
+    @Test
+    void otherDelimitersAreRejected() throws Exception {
+        perform(MockMvcRequestBuilders.get("/list/stream").param("delimiter", "-"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GcsStreamingUploadControllerTest extends AbstractFakeGcsControllerTest {
+
+    private static final String BOUNDARY = "stream-upload-boundary";
+
+    private static byte[] multipart(String fileName, String content, boolean complete) {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"files\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n"
+                + "\r\n"
+                + content
+                + (complete ? "\r\n--" + BOUNDARY + "--\r\n" : "");
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static MediaType multipartType() {
+        return MediaType.parseMediaType("multipart/form-data; boundary=" + BOUNDARY);
+    }
+
+    @Test
+    void completedStreamReplacesTheObject() throws Exception {
+        String fileName = "stream-upload-test/replaced.txt";
+        create(fileName, "old content");
+
+        perform(MockMvcRequestBuilders.post("/upload/stream")
+                .contentType(multipartType())
+                .content(multipart(fileName, "new content", true)))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].name").value(fileName));
+
+        assertThat(read(fileName)).isEqualTo("new content");
+    }
+
+    @Test
+    void brokenStreamKeepsTheOldObject() throws Exception {
+        String fileName = "stream-upload-test/kept.txt";
+        create(fileName, "old content");
+
+        // client 가 part 중간에 끊긴 경우 (닫는 boundary 가 오지 않는다)
+        perform(MockMvcRequestBuilders.post("/upload/stream")
+                .contentType(multipartType())
+                .content(multipart(fileName, "half of the new cont", false)))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        assertThat(read(fileName)).isEqualTo("old content");
+    }
+}
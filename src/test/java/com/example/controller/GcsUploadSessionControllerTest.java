@@ -0,0 +1,71 @@
+package com.example.controller;
+
+import com.google.cloud.storage.BlobId;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GcsUploadSessionControllerTest extends AbstractFakeGcsControllerTest {
+
+    private static final String FILE_NAME = "upload-session-test/sample.bin";
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    private String dispatch(MockHttpServletRequestBuilder request, int status) throws Exception {
+        return this.contentOf(this.perform(request).andExpect(MockMvcResultMatchers.status().is(status)));
+    }
+
+    private String putChunk(String sessionId, byte[] content, int index, int status) throws Exception {
+        int from = index * CHUNK_SIZE;
+        return this.dispatch(MockMvcRequestBuilders.put("/upload/sessions/{sessionId}/chunks/{index}", sessionId, index)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content(Arrays.copyOfRange(content, from, Math.min(content.length, from + CHUNK_SIZE))), status);
+    }
+
+    @Test
+    void sessionResumesWithOutOfOrderAndRepeatedChunks() throws Exception {
+        byte[] content = new byte[3 * CHUNK_SIZE + 100];
+        new Random(16).nextBytes(content);
+
+        String created = this.dispatch(MockMvcRequestBuilders.post("/upload/sessions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"fileName\":\"%s\",\"contentType\":\"application/octet-stream\",\"size\":%d,\"chunkSize\":%d}",
+                        FILE_NAME, content.length, CHUNK_SIZE)), 201);
+        String sessionId = JsonPath.read(created, "$.sessionId");
+        assertThat((Integer) JsonPath.read(created, "$.chunkCount")).isEqualTo(4);
+
+        // 앞 chunk 보다 먼저 온 chunk 는 들고 있다가 순서가 되면 반영한다
+        String buffered = this.putChunk(sessionId, content, 1, 200);
+        assertThat((Integer) JsonPath.read(buffered, "$.nextChunk")).isEqualTo(0);
+        List<Integer> bufferedChunks = JsonPath.read(buffered, "$.bufferedChunks");
+        assertThat(bufferedChunks).containsExactly(1);
+
+        String committed = this.putChunk(sessionId, content, 0, 200);
+        assertThat((Integer) JsonPath.read(committed, "$.nextChunk")).isEqualTo(2);
+
+        // 연결이 끊긴 client 는 상태를 보고 빠진 chunk 부터 다시 보낸다. 이미 반영된 chunk 를 다시 보내도 된다
+        String status = this.dispatch(MockMvcRequestBuilders.get("/upload/sessions/{sessionId}", sessionId), 200);
+        assertThat(((Number) JsonPath.read(status, "$.receivedBytes")).longValue()).isEqualTo(2L * CHUNK_SIZE);
+        this.putChunk(sessionId, content, 1, 200);
+
+        // 빠진 chunk 가 있으면 완료할 수 없다
+        this.putChunk(sessionId, content, 3, 200);
+        this.dispatch(MockMvcRequestBuilders.post("/upload/sessions/{sessionId}/complete", sessionId), 409);
+
+        this.putChunk(sessionId, content, 2, 200);
+        this.dispatch(MockMvcRequestBuilders.post("/upload/sessions/{sessionId}/complete", sessionId), 200);
+
+        assertThat(this.storage.readAllBytes(BlobId.of(this.bucketName, FILE_NAME))).isEqualTo(content);
+
+        // 완료된 session 은 더 이상 없다
+        this.putChunk(sessionId, content, 0, 404);
+    }
+}
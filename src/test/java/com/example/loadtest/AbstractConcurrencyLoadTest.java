@@ -0,0 +1,177 @@
+package com.example.loadtest;
+
+import com.example.GcsApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GET /{fileName} 에 동시 요청 수를 단계적으로 늘려가며 처리량과 지연 시간을 잰다.
+ * GCS 는 LatencyInjectingStorageConfiguration 으로 대신하므로 credential 없이 돌아간다.
+ * 결과는 로그와 target/loadtest/{label}.txt 에 남는다. (mvn -Pvirtual-threads test 로 실행)
+ */
+@SpringBootTest(
+        classes = {GcsApplication.class, LatencyInjectingStorageConfiguration.class},
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.cloud.gcp.storage.enabled=false",
+                "gcs.metadata-cache.enabled=false",
+                "gcs.coalesce.enabled=false",
+                "gcs-resource-test-bucket=" + LatencyInjectingStorageConfiguration.BUCKET
+        })
+@EnabledIfSystemProperty(named = "gcs.loadtest.enabled", matches = "true")
+public abstract class AbstractConcurrencyLoadTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger("treetory");
+
+    private static final int[] CONCURRENCY_LEVELS = {50, 200, 800, 1600};
+    private static final long WARM_UP_SECONDS = 3;
+    private static final long LEVEL_SECONDS = 10;
+
+    @LocalServerPort
+    int port;
+
+    protected abstract String label();
+
+    @Test
+    void sustainedConcurrency() throws Exception {
+        URL url = new URL("http://localhost:" + port + "/" + LatencyInjectingStorageConfiguration.FILE_NAME);
+        run(url, CONCURRENCY_LEVELS[0], WARM_UP_SECONDS);
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%s : GCS latency %d ms, max heap %d MB",
+                label(), LatencyInjectingStorageConfiguration.GCS_LATENCY_MILLIS, Runtime.getRuntime().maxMemory() >> 20));
+        report.add("concurrency      ok/s   rejected     errors    p50(ms)    p99(ms)");
+
+        int sustained = 0;
+        long firstOk = -1;
+        for (int concurrency : CONCURRENCY_LEVELS) {
+            LevelResult result = run(url, concurrency, LEVEL_SECONDS);
+            report.add(result.toString());
+            LOG.info("{} {}", label(), result);
+            if (firstOk < 0) {
+                firstOk = result.ok;
+            }
+            if (result.isSustained()) {
+                sustained = concurrency;
+            }
+        }
+        report.add(String.format("sustained concurrency (< 1%% failed, p99 < 4x GCS latency) : %d", sustained));
+        report.forEach(LOG::info);
+
+        Path out = Paths.get("target", "loadtest", label() + ".txt");
+        Files.createDirectories(out.getParent());
+        Files.write(out, report, StandardCharsets.UTF_8);
+
+        assertTrue(firstOk > 0, "no request succeeded");
+    }
+
+    private static LevelResult run(URL url, int concurrency, long seconds) throws InterruptedException {
+        LevelResult result = new LevelResult(concurrency, seconds);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        for (int i = 0; i < concurrency; i++) {
+            Thread client = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long started = System.nanoTime();
+                        int status = request(url);
+                        result.record(status, System.nanoTime() - started);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "loadtest-client-" + i);
+            client.setDaemon(true);
+            client.start();
+        }
+        done.await(seconds + 60, TimeUnit.SECONDS);
+        return result;
+    }
+
+    private static int request(URL url) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(30000);
+            int status = connection.getResponseCode();
+            InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (body != null) {
+                try (InputStream in = body) {
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) >= 0) {
+                        // 응답을 끝까지 읽어야 connection 이 keep-alive 로 재사용된다
+                    }
+                }
+            }
+            return status;
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return -1;
+        }
+    }
+
+    private static final class LevelResult {
+        final int concurrency;
+        final long seconds;
+        final LatencyHistogram latencies = new LatencyHistogram();
+        long ok;
+        long rejected;
+        long errors;
+
+        LevelResult(int concurrency, long seconds) {
+            this.concurrency = concurrency;
+            this.seconds = seconds;
+        }
+
+        synchronized void record(int status, long elapsedNanos) {
+            if (status == 200) {
+                this.ok++;
+                this.latencies.record(elapsedNanos);
+            } else if (status == 503) {
+                this.rejected++;
+            } else {
+                this.errors++;
+            }
+        }
+
+        long percentile(double p) {
+            return this.latencies.percentile(p);
+        }
+
+        synchronized boolean isSustained() {
+            long total = this.ok + this.rejected + this.errors;
+            return total > 0
+                    && (this.rejected + this.errors) * 100 < total
+                    && this.percentile(0.99) < 4 * LatencyInjectingStorageConfiguration.GCS_LATENCY_MILLIS;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%11d %9d %10d %10d %10d %10d",
+                    this.concurrency, this.ok / this.seconds, this.rejected, this.errors, this.percentile(0.5), this.percentile(0.99));
+        }
+    }
+}
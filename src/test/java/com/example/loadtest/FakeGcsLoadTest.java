@@ -0,0 +1,363 @@
+package com.example.loadtest;
+
+import com.example.GcsApplication;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * fake-gcs profile 로 띄운 서버에 /upload, /uploads, /list, /page, /url, /{fileName}/download 를 섞어서 동시에 보내고
+ * endpoint 별 처리량, p50 / p99 / p999 지연 시간과 heap 사용량을 잰다.
+ * 결과는 로그와 target/loadtest/fake-gcs.txt 에 남는다. (mvn -Ploadtest test)
+ *
+ * <pre>
+ * -Dgcs.loadtest.concurrency=64    동시 client 수
+ * -Dgcs.loadtest.seconds=30        측정 시간 (앞에 5 초 warm-up)
+ * -Dgcs.loadtest.objects=500       미리 만들어 둘 object 수 (list / page / url / download 대상)
+ * -Dgcs.loadtest.object-size=65536 미리 만들어 둘 object 와 upload 하는 파일의 크기
+ * </pre>
+ */
+@SpringBootTest(
+        classes = GcsApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("fake-gcs")
+@EnabledIfSystemProperty(named = "gcs.loadtest.enabled", matches = "true")
+class FakeGcsLoadTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger("treetory");
+
+    private static final String SEED_PREFIX = "loadtest-seed-";
+    private static final String UPLOAD_PREFIX = "loadtest-upload-";
+    private static final String BOUNDARY = "----fake-gcs-loadtest";
+    private static final long WARM_UP_SECONDS = 5;
+
+    private static final int CONCURRENCY = Integer.getInteger("gcs.loadtest.concurrency", 64);
+    private static final long SECONDS = Long.getLong("gcs.loadtest.seconds", 30);
+    private static final int OBJECTS = Integer.getInteger("gcs.loadtest.objects", 500);
+    private static final int OBJECT_SIZE = Integer.getInteger("gcs.loadtest.object-size", 65536);
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    private Storage storage;
+
+    @Autowired
+    private FakeGcsProperties fakeGcsProperties;
+
+    @Value("${gcs-resource-test-bucket}")
+    private String bucketName;
+
+    private byte[] content;
+
+    /**
+     * client 가 보내는 요청 하나. weight 는 섞이는 비율이다.
+     */
+    private enum Operation {
+        UPLOAD(1), UPLOADS(1), LIST(1), PAGE(4), URL(6), DOWNLOAD(6);
+
+        final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    @Test
+    void mixedWorkload() throws Exception {
+        this.seed();
+
+        List<Operation> schedule = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            for (int i = 0; i < operation.weight; i++) {
+                schedule.add(operation);
+            }
+        }
+
+        this.run(schedule, CONCURRENCY, WARM_UP_SECONDS);
+        System.gc();
+
+        Results results;
+        HeapSampler heap = new HeapSampler();
+        try {
+            results = this.run(schedule, CONCURRENCY, SECONDS);
+        } finally {
+            heap.close();
+        }
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("fake-gcs : %d clients, %d s, %d objects of %d bytes, GCS latency %d ms (+%d jitter), %d bytes/s per stream",
+                CONCURRENCY, SECONDS, OBJECTS, OBJECT_SIZE, this.fakeGcsProperties.getDefaultLatencyMillis(),
+                this.fakeGcsProperties.getJitterMillis(), this.fakeGcsProperties.getBandwidthBytesPerSecond()));
+        report.add(String.format("injected errors : 429 %.3f, 503 %.3f, 500 %.3f", this.fakeGcsProperties.getThrottleRate(),
+                this.fakeGcsProperties.getUnavailableRate(), this.fakeGcsProperties.getErrorRate()));
+        report.add("operation        ok/s   rejected     errors    p50(ms)    p99(ms)   p999(ms)");
+        for (Operation operation : Operation.values()) {
+            report.add(results.line(operation, SECONDS));
+        }
+        report.add(String.format("heap : max %d MB, peak used %d MB, used after run %d MB",
+                heap.max >> 20, heap.peak.get() >> 20, heap.used() >> 20));
+        report.forEach(LOG::info);
+
+        Path out = Paths.get("target", "loadtest", "fake-gcs.txt");
+        Files.createDirectories(out.getParent());
+        Files.write(out, report, StandardCharsets.UTF_8);
+
+        for (Operation operation : Operation.values()) {
+            assertTrue(results.latencies[operation.ordinal()].count() > 0, operation + " never succeeded");
+        }
+    }
+
+    /**
+     * list / page / url / download 대상 object 를 지연 없이 미리 만든다.
+     */
+    private void seed() {
+        this.content = new byte[OBJECT_SIZE];
+        new Random(OBJECT_SIZE).nextBytes(this.content);
+
+        long latency = this.fakeGcsProperties.getDefaultLatencyMillis();
+        long jitter = this.fakeGcsProperties.getJitterMillis();
+        this.fakeGcsProperties.setDefaultLatencyMillis(0);
+        this.fakeGcsProperties.setJitterMillis(0);
+        try {
+            for (int i = 0; i < OBJECTS; i++) {
+                BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(this.bucketName, seedName(i)))
+                        .setContentType("application/octet-stream")
+                        .build();
+                this.storage.create(blobInfo, this.content);
+            }
+        } finally {
+            this.fakeGcsProperties.setDefaultLatencyMillis(latency);
+            this.fakeGcsProperties.setJitterMillis(jitter);
+        }
+    }
+
+    private static String seedName(int i) {
+        return String.format("%s%05d.bin", SEED_PREFIX, i);
+    }
+
+    private Results run(List<Operation> schedule, int concurrency, long seconds) throws InterruptedException {
+        Results results = new Results();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        for (int i = 0; i < concurrency; i++) {
+            int client = i;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(client);
+                int next = client % schedule.size();
+                try {
+                    while (System.nanoTime() < deadline) {
+                        Operation operation = schedule.get(next);
+                        next = (next + 1) % schedule.size();
+                        long started = System.nanoTime();
+                        int status = this.request(operation, client, random);
+                        results.record(operation, status, System.nanoTime() - started);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "loadtest-client-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await(seconds + 120, TimeUnit.SECONDS);
+        return results;
+    }
+
+    private int request(Operation operation, int client, Random random) {
+        String seed = seedName(random.nextInt(OBJECTS));
+        switch (operation) {
+            case UPLOAD:
+                return this.upload("/upload", String.format("%s%03d.bin", UPLOAD_PREFIX, client));
+            case UPLOADS:
+                String[] names = new String[4];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = String.format("%s%03d-%d.bin", UPLOAD_PREFIX, client, i);
+                }
+                return this.upload("/uploads", names);
+            case LIST:
+                return this.get("/list");
+            case PAGE:
+                return this.get("/page?rowCount=100&prefix=" + SEED_PREFIX);
+            case URL:
+                return this.get("/url?fileName=" + encode(seed));
+            case DOWNLOAD:
+                return this.get("/" + encode(seed) + "/download");
+            default:
+                throw new IllegalArgumentException(operation.name());
+        }
+    }
+
+    private int get(String path) {
+        HttpURLConnection connection = null;
+        try {
+            connection = this.open(path);
+            return readResponse(connection);
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return -1;
+        }
+    }
+
+    private int upload(String path, String... fileNames) {
+        HttpURLConnection connection = null;
+        try {
+            connection = this.open(path);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + BOUNDARY);
+            connection.setChunkedStreamingMode(65536);
+            try (OutputStream out = connection.getOutputStream()) {
+                for (String fileName : fileNames) {
+                    out.write(String.format("--%s\r\nContent-Disposition: form-data; name=\"files\"; filename=\"%s\"\r\n"
+                            + "Content-Type: application/octet-stream\r\n\r\n", BOUNDARY, fileName).getBytes(StandardCharsets.UTF_8));
+                    out.write(this.content);
+                    out.write("\r\n".getBytes(StandardCharsets.UTF_8));
+                }
+                out.write(String.format("--%s--\r\n", BOUNDARY).getBytes(StandardCharsets.UTF_8));
+            }
+            return readResponse(connection);
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return -1;
+        }
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + this.port + path).openConnection();
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(60000);
+        return connection;
+    }
+
+    private static int readResponse(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (body != null) {
+            try (InputStream in = body) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) {
+                    // 응답을 끝까지 읽어야 connection 이 keep-alive 로 재사용된다
+                }
+            }
+        }
+        return status;
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Results {
+        final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+        final AtomicLong[] rejected = new AtomicLong[Operation.values().length];
+        final AtomicLong[] errors = new AtomicLong[Operation.values().length];
+
+        Results() {
+            for (int i = 0; i < this.latencies.length; i++) {
+                this.latencies[i] = new LatencyHistogram();
+                this.rejected[i] = new AtomicLong();
+                this.errors[i] = new AtomicLong();
+            }
+        }
+
+        void record(Operation operation, int status, long elapsedNanos) {
+            int i = operation.ordinal();
+            if (status >= 200 && status < 300) {
+                this.latencies[i].record(elapsedNanos);
+            } else if (status == 503) {
+                this.rejected[i].incrementAndGet();
+            } else {
+                this.errors[i].incrementAndGet();
+            }
+        }
+
+        String line(Operation operation, long seconds) {
+            int i = operation.ordinal();
+            LatencyHistogram latency = this.latencies[i];
+            return String.format("%-10s %9d %10d %10d %10d %10d %10d",
+                    operation.name().toLowerCase(), latency.count() / seconds, this.rejected[i].get(), this.errors[i].get(),
+                    latency.percentile(0.5), latency.percentile(0.99), latency.percentile(0.999));
+        }
+    }
+
+    /**
+     * 측정하는 동안 heap 사용량을 100 ms 마다 읽어서 가장 높았던 값을 기억한다.
+     */
+    private static final class HeapSampler implements AutoCloseable {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        final long max = this.memory.getHeapMemoryUsage().getMax();
+        final AtomicLong peak = new AtomicLong();
+        final Thread thread;
+        volatile boolean running = true;
+
+        HeapSampler() {
+            this.thread = new Thread(() -> {
+                while (this.running) {
+                    this.peak.accumulateAndGet(this.used(), Math::max);
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "loadtest-heap-sampler");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        long used() {
+            return this.memory.getHeapMemoryUsage().getUsed();
+        }
+
+        @Override
+        public void close() {
+            this.running = false;
+            this.thread.interrupt();
+            try {
+                this.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.loadtest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * fake-gcs profile 의 Storage 가 흉내 낼 GCS 의 지연 / 대역폭 / 오류.
+ * 테스트 도중에 setter 로 바꿔도 다음 호출부터 바로 적용된다.
+ *
+ * <pre>
+ * fake-gcs.default-latency-millis=20
+ * fake-gcs.latency-millis.list=40
+ * fake-gcs.bandwidth-bytes-per-second=52428800
+ * fake-gcs.throttle-rate=0.01
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "fake-gcs")
+public class FakeGcsProperties {
+
+    private volatile long defaultLatencyMillis = 20;
+
+    // StorageRpc method 이름 (get, list, create, open, write, read ...) 별 지연, 없으면 default-latency-millis
+    private Map<String, Long> latencyMillis = new ConcurrentHashMap<>();
+
+    private volatile long jitterMillis = 0;
+
+    private volatile long bandwidthBytesPerSecond = 0;
+
+    private volatile double throttleRate = 0;
+
+    private volatile double unavailableRate = 0;
+
+    private volatile double errorRate = 0;
+
+    public long getDefaultLatencyMillis() {
+        return defaultLatencyMillis;
+    }
+
+    public void setDefaultLatencyMillis(long defaultLatencyMillis) {
+        this.defaultLatencyMillis = defaultLatencyMillis;
+    }
+
+    public Map<String, Long> getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public void setLatencyMillis(Map<String, Long> latencyMillis) {
+        this.latencyMillis = new ConcurrentHashMap<>(latencyMillis);
+    }
+
+    public long getJitterMillis() {
+        return jitterMillis;
+    }
+
+    public void setJitterMillis(long jitterMillis) {
+        this.jitterMillis = jitterMillis;
+    }
+
+    public long getBandwidthBytesPerSecond() {
+        return bandwidthBytesPerSecond;
+    }
+
+    public void setBandwidthBytesPerSecond(long bandwidthBytesPerSecond) {
+        this.bandwidthBytesPerSecond = bandwidthBytesPerSecond;
+    }
+
+    public double getThrottleRate() {
+        return throttleRate;
+    }
+
+    public void setThrottleRate(double throttleRate) {
+        this.throttleRate = throttleRate;
+    }
+
+    public double getUnavailableRate() {
+        return unavailableRate;
+    }
+
+    public void setUnavailableRate(double unavailableRate) {
+        this.unavailableRate = unavailableRate;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public long latencyOf(String operation) {
+        Long latency = this.latencyMillis.get(operation);
+        return latency != null ? latency : this.defaultLatencyMillis;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.loadtest;
+
+import com.google.auth.oauth2.ServiceAccountCredentials;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
+import com.google.cloud.storage.contrib.nio.testing.LocalStorageHelper;
+import com.google.cloud.storage.spi.v1.StorageRpc;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * fake-gcs profile : auto-configure 된 Storage 대신 메모리 안의 GCS (google-cloud-nio LocalStorageHelper) 를 쓴다.
+ * RPC 마다 FakeGcsProperties 의 지연 / 대역폭 / 오류가 들어가고, signed URL 은 매번 새로 만든 RSA key 로 로컬에서 서명한다.
+ * GCP project 나 credential 없이 HTTP 계층 전체를 돌려볼 수 있다. (@ActiveProfiles("fake-gcs"))
+ */
+@Configuration
+@Profile("fake-gcs")
+@EnableConfigurationProperties(FakeGcsProperties.class)
+public class FakeGcsStorageConfiguration {
+
+    static final String PROJECT_ID = "fake-project-for-testing";
+
+    @Bean
+    public Storage storage(FakeGcsProperties properties) throws NoSuchAlgorithmException {
+        StorageRpc rpc = FaultInjectingStorageRpc.wrap((StorageRpc) LocalStorageHelper.getOptions().getRpc(), properties);
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        ServiceAccountCredentials credentials = ServiceAccountCredentials.newBuilder()
+                .setClientEmail("fake-gcs@" + PROJECT_ID + ".iam.gserviceaccount.com")
+                .setPrivateKey(generator.generateKeyPair().getPrivate())
+                .setPrivateKeyId("fake-gcs")
+                .build();
+
+        return StorageOptions.newBuilder()
+                .setProjectId(PROJECT_ID)
+                .setCredentials(credentials)
+                .setServiceRpcFactory(options -> rpc)
+                .build()
+                .getService();
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.loadtest;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.services.storage.model.StorageObject;
+import com.google.cloud.Tuple;
+import com.google.cloud.storage.StorageException;
+import com.google.cloud.storage.spi.v1.RpcBatch;
+import com.google.cloud.storage.spi.v1.StorageRpc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * in-memory StorageRpc 앞에서 FakeGcsProperties 대로 지연, 대역폭 제한, 429 / 503 / 500 응답을 끼워 넣는다.
+ * Storage (StorageImpl) 아래의 RPC 계층에 끼우므로 실제 GCS 처럼 client library 의 retry / backoff 를 그대로 거친다.
+ * in-memory StorageRpc 는 목록을 이름 순으로 정렬하지도, page 로 나누지도 않으므로 object 목록은 여기서 GCS 처럼 나눠준다.
+ * batch 도 지원하지 않으므로 submit 할 때 모아둔 호출을 하나씩 실행하는 batch 를 대신 돌려준다.
+ * compose 도 구현되어 있지 않으므로 source 를 읽어 이어 붙인 내용으로 target 을 만든다.
+ */
+final class FaultInjectingStorageRpc implements InvocationHandler {
+
+    private final StorageRpc delegate;
+    private final FakeGcsProperties properties;
+
+    private FaultInjectingStorageRpc(StorageRpc delegate, FakeGcsProperties properties) {
+        this.delegate = delegate;
+        this.properties = properties;
+    }
+
+    static StorageRpc wrap(StorageRpc delegate, FakeGcsProperties properties) {
+        return (StorageRpc) Proxy.newProxyInstance(StorageRpc.class.getClassLoader(), new Class<?>[]{StorageRpc.class},
+                new FaultInjectingStorageRpc(delegate, properties));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(this.delegate, args);
+        }
+        String operation = method.getName();
+        if ("createBatch".equals(operation)) {
+            return new SequentialBatch((StorageRpc) proxy);
+        }
+        this.inject(operation);
+
+        Object[] throttled = this.throttle(operation, args);
+        // list(bucket, options)
+        boolean listObjects = "list".equals(operation) && throttled != null && throttled.length == 2 && throttled[0] instanceof String;
+        if (listObjects) {
+            throttled[1] = withoutPaging((Map<?, ?>) throttled[1]);
+        }
+        if ("compose".equals(operation)) {
+            return this.compose(throttled);
+        }
+        Object result;
+        try {
+            result = method.invoke(this.delegate, throttled);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        if (listObjects) {
+            return page(result, (Map<?, ?>) args[1]);
+        }
+
+        // read(from, options, position, bytes) 는 받은 byte 를 Tuple 로 돌려준다
+        if (result instanceof Tuple && ((Tuple<?, ?>) result).y() instanceof byte[]) {
+            this.pace(((byte[]) ((Tuple<?, ?>) result).y()).length);
+        }
+        return result;
+    }
+
+    // compose(sources, target, targetOptions)
+    @SuppressWarnings("unchecked")
+    private StorageObject compose(Object[] args) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (StorageObject source : (Iterable<StorageObject>) args[0]) {
+            byte[] data = this.delegate.load(source, Collections.emptyMap());
+            content.write(data, 0, data.length);
+        }
+        return this.delegate.create((StorageObject) args[1], new ByteArrayInputStream(content.toByteArray()),
+                (Map<StorageRpc.Option, ?>) args[2]);
+    }
+
+    private static Map<StorageRpc.Option, Object> withoutPaging(Map<?, ?> options) {
+        Map<StorageRpc.Option, Object> copy = new EnumMap<>(StorageRpc.Option.class);
+        for (Map.Entry<?, ?> option : options.entrySet()) {
+            if (option.getKey() != StorageRpc.Option.MAX_RESULTS && option.getKey() != StorageRpc.Option.PAGE_TOKEN) {
+                copy.put((StorageRpc.Option) option.getKey(), option.getValue());
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * 이름 순으로 정렬해서 page token (직전 page 의 마지막 이름) 다음부터 max results 개를 돌려준다.
+     */
+    @SuppressWarnings("unchecked")
+    private static Tuple<String, Iterable<StorageObject>> page(Object result, Map<?, ?> options) {
+        List<StorageObject> objects = new ArrayList<>();
+        for (StorageObject object : ((Tuple<String, Iterable<StorageObject>>) result).y()) {
+            objects.add(object);
+        }
+        objects.sort(Comparator.comparing(StorageObject::getName));
+
+        String pageToken = (String) options.get(StorageRpc.Option.PAGE_TOKEN);
+        Object maxResults = options.get(StorageRpc.Option.MAX_RESULTS);
+        long pageSize = maxResults == null ? Long.MAX_VALUE : ((Number) maxResults).longValue();
+
+        List<StorageObject> page = new ArrayList<>();
+        String nextPageToken = null;
+        for (StorageObject object : objects) {
+            if (pageToken != null && object.getName().compareTo(pageToken) <= 0) {
+                continue;
+            }
+            if (page.size() >= pageSize) {
+                nextPageToken = page.get(page.size() - 1).getName();
+                break;
+            }
+            page.add(object);
+        }
+        return Tuple.of(nextPageToken, page);
+    }
+
+    private void inject(String operation) throws InterruptedException {
+        long latency = this.properties.latencyOf(operation);
+        if (this.properties.getJitterMillis() > 0) {
+            latency += ThreadLocalRandom.current().nextLong(this.properties.getJitterMillis() + 1);
+        }
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+
+        double draw = ThreadLocalRandom.current().nextDouble();
+        if (draw < this.properties.getThrottleRate()) {
+            throw new StorageException(429, String.format("%s is throttled (injected).", operation), "rateLimitExceeded", null);
+        }
+        draw -= this.properties.getThrottleRate();
+        if (draw < this.properties.getUnavailableRate()) {
+            throw new StorageException(503, String.format("%s is unavailable (injected).", operation), "backendError", null);
+        }
+        draw -= this.properties.getUnavailableRate();
+        if (draw < this.properties.getErrorRate()) {
+            throw new StorageException(500, String.format("%s is failed (injected).", operation), "internalError", null);
+        }
+    }
+
+    /**
+     * upload / download 되는 byte 만큼 bandwidth-bytes-per-second 에 맞춰 기다리도록 인자를 바꾼다.
+     */
+    private Object[] throttle(String operation, Object[] args) throws InterruptedException {
+        if (args == null) {
+            return null;
+        }
+        Object[] throttled = args.clone();
+        for (int i = 0; i < throttled.length; i++) {
+            if (throttled[i] instanceof InputStream) {
+                throttled[i] = new ThrottledInputStream((InputStream) throttled[i]);
+            } else if (throttled[i] instanceof OutputStream) {
+                throttled[i] = new ThrottledOutputStream((OutputStream) throttled[i]);
+            }
+        }
+        // write(uploadId, toWrite, toWriteOffset, destOffset, length, last)
+        if (operation.startsWith("write") && throttled.length >= 5 && throttled[4] instanceof Integer) {
+            this.pace((Integer) throttled[4]);
+        }
+        return throttled;
+    }
+
+    private void pace(long bytes) throws InterruptedException {
+        long bandwidth = this.properties.getBandwidthBytesPerSecond();
+        if (bandwidth > 0 && bytes > 0) {
+            TimeUnit.NANOSECONDS.sleep(bytes * TimeUnit.SECONDS.toNanos(1) / bandwidth);
+        }
+    }
+
+    private void paceQuietly(long bytes) throws InterruptedIOException {
+        try {
+            this.pace(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("throttled transfer is interrupted.");
+        }
+    }
+
+    /**
+     * 모아둔 호출을 submit 할 때 proxy 를 통해 하나씩 실행한다 (호출마다 지연 / 오류가 들어간다).
+     */
+    private static final class SequentialBatch implements RpcBatch {
+
+        private final StorageRpc rpc;
+        private final List<Runnable> calls = new ArrayList<>();
+
+        SequentialBatch(StorageRpc rpc) {
+            this.rpc = rpc;
+        }
+
+        @Override
+        public void addDelete(StorageObject object, Callback<Void> callback, Map<StorageRpc.Option, ?> options) {
+            this.calls.add(() -> {
+                try {
+                    if (this.rpc.delete(object, options)) {
+                        callback.onSuccess(null);
+                    } else {
+                        callback.onFailure(error(404, object.getName() + " is not found."));
+                    }
+                } catch (StorageException e) {
+                    callback.onFailure(error(e.getCode(), e.getMessage()));
+                }
+            });
+        }
+
+        @Override
+        public void addPatch(StorageObject object, Callback<StorageObject> callback, Map<StorageRpc.Option, ?> options) {
+            this.calls.add(() -> {
+                try {
+                    callback.onSuccess(this.rpc.patch(object, options));
+                } catch (StorageException e) {
+                    callback.onFailure(error(e.getCode(), e.getMessage()));
+                }
+            });
+        }
+
+        @Override
+        public void addGet(StorageObject object, Callback<StorageObject> callback, Map<StorageRpc.Option, ?> options) {
+            this.calls.add(() -> {
+                try {
+                    StorageObject found = this.rpc.get(object, options);
+                    if (found != null) {
+                        callback.onSuccess(found);
+                    } else {
+                        callback.onFailure(error(404, object.getName() + " is not found."));
+                    }
+                } catch (StorageException e) {
+                    callback.onFailure(error(e.getCode(), e.getMessage()));
+                }
+            });
+        }
+
+        @Override
+        public void submit() {
+            this.calls.forEach(Runnable::run);
+            this.calls.clear();
+        }
+
+        private static GoogleJsonError error(int code, String message) {
+            GoogleJsonError error = new GoogleJsonError();
+            error.setCode(code);
+            error.setMessage(message);
+            return error;
+        }
+    }
+
+    private final class ThrottledInputStream extends FilterInputStream {
+
+        ThrottledInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                paceQuietly(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                paceQuietly(n);
+            }
+            return n;
+        }
+    }
+
+    private final class ThrottledOutputStream extends FilterOutputStream {
+
+        ThrottledOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            paceQuietly(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            paceQuietly(len);
+        }
+    }
+}
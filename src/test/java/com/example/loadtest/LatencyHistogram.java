@@ -0,0 +1,35 @@
+package com.example.loadtest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 1 ms 단위 latency histogram (마지막 칸은 그 이상 전부). 여러 client thread 가 함께 기록한다.
+ */
+final class LatencyHistogram {
+
+    private static final int MAX_MILLIS = 10000;
+
+    private final long[] counts = new long[MAX_MILLIS + 1];
+    private long total;
+
+    synchronized void record(long elapsedNanos) {
+        this.counts[(int) Math.min(MAX_MILLIS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos))]++;
+        this.total++;
+    }
+
+    synchronized long count() {
+        return this.total;
+    }
+
+    synchronized long percentile(double p) {
+        long target = (long) Math.ceil(this.total * p);
+        long seen = 0;
+        for (int i = 0; i <= MAX_MILLIS; i++) {
+            seen += this.counts[i];
+            if (seen >= target && target > 0) {
+                return i;
+            }
+        }
+        return MAX_MILLIS;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.loadtest;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.lang.reflect.Proxy;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * storage.get 이 GCS 처럼 GCS_LATENCY_MILLIS 동안 block 된 다음 고정된 blob 을 돌려주는 Storage.
+ * 호출 기록이 heap 에 쌓이지 않도록 Mockito mock 대신 Proxy 를 쓴다 (다른 method 는 지원하지 않는다).
+ */
+@TestConfiguration
+public class LatencyInjectingStorageConfiguration {
+
+    static final String BUCKET = "loadtest-bucket";
+    static final String FILE_NAME = "loadtest.bin";
+    static final long GCS_LATENCY_MILLIS = 50;
+
+    @Bean
+    public Storage storage() {
+        Blob blob = mock(Blob.class, withSettings().stubOnly());
+        when(blob.getBlobId()).thenReturn(BlobId.of(BUCKET, FILE_NAME, 1L));
+        when(blob.getBucket()).thenReturn(BUCKET);
+        when(blob.getName()).thenReturn(FILE_NAME);
+        when(blob.getGeneration()).thenReturn(1L);
+        when(blob.getSize()).thenReturn(1024L);
+        when(blob.getContentType()).thenReturn("application/octet-stream");
+        when(blob.getMd5()).thenReturn("1B2M2Y8AsgTpgAmY7PhCfg==");
+        when(blob.getUpdateTime()).thenReturn(0L);
+
+        return (Storage) Proxy.newProxyInstance(Storage.class.getClassLoader(), new Class<?>[]{Storage.class}, (proxy, method, args) -> {
+            if ("get".equals(method.getName()) && args != null && args.length > 0 && args[0] instanceof BlobId) {
+                Thread.sleep(GCS_LATENCY_MILLIS);
+                return blob;
+            }
+            if ("toString".equals(method.getName())) {
+                return "LatencyInjectingStorage";
+            }
+            if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(proxy);
+            }
+            if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.loadtest;
+
+/**
+ * 기본 설정 (Tomcat platform thread pool, 고정 크기 bulkhead)
+ */
+public class PlatformThreadLoadTest extends AbstractConcurrencyLoadTest {
+
+    @Override
+    protected String label() {
+        return "platform-threads";
+    }
+}
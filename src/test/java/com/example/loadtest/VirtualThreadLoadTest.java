@@ -0,0 +1,15 @@
+package com.example.loadtest;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * virtual-threads profile (Tomcat 과 GCS executor 가 virtual thread, bulkhead 크기 확대)
+ */
+@ActiveProfiles("virtual-threads")
+public class VirtualThreadLoadTest extends AbstractConcurrencyLoadTest {
+
+    @Override
+    protected String label() {
+        return "virtual-threads";
+    }
+}